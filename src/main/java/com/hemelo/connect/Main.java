@@ -1,6 +1,8 @@
 package com.hemelo.connect;
 
 import com.hemelo.connect.constants.Timings;
+import com.hemelo.connect.enums.PoliticaAtraso;
+import com.hemelo.connect.infra.AgendadorJobs;
 import com.hemelo.connect.run.*;
 import com.hemelo.connect.utils.ProcessaUtils;
 import org.slf4j.Logger;
@@ -40,24 +42,26 @@ public class Main {
         MainAux.validaProperties();
         MainAux.connectDatasource();
         MainAux.waitForDatasource();
+        MainAux.carregarCatalogo();
 
         // Thread para ser executada a cada minuto
-        MainAux.minuteTimer = ProcessaUtils.createTimer("por Minuto", Duration.ofMinutes(1), new MinuteRunnable());
+        MainAux.minuteJob = AgendadorJobs.getInstance().agendar("por Minuto", Duration.ofMinutes(1), PoliticaAtraso.PULAR, new MinuteRunnable());
 
         // Thread para ser executada a cada dia
-        MainAux.dailyTimer = ProcessaUtils.createTimer("Diário", Duration.ofDays(1), new DailyRunnable());
+        MainAux.dailyJob = AgendadorJobs.getInstance().agendar("Diário", Duration.ofDays(1), PoliticaAtraso.AGRUPAR, new DailyRunnable());
 
         // Thread para ser executada a cada hora
-        MainAux.hourlyTimer = ProcessaUtils.createTimer("por Hora", Duration.ofHours(1), new HourRunnable());
+        MainAux.hourlyJob = AgendadorJobs.getInstance().agendar("por Hora", Duration.ofHours(1), PoliticaAtraso.AGRUPAR, new HourRunnable());
 
-        // Timer para verificar novos arquivos no FTP
-        MainAux.arquivosFinderTimer = ProcessaUtils.createTimer("Arquivos Finder", Timings.INTERVALO_PESQUISA_ARQUIVOS, new ArquivosFtpFinderRunnable());
+        // Job para verificar novos arquivos no FTP
+        MainAux.arquivosFinderJob = AgendadorJobs.getInstance().agendar("Arquivos Finder", Timings.INTERVALO_PESQUISA_ARQUIVOS, PoliticaAtraso.PULAR, new ArquivosFtpFinderRunnable());
 
-        // Timer para baixar os arquivos do FTP
-        MainAux.arquivosDownloaderThread = ProcessaUtils.createLoopedThread("Arquivos Downloader", new ArquivosDownloaderRunnable());
+        // Thread para baixar os arquivos do FTP, que dorme até o próximo horário de download
+        MainAux.agendadorDownload = new AgendadorJanelaDownload(Timings.HORARIOS_DOWNLOAD_ARQUIVOS_FTP, new ArquivosDownloaderRunnable());
+        MainAux.arquivosDownloaderThread = ProcessaUtils.createThread("Arquivos Downloader", MainAux.agendadorDownload);
 
         // Thread para mover arquivos baixados locais do FTP para as devidas pastas do Connect.
-        MainAux.arquivosSenderTimer = ProcessaUtils.createTimer("Arquivos Sender", Duration.ofMillis(Timings.INTERVALO_PESQUISA_ARQUIVOS_LOCAIS_ENVIO_CONNECT_MS), new ArquivosSenderRunnable());
+        MainAux.arquivosSenderJob = AgendadorJobs.getInstance().agendar("Arquivos Sender", Duration.ofMillis(Timings.INTERVALO_PESQUISA_ARQUIVOS_LOCAIS_ENVIO_CONNECT_MS), PoliticaAtraso.PULAR, new ArquivosSenderRunnable());
 
         // Thread do socket
         MainAux.serverThread = ProcessaUtils.createLoopedThread("Socket", new SocketRunnable());
@@ -1,16 +1,23 @@
 package com.hemelo.connect;
 
+import com.hemelo.connect.catalogo.CatalogoArquivos;
+import com.hemelo.connect.catalogo.CategoriaArquivo;
+import com.hemelo.connect.catalogo.JournalCatalogo;
 import com.hemelo.connect.constants.Caminhos;
 import com.hemelo.connect.constants.Dates;
 import com.hemelo.connect.constants.Retries;
 import com.hemelo.connect.constants.Timings;
 import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.dto.MetricasDatasource;
 import com.hemelo.connect.enums.FileStatusEnvio;
 import com.hemelo.connect.enums.FileStatusLocal;
-import com.hemelo.connect.enums.FileStatusRemoto;
+import com.hemelo.connect.enums.TipoTarefa;
 import com.hemelo.connect.exception.ConexaoException;
+import com.hemelo.connect.infra.AgendadorJobs;
 import com.hemelo.connect.infra.Datasource;
 import com.hemelo.connect.infra.FTPClient;
+import com.hemelo.connect.infra.FTPConnectionPool;
+import com.hemelo.connect.run.AgendadorJanelaDownload;
 import com.hemelo.connect.utils.DateUtils;
 import com.hemelo.connect.utils.FileUtils;
 import com.hemelo.connect.utils.ProcessaUtils;
@@ -23,6 +30,7 @@ import org.slf4j.Logger;
 import javax.swing.*;
 import java.awt.*;
 import java.io.File;
+import java.io.IOException;
 import java.lang.management.ManagementFactory;
 import java.lang.management.RuntimeMXBean;
 import java.nio.file.Files;
@@ -31,8 +39,9 @@ import java.sql.Connection;
 import java.sql.SQLException;
 import java.time.*;
 import java.util.*;
-import java.util.Timer;
-import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
@@ -45,11 +54,12 @@ public abstract class MainAux {
 
     public static final Logger logger = org.slf4j.LoggerFactory.getLogger(MainAux.class);
     public static Thread serverThread, statusThread, dsThread, arquivosDownloaderThread;
-    public static Timer arquivosFinderTimer, arquivosSenderTimer, minuteTimer, dailyTimer, hourlyTimer;
+    public static AgendadorJanelaDownload agendadorDownload;
+    public static AgendadorJobs.Job arquivosFinderJob, arquivosSenderJob, minuteJob, dailyJob, hourlyJob;
 
     public static Instant ultimaBuscaArquivosInstant, ultimoDownloadArquivosInstant, ultimoEnvioArquivosInstant;
     
-    public static ConcurrentLinkedQueue<FileWrapper> arquivosParaEnviar = new ConcurrentLinkedQueue<>();
+    public static final CatalogoArquivos arquivosParaEnviar = new CatalogoArquivos();
 
     public static final AtomicReference<String> status = new AtomicReference<>("");
     public static final AtomicInteger idFilesRetrieval = new AtomicInteger(0);
@@ -60,7 +70,6 @@ public abstract class MainAux {
     public static final AtomicBoolean isSendingFilesToConnect = new AtomicBoolean(false);
     public static final AtomicBoolean isProcurandoArquivos = new AtomicBoolean(false);
     public static final AtomicBoolean isDownloadingFilesFtp = new AtomicBoolean(false);
-    public static final AtomicBoolean isDownloadingFileFtp = new AtomicBoolean(false);
     public static final AtomicBoolean isPreparingToRetrieveFilesFromFtp = new AtomicBoolean(false);
 
     public static final ReentrantLock lockProcessamento = new ReentrantLock();
@@ -262,6 +271,32 @@ public abstract class MainAux {
         });
     }
 
+    /**
+     * Carrega o catálogo de arquivos gravado em disco e passa a registrar suas mudanças
+     * Evita que arquivos já baixados ou enviados antes de uma reinicialização sejam processados novamente
+     */
+    static void carregarCatalogo() {
+
+        synchronized (status) {
+            status.set("Carregando catálogo de arquivos...");
+            status.notifyAll();
+        }
+
+        JournalCatalogo journal = new JournalCatalogo(Path.of(Caminhos.DIRETORIO_CATALOGO));
+
+        try {
+            journal.carregar(arquivosParaEnviar);
+            Runtime.getRuntime().addShutdownHook(new Thread(journal::close, "Thread - Journal Catalogo Shutdown"));
+        } catch (IOException e) {
+            logger.error("Erro ao carregar o catálogo de arquivos. O catálogo não será persistido", e);
+        }
+
+        synchronized (status) {
+            status.set("");
+            status.notifyAll();
+        }
+    }
+
     static void waitForDatasource() {
 
         synchronized (status) {
@@ -449,13 +484,13 @@ public abstract class MainAux {
         detalhe.append(fileBase.getParent()).append(",");
         detalhe.append(fileBase.getFtpCaminhoCompleto()).append(",");
 
-        if (fileBase.getFtpFile().getTimestamp() != null)
-            detalhe.append(Dates.BRAZILIAN_DATE_TIME_FORMATTER.format(LocalDateTime.ofInstant(fileBase.getFtpFile().getTimestamp().toInstant(), Dates.ZONE_ID))).append(",");
+        if (fileBase.getFtpModificadoEm() != null)
+            detalhe.append(Dates.BRAZILIAN_DATE_TIME_FORMATTER.format(LocalDateTime.ofInstant(fileBase.getFtpModificadoEm(), Dates.ZONE_ID))).append(",");
         else
             detalhe.append(",");
 
-        detalhe.append(fileBase.getFtpFile().getSize()).append(",");
-        detalhe.append(fileBase.getFtpFile().getUser()).append(",");
+        detalhe.append(fileBase.getTamanho()).append(",");
+        detalhe.append(fileBase.getFtpUsuario()).append(",");
         detalhe.append(fileBase.getStatusFtp().toString()).append(",");
 
         detalhe.append(Dates.BRAZILIAN_DATE_TIME_FORMATTER.format(LocalDateTime.ofInstant(fileBase.getFtpLatestUpdate(), Dates.ZONE_ID))).append(",");
@@ -636,6 +671,10 @@ public abstract class MainAux {
             sb.append("⏱️ Último download de arquivos: ").append(diffTempo.toHoursPart()).append(" horas e ").append(diffTempo.toMinutesPart()).append(" minutos atrás").append(System.lineSeparator());
         }
 
+        if (agendadorDownload != null && agendadorDownload.getProximaExecucao() != null) {
+            sb.append("⏱️ Próximo download de arquivos: ").append(Dates.BRAZILIAN_DATE_TIME_FORMATTER.format(agendadorDownload.getProximaExecucao())).append(System.lineSeparator());
+        }
+
         if (ultimaBuscaArquivosInstant != null) {
             diffTempo = Duration.between(ultimaBuscaArquivosInstant, Instant.now());
             sb.append("⏱️ Última busca de arquivos: ").append(diffTempo.toHoursPart()).append(" horas e ").append(diffTempo.toMinutesPart()).append(" minutos atrás").append(System.lineSeparator());
@@ -646,7 +685,9 @@ public abstract class MainAux {
         try {
 
             // Thread para aguardar os processos sincronizados
-            ProcessaUtils.createThread("Hourly Sync Wait", () -> {
+            // Em um deadlock ela pode nunca terminar, portanto não utiliza o pool de monitoramento, que ficaria com uma thread a menos
+            // Ao ser interrompida, deixa de aguardar os processos
+            Thread syncWait = ProcessaUtils.createThread("Hourly Sync Wait", () -> {
 
                 synchronized (Datasource.isConnectingDatasource) {
                     while (Datasource.isConnectingDatasource.get()) {
@@ -655,6 +696,8 @@ public abstract class MainAux {
                             Datasource.isConnectingDatasource.wait();
                         } catch (InterruptedException e) {
                             logger.error("Erro ao aguardar a finalizacao do processo de conectar ao datasource", e);
+                            Thread.currentThread().interrupt();
+                            return;
                         }
                     }
                 }
@@ -666,6 +709,8 @@ public abstract class MainAux {
                             MainAux.getDatasource().isRetrievingConnection.wait();
                         } catch (InterruptedException e) {
                             logger.error("Erro ao aguardar a finalizacao do processo de recuperar conexão ao datasource", e);
+                            Thread.currentThread().interrupt();
+                            return;
                         }
                     }
                 }
@@ -677,6 +722,8 @@ public abstract class MainAux {
                             MainAux.isResettingData.wait();
                         } catch (InterruptedException e) {
                             logger.error("Erro ao aguardar reset dos dados", e);
+                            Thread.currentThread().interrupt();
+                            return;
                         }
                     }
                 }
@@ -688,6 +735,8 @@ public abstract class MainAux {
                             MainAux.isProcurandoArquivos.wait();
                         } catch (InterruptedException e) {
                             logger.error("Erro ao aguardar a finalizacao do processo de procurar arquivos", e);
+                            Thread.currentThread().interrupt();
+                            return;
                         }
                     }
                 }
@@ -699,6 +748,8 @@ public abstract class MainAux {
                             MainAux.isPreparingToRetrieveFilesFromFtp.wait();
                         } catch (InterruptedException e) {
                             logger.error("Erro ao aguardar a finalizacao do processo de preparar para baixar arquivos do FTP", e);
+                            Thread.currentThread().interrupt();
+                            return;
                         }
                     }
                 }
@@ -710,6 +761,8 @@ public abstract class MainAux {
                             MainAux.isDownloadingFilesFtp.wait();
                         } catch (InterruptedException e) {
                             logger.error("Erro ao aguardar a finalizacao do processo de baixar arquivos do FTP", e);
+                            Thread.currentThread().interrupt();
+                            return;
                         }
                     }
                 }
@@ -721,6 +774,8 @@ public abstract class MainAux {
                             MainAux.isSendingFilesToConnect.wait();
                         } catch (InterruptedException e) {
                             logger.error("Erro ao aguardar a finalizacao do processo de enviar arquivos para o Connect", e);
+                            Thread.currentThread().interrupt();
+                            return;
                         }
                     }
                 }
@@ -732,14 +787,23 @@ public abstract class MainAux {
                             MainAux.isCleaningLogs.wait();
                         } catch (InterruptedException e) {
                             logger.error("Erro ao aguardar a finalizacao do processo de limpar logs", e);
+                            Thread.currentThread().interrupt();
+                            return;
                         }
                     }
                 }
-            }).join(Timings.WAIT_FOR_HOURLY_SYNC.toMillis()); // Tempo máximo de espera para sincronização, a fim de identificar possíveis problemas (deadlocks)
+            });
+
+            syncWait.join(Timings.WAIT_FOR_HOURLY_SYNC.toMillis()); // Tempo máximo de espera para sincronização, a fim de identificar possíveis problemas (deadlocks)
+
+            if (syncWait.isAlive()) {
+                syncWait.interrupt();
+                throw new TimeoutException(String.format("Os processos sincronizados não finalizaram em %d ms", Timings.WAIT_FOR_HOURLY_SYNC.toMillis()));
+            }
 
             sb.append("✅ Todos os processos finalizaram com sucesso, não há indícios de deadlocks").append(System.lineSeparator());
 
-        } catch (InterruptedException e) {
+        } catch (InterruptedException | TimeoutException e) {
             logger.error("Erro ao aguardar a finalizacao do processos de sincronizacao", e);
 
             sb.append("❌ Houve um problema ao esperar o(s) seguinte(s) processo(s) finalizarem. Verifique por possíveis deadlocks:").append(System.lineSeparator());
@@ -780,20 +844,35 @@ public abstract class MainAux {
         }
 
         sb.append("Status do FTP: ").append(MainAux.getStatusFTP() ? "Conectado ✅" : "Desconectado ❌").append(System.lineSeparator());
-        sb.append("Status de Conexão com Banco de Dados: ").append(MainAux.getStatusDatabase() ? "Conectado ✅" : "Desconectado ❌").append(System.lineSeparator()).append(System.lineSeparator());
+
+        try {
+            FTPConnectionPool pool = FTPClient.getPool();
+            sb.append("Sessões do FTP: ").append(pool.getSessoesAbertas()).append(" abertas, ").append(pool.getSessoesEmUso()).append(" em uso, máximo ").append(pool.getTamanhoMaximo()).append(System.lineSeparator());
+        } catch (Exception e) {
+            sb.append("Sessões do FTP: indisponível").append(System.lineSeparator());
+        }
+
+        sb.append("Status de Conexão com Banco de Dados: ").append(MainAux.getStatusDatabase() ? "Conectado ✅" : "Desconectado ❌").append(System.lineSeparator());
+
+        try {
+            MetricasDatasource metricas = MainAux.getDatasource().getMetricas();
+
+            if (metricas != null) {
+                sb.append("Conexões do Banco de Dados: ").append(metricas.ativas()).append(" em uso, ").append(metricas.ociosas()).append(" ociosas, ").append(metricas.aguardando()).append(" threads aguardando").append(System.lineSeparator());
+                sb.append("Espera por Conexão: média de ").append(metricas.tempoMedioEsperaMs()).append("ms, máximo de ").append(metricas.tempoMaximoEsperaMs()).append("ms em ").append(metricas.aquisicoes()).append(" conexões (").append(metricas.falhas()).append(" falhas)").append(System.lineSeparator());
+            }
+        } catch (Exception e) {
+            sb.append("Conexões do Banco de Dados: indisponível").append(System.lineSeparator());
+        }
+
+        sb.append(System.lineSeparator());
 
         try {
             sb.append("📊 Total Arquivos Lista Global:").append(arquivosParaEnviar.size()).append(System.lineSeparator()).append(System.lineSeparator());
 
             sb.append("Estatísticas de Arquivos:").append(System.lineSeparator()).append(System.lineSeparator());
 
-            sb.append("📊 Total Arquivos Recém Encontrados em verificação:").append(arquivosParaEnviar.stream().filter(a -> a.getStatusFtp() == FileStatusRemoto.NECESSARIO_VERIFICACAO).count()).append(System.lineSeparator());
-            sb.append("📊 Total Arquivos Em Transito:").append(arquivosParaEnviar.stream().filter(a -> a.getStatusFtp() == FileStatusRemoto.EM_TRANSFERENCIA).count()).append(System.lineSeparator());
-            sb.append("📊 Total Aguardando Download:").append(arquivosParaEnviar.stream().filter(a -> a.getStatusLocal() == FileStatusLocal.INDISPONIVEL && a.getStatusEnvio() != FileStatusEnvio.ENVIADO && a.getStatusFtp() == FileStatusRemoto.TRANSFERIDO).count()).append(System.lineSeparator());
-            sb.append("📊 Total Disponibilizado para Envio, mas aguardando:").append(arquivosParaEnviar.stream().filter(a -> a.getStatusLocal() == FileStatusLocal.DISPONIVEL && a.getStatusEnvio() != FileStatusEnvio.ENVIADO && a.getStatusFtp() == FileStatusRemoto.TRANSFERIDO).count()).append(System.lineSeparator());
-            sb.append("📊 Total Disponibilizado para Envio, mas que não serão enviados, pois possuem hash inválido:").append(arquivosParaEnviar.stream().filter(a -> a.getStatusLocal() == FileStatusLocal.DISPONIVEL && a.getStatusEnvio() != FileStatusEnvio.ENVIADO && (!a.possuiHashDatabase() || !a.comparaHashDatabase())).count()).append(System.lineSeparator());
-            sb.append("📊 Total Enviados:").append(arquivosParaEnviar.stream().filter(a -> a.getStatusEnvio() == FileStatusEnvio.ENVIADO).count()).append(System.lineSeparator());
-            sb.append("📊 Total Deletados:").append(arquivosParaEnviar.stream().filter(a -> a.getStatusFtp() == FileStatusRemoto.DELETADO).count()).append(System.lineSeparator());
+            sb.append(getEstatisticasArquivos());
             sb.append(System.lineSeparator()).append("Atenção: As estatísticas são baseadas na lista global. A mesma é limpa toda meia-noite.").append(System.lineSeparator());
         } catch (Exception e) {
             sb.append("Erro ao obter estatísticas de arquivos").append(System.lineSeparator());
@@ -803,17 +882,23 @@ public abstract class MainAux {
         return sb;
     }
 
-    private static Boolean getStatusFTP() {
+    /**
+     * Totais de arquivos por categoria, mantidos pelo catálogo a cada mudança de status
+     * @return estatísticas formatadas
+     */
+    public static StringBuilder getEstatisticasArquivos() {
 
-        try {
-            if (FTPClient.getInstance() == null || !FTPClient.getInstance().isConnected()) {
-                return false;
-            }
-        } catch (Exception e) {
-            return false;
+        StringBuilder sb = new StringBuilder();
+
+        for (CategoriaArquivo categoria : CategoriaArquivo.values()) {
+            sb.append("📊 ").append(categoria).append(":").append(arquivosParaEnviar.contar(categoria)).append(System.lineSeparator());
         }
 
-        return true;
+        return sb;
+    }
+
+    private static Boolean getStatusFTP() {
+        return FTPClient.testarConexao(Timings.TEMPO_LIMITE_CONEXAO_STATUS_FTP);
     }
 
     private static Boolean getStatusDatabase() {
@@ -821,7 +906,7 @@ public abstract class MainAux {
         AtomicBoolean status = new AtomicBoolean(true);
 
         try {
-            ProcessaUtils.createThread("Status DB", () -> {
+            ProcessaUtils.submeterTarefa(TipoTarefa.MONITORAMENTO, "Status DB", () -> {
                 Connection connection = MainAux.getDatasource().getConnection();
 
                 try {
@@ -838,10 +923,10 @@ public abstract class MainAux {
                     }
                 }
 
-            }).join(Timings.TEMPO_LIMITE_CONEXAO_STATUS_DB);
+            }).get(Timings.TEMPO_LIMITE_CONEXAO_STATUS_DB, TimeUnit.MILLISECONDS);
 
             return status.get();
-        } catch (InterruptedException e) {
+        } catch (InterruptedException | ExecutionException | TimeoutException e) {
             return false;
         }
     }
@@ -0,0 +1,237 @@
+package com.hemelo.connect.catalogo;
+
+import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.enums.FileStatusEnvio;
+import com.hemelo.connect.enums.FileStatusLocal;
+import com.hemelo.connect.enums.FileStatusRemoto;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Catálogo em memória dos arquivos encontrados no FTP
+ * <p>
+ * Os arquivos são indexados pelo diretório do FTP e nome, permitindo localizar um arquivo sem percorrer o catálogo,
+ * e por cada status, permitindo percorrer somente os arquivos de um status
+ * Os índices de status são atualizados pelo próprio arquivo a cada transição, através de {@link OuvinteTransicao}
+ * As transições são aplicadas no arquivo sem bloqueio, somente a atualização dos índices é serializada pelo monitor do arquivo
+ * <p>
+ * Os totais de cada {@link CategoriaArquivo} também são ajustados a cada transição, e podem ser lidos sem percorrer o catálogo
+ */
+public class CatalogoArquivos implements Iterable<FileWrapper>, OuvinteTransicao {
+
+    private final ConcurrentHashMap<Chave, FileWrapper> arquivos = new ConcurrentHashMap<>();
+
+    private final Map<FileStatusRemoto, Set<FileWrapper>> porStatusFtp = new EnumMap<>(FileStatusRemoto.class);
+    private final Map<FileStatusLocal, Set<FileWrapper>> porStatusLocal = new EnumMap<>(FileStatusLocal.class);
+    private final Map<FileStatusEnvio, Set<FileWrapper>> porStatusEnvio = new EnumMap<>(FileStatusEnvio.class);
+
+    private final Map<CategoriaArquivo, LongAdder> totais = new EnumMap<>(CategoriaArquivo.class);
+
+    // Persistência das mudanças do catálogo, nula até o catálogo ser carregado do disco
+    private volatile JournalCatalogo journal;
+
+    public CatalogoArquivos() {
+        for (CategoriaArquivo categoria : CategoriaArquivo.values()) totais.put(categoria, new LongAdder());
+        for (FileStatusRemoto status : FileStatusRemoto.values()) porStatusFtp.put(status, ConcurrentHashMap.newKeySet());
+        for (FileStatusLocal status : FileStatusLocal.values()) porStatusLocal.put(status, ConcurrentHashMap.newKeySet());
+        for (FileStatusEnvio status : FileStatusEnvio.values()) porStatusEnvio.put(status, ConcurrentHashMap.newKeySet());
+    }
+
+    /**
+     * Adiciona um arquivo ao catálogo
+     * O diretório do FTP do arquivo deve estar preenchido, pois faz parte da chave
+     * @param arquivo arquivo
+     * @return false se já existia um arquivo com o mesmo diretório e nome
+     */
+    public boolean add(FileWrapper arquivo) {
+
+        if (arquivos.putIfAbsent(new Chave(arquivo.getFtpCaminhoBase(), arquivo.getNomeArquivo()), arquivo) != null) {
+            return false;
+        }
+
+        // O monitor do arquivo impede que uma transição seja notificada antes do arquivo ser indexado
+        synchronized (arquivo) {
+            indexar(arquivo, arquivo.registrarOuvinteTransicao(this));
+            registrar(arquivo);
+        }
+
+        return true;
+    }
+
+    /**
+     * Busca um arquivo pelo diretório do FTP e nome
+     * @param ftpCaminhoBase diretório do arquivo no FTP
+     * @param nome nome do arquivo
+     * @return arquivo, se existir
+     */
+    public Optional<FileWrapper> buscar(String ftpCaminhoBase, String nome) {
+        return Optional.ofNullable(arquivos.get(new Chave(ftpCaminhoBase, nome)));
+    }
+
+    /**
+     * Remove um arquivo do catálogo e dos índices de status
+     * @param arquivo arquivo
+     * @return true se o arquivo foi removido
+     */
+    public boolean remover(FileWrapper arquivo) {
+
+        if (!arquivos.remove(new Chave(arquivo.getFtpCaminhoBase(), arquivo.getNomeArquivo()), arquivo)) {
+            return false;
+        }
+
+        // Os índices refletem o último estado notificado, que pode ser anterior ao estado atual do arquivo
+        synchronized (arquivo) {
+            desindexar(arquivo, arquivo.removerOuvinteTransicao());
+
+            if (journal != null) {
+                journal.registrarRemocao(arquivo);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Remove os arquivos que atendem ao filtro
+     * @param filtro filtro
+     * @return true se algum arquivo foi removido
+     */
+    public boolean removeIf(Predicate<FileWrapper> filtro) {
+
+        boolean removido = false;
+
+        for (FileWrapper arquivo : arquivos.values()) {
+            if (filtro.test(arquivo)) {
+                removido |= remover(arquivo);
+            }
+        }
+
+        return removido;
+    }
+
+    /**
+     * Arquivos com o status do FTP informado
+     * A coleção acompanha o catálogo e não deve ser alterada
+     */
+    public Collection<FileWrapper> comStatus(FileStatusRemoto status) {
+        return Collections.unmodifiableSet(porStatusFtp.get(status));
+    }
+
+    /**
+     * Arquivos com o status local informado
+     * A coleção acompanha o catálogo e não deve ser alterada
+     */
+    public Collection<FileWrapper> comStatus(FileStatusLocal status) {
+        return Collections.unmodifiableSet(porStatusLocal.get(status));
+    }
+
+    /**
+     * Arquivos com o status de envio informado
+     * A coleção acompanha o catálogo e não deve ser alterada
+     */
+    public Collection<FileWrapper> comStatus(FileStatusEnvio status) {
+        return Collections.unmodifiableSet(porStatusEnvio.get(status));
+    }
+
+    /**
+     * Quantidade de arquivos na categoria informada
+     * @param categoria categoria
+     * @return total mantido a cada transição, sem percorrer o catálogo
+     */
+    public long contar(CategoriaArquivo categoria) {
+        return totais.get(categoria).sum();
+    }
+
+    public boolean existe(FileStatusRemoto status) {
+        return !porStatusFtp.get(status).isEmpty();
+    }
+
+    public int size() {
+        return arquivos.size();
+    }
+
+    public boolean isEmpty() {
+        return arquivos.isEmpty();
+    }
+
+    public Stream<FileWrapper> stream() {
+        return arquivos.values().stream();
+    }
+
+    @Override
+    public Iterator<FileWrapper> iterator() {
+        return Collections.unmodifiableCollection(arquivos.values()).iterator();
+    }
+
+    @Override
+    public void aoTransicionar(FileWrapper arquivo, int estadoAnterior, int estadoAtual) {
+        desindexarStatus(arquivo, estadoAnterior);
+        indexarStatus(arquivo, estadoAtual);
+
+        for (CategoriaArquivo categoria : CategoriaArquivo.values()) {
+
+            boolean antes = categoria.contem(estadoAnterior);
+
+            if (antes != categoria.contem(estadoAtual)) {
+                totais.get(categoria).add(antes ? -1 : 1);
+            }
+        }
+
+        registrar(arquivo);
+    }
+
+    /**
+     * Passa a registrar as mudanças do catálogo no journal
+     */
+    public void setJournal(JournalCatalogo journal) {
+        this.journal = journal;
+    }
+
+    public JournalCatalogo getJournal() {
+        return journal;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private void registrar(FileWrapper arquivo) {
+        if (journal != null) {
+            journal.registrar(arquivo);
+        }
+    }
+
+    private void indexar(FileWrapper arquivo, int estado) {
+        indexarStatus(arquivo, estado);
+        ajustarTotais(estado, 1);
+    }
+
+    private void desindexar(FileWrapper arquivo, int estado) {
+        desindexarStatus(arquivo, estado);
+        ajustarTotais(estado, -1);
+    }
+
+    private void ajustarTotais(int estado, int quantidade) {
+        for (CategoriaArquivo categoria : CategoriaArquivo.values()) {
+            if (categoria.contem(estado)) {
+                totais.get(categoria).add(quantidade);
+            }
+        }
+    }
+
+    private void indexarStatus(FileWrapper arquivo, int estado) {
+        porStatusFtp.get(EstadoArquivo.getStatusFtp(estado)).add(arquivo);
+        porStatusLocal.get(EstadoArquivo.getStatusLocal(estado)).add(arquivo);
+        porStatusEnvio.get(EstadoArquivo.getStatusEnvio(estado)).add(arquivo);
+    }
+
+    private void desindexarStatus(FileWrapper arquivo, int estado) {
+        porStatusFtp.get(EstadoArquivo.getStatusFtp(estado)).remove(arquivo);
+        porStatusLocal.get(EstadoArquivo.getStatusLocal(estado)).remove(arquivo);
+        porStatusEnvio.get(EstadoArquivo.getStatusEnvio(estado)).remove(arquivo);
+    }
+
+    private record Chave(String ftpCaminhoBase, String nome) {}
+}
@@ -0,0 +1,45 @@
+package com.hemelo.connect.catalogo;
+
+import com.hemelo.connect.enums.FileStatusEnvio;
+import com.hemelo.connect.enums.FileStatusLocal;
+import com.hemelo.connect.enums.FileStatusRemoto;
+
+import java.util.function.IntPredicate;
+
+import static com.hemelo.connect.catalogo.EstadoArquivo.*;
+
+/**
+ * Categorias de arquivos contabilizadas pelo catálogo para as estatísticas
+ * Cada categoria é definida sobre o estado compactado do arquivo, ver {@link EstadoArquivo}
+ */
+public enum CategoriaArquivo {
+
+    EM_VERIFICACAO("Total Arquivos Recém Encontrados em verificação", e -> getStatusFtp(e) == FileStatusRemoto.NECESSARIO_VERIFICACAO),
+    EM_TRANSITO("Total Arquivos Em Transito", e -> getStatusFtp(e) == FileStatusRemoto.EM_TRANSFERENCIA),
+    AGUARDANDO_DOWNLOAD("Total Aguardando Download", e -> getStatusLocal(e) == FileStatusLocal.INDISPONIVEL && getStatusEnvio(e) != FileStatusEnvio.ENVIADO && getStatusFtp(e) == FileStatusRemoto.TRANSFERIDO),
+    AGUARDANDO_ENVIO("Total Disponibilizado para Envio, mas aguardando", e -> getStatusLocal(e) == FileStatusLocal.DISPONIVEL && getStatusEnvio(e) != FileStatusEnvio.ENVIADO && getStatusFtp(e) == FileStatusRemoto.TRANSFERIDO),
+    HASH_INVALIDO("Total Disponibilizado para Envio, mas que não serão enviados, pois possuem hash inválido", e -> getStatusLocal(e) == FileStatusLocal.DISPONIVEL && getStatusEnvio(e) != FileStatusEnvio.ENVIADO && !isHashConfere(e)),
+    ENVIADOS("Total Enviados", e -> getStatusEnvio(e) == FileStatusEnvio.ENVIADO),
+    DELETADOS("Total Deletados", e -> getStatusFtp(e) == FileStatusRemoto.DELETADO);
+
+    private final String descricao;
+    private final IntPredicate filtro;
+
+    CategoriaArquivo(String descricao, IntPredicate filtro) {
+        this.descricao = descricao;
+        this.filtro = filtro;
+    }
+
+    /**
+     * Verifica se um arquivo com o estado informado pertence à categoria
+     * @param estado estado compactado
+     */
+    public boolean contem(int estado) {
+        return filtro.test(estado);
+    }
+
+    @Override
+    public String toString() {
+        return descricao;
+    }
+}
@@ -0,0 +1,77 @@
+package com.hemelo.connect.catalogo;
+
+import com.hemelo.connect.enums.FileStatusEnvio;
+import com.hemelo.connect.enums.FileStatusLocal;
+import com.hemelo.connect.enums.FileStatusRemoto;
+
+/**
+ * Estado de um arquivo compactado em um inteiro
+ * Permite comparar o estado antes e depois de uma transição sem criar objetos
+ * <p>
+ * Bits 0-2: status do FTP, bits 3-4: status local, bits 5-6: status de envio, bit 7: hash confere com o banco de dados
+ */
+public final class EstadoArquivo {
+
+    private static final int BITS_FTP = 3;
+    private static final int BITS_LOCAL = 2;
+    private static final int BITS_ENVIO = 2;
+
+    private static final int DESLOCAMENTO_LOCAL = BITS_FTP;
+    private static final int DESLOCAMENTO_ENVIO = BITS_FTP + BITS_LOCAL;
+    private static final int DESLOCAMENTO_HASH = DESLOCAMENTO_ENVIO + BITS_ENVIO;
+
+    private static final int MASCARA_FTP = 0b111;
+    private static final int MASCARA_LOCAL = 0b11;
+    private static final int MASCARA_ENVIO = 0b11;
+
+    private static final FileStatusRemoto[] STATUS_FTP = FileStatusRemoto.values();
+    private static final FileStatusLocal[] STATUS_LOCAL = FileStatusLocal.values();
+    private static final FileStatusEnvio[] STATUS_ENVIO = FileStatusEnvio.values();
+
+    private EstadoArquivo() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static int compactar(FileStatusRemoto statusFtp, FileStatusLocal statusLocal, FileStatusEnvio statusEnvio, boolean hashConfere) {
+        return statusFtp.ordinal() | statusLocal.ordinal() << DESLOCAMENTO_LOCAL | statusEnvio.ordinal() << DESLOCAMENTO_ENVIO | (hashConfere ? 1 : 0) << DESLOCAMENTO_HASH;
+    }
+
+    public static FileStatusRemoto getStatusFtp(int estado) {
+        return STATUS_FTP[estado & MASCARA_FTP];
+    }
+
+    public static FileStatusLocal getStatusLocal(int estado) {
+        return STATUS_LOCAL[estado >>> DESLOCAMENTO_LOCAL & MASCARA_LOCAL];
+    }
+
+    public static FileStatusEnvio getStatusEnvio(int estado) {
+        return STATUS_ENVIO[estado >>> DESLOCAMENTO_ENVIO & MASCARA_ENVIO];
+    }
+
+    public static boolean isHashConfere(int estado) {
+        return (estado >>> DESLOCAMENTO_HASH & 1) == 1;
+    }
+
+    /**
+     * Descrição do estado com os nomes dos status, utilizada nos eventos de transição
+     */
+    public static String descrever(int estado) {
+        return getStatusFtp(estado).name() + '/' + getStatusLocal(estado).name() + '/' + getStatusEnvio(estado).name() + (isHashConfere(estado) ? "/HASH_CONFERE" : "");
+    }
+
+    public static int comStatusFtp(int estado, FileStatusRemoto statusFtp) {
+        return estado & ~MASCARA_FTP | statusFtp.ordinal();
+    }
+
+    public static int comStatusLocal(int estado, FileStatusLocal statusLocal) {
+        return estado & ~(MASCARA_LOCAL << DESLOCAMENTO_LOCAL) | statusLocal.ordinal() << DESLOCAMENTO_LOCAL;
+    }
+
+    public static int comStatusEnvio(int estado, FileStatusEnvio statusEnvio) {
+        return estado & ~(MASCARA_ENVIO << DESLOCAMENTO_ENVIO) | statusEnvio.ordinal() << DESLOCAMENTO_ENVIO;
+    }
+
+    public static int comHashConfere(int estado, boolean hashConfere) {
+        return estado & ~(1 << DESLOCAMENTO_HASH) | (hashConfere ? 1 : 0) << DESLOCAMENTO_HASH;
+    }
+}
@@ -0,0 +1,317 @@
+package com.hemelo.connect.catalogo;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.dto.RegistroArquivo;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Persistência do catálogo de arquivos em disco, para que sobreviva a reinicializações da aplicação
+ * <p>
+ * Cada mudança de status de um arquivo é acrescentada ao journal como uma linha JSON
+ * Periodicamente o catálogo inteiro é gravado em um snapshot e o journal é esvaziado
+ * Ao iniciar, o snapshot é carregado e o journal é reaplicado sobre ele
+ * <p>
+ * As gravações são feitas por uma única thread, em lotes, com o journal sincronizado em disco ao final de cada lote
+ */
+public class JournalCatalogo implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(JournalCatalogo.class);
+
+    private static final String ARQUIVO_JOURNAL = "catalogo.journal";
+    private static final String ARQUIVO_SNAPSHOT = "catalogo.snapshot";
+    private static final int TAMANHO_LOTE = 512;
+
+    // Marcadores da fila de gravação
+    private static final Object COMPACTAR = new Object();
+    private static final Object FINALIZAR = new Object();
+
+    private final Path journal;
+    private final Path snapshot;
+    private final Gson gson = new Gson();
+    private final BlockingQueue<Object> fila = new LinkedBlockingQueue<>();
+    private final AtomicLong sequencia = new AtomicLong();
+    private final AtomicLong registrosDesdeCompactacao = new AtomicLong();
+
+    private CatalogoArquivos catalogo;
+    private FileChannel canal;
+    private Thread escritor;
+
+    public JournalCatalogo(Path diretorio) {
+        this.journal = diretorio.resolve(ARQUIVO_JOURNAL);
+        this.snapshot = diretorio.resolve(ARQUIVO_SNAPSHOT);
+    }
+
+    /**
+     * Reconstrói o catálogo a partir do snapshot e do journal e passa a registrar as mudanças do catálogo
+     * @param catalogo catálogo vazio a ser preenchido
+     * @return quantidade de arquivos carregados
+     * @throws IOException em caso de erro ao abrir o journal para gravação
+     */
+    public synchronized int carregar(CatalogoArquivos catalogo) throws IOException {
+
+        Files.createDirectories(journal.getParent());
+
+        // Chave: diretório do FTP e nome. Registros removidos são mantidos até o final, para descartar registros mais antigos
+        Map<String, RegistroArquivo> registros = new LinkedHashMap<>();
+
+        // Registros do journal com sequência até a do snapshot já estão refletidos no snapshot
+        // Isso ocorre se a aplicação cair entre a gravação do snapshot e o esvaziamento do journal
+        long sequenciaSnapshot = ler(snapshot, registros, -1);
+        ler(journal, registros, sequenciaSnapshot);
+
+        int carregados = 0;
+
+        for (RegistroArquivo registro : registros.values()) {
+            if (!registro.removido() && catalogo.add(FileWrapper.fromRegistro(registro))) {
+                carregados++;
+            }
+        }
+
+        this.catalogo = catalogo;
+        this.canal = FileChannel.open(journal, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        this.escritor = new Thread(this::gravar, "Thread - Journal Catalogo");
+        this.escritor.setDaemon(true);
+        this.escritor.start();
+
+        catalogo.setJournal(this);
+
+        // O snapshot é regravado já na inicialização, descartando o journal reaplicado
+        compactar();
+
+        logger.info(String.format("%d arquivos carregados do catálogo em %s", carregados, journal.getParent()));
+
+        return carregados;
+    }
+
+    /**
+     * Registra o estado atual do arquivo no journal
+     * Deve ser chamado com o monitor do arquivo adquirido, para que o registro reflita a transição que o originou
+     */
+    public void registrar(FileWrapper arquivo) {
+        enfileirar(arquivo, false);
+    }
+
+    /**
+     * Registra a remoção do arquivo do catálogo
+     */
+    public void registrarRemocao(FileWrapper arquivo) {
+        enfileirar(arquivo, true);
+    }
+
+    /**
+     * Solicita a gravação de um novo snapshot, esvaziando o journal
+     */
+    public void compactar() {
+        fila.add(COMPACTAR);
+    }
+
+    public long getRegistrosDesdeCompactacao() {
+        return registrosDesdeCompactacao.get();
+    }
+
+    /**
+     * Grava os registros pendentes e encerra a thread de gravação
+     */
+    @Override
+    public void close() {
+
+        if (escritor == null) return;
+
+        fila.add(FINALIZAR);
+
+        try {
+            escritor.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            canal.close();
+        } catch (IOException e) {
+            logger.error("Erro ao fechar o journal do catálogo", e);
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private void enfileirar(FileWrapper arquivo, boolean removido) {
+
+        // A sequência e a posição na fila precisam ter a mesma ordem
+        synchronized (fila) {
+            RegistroArquivo registro = arquivo.toRegistro(sequencia.incrementAndGet());
+            fila.add(removido ? registro.comoRemovido() : registro);
+        }
+
+        registrosDesdeCompactacao.incrementAndGet();
+    }
+
+    private void gravar() {
+
+        List<Object> lote = new ArrayList<>(TAMANHO_LOTE);
+        StringBuilder linhas = new StringBuilder();
+        boolean finalizar = false;
+
+        while (!finalizar) {
+
+            try {
+                lote.add(fila.take());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+
+            fila.drainTo(lote, TAMANHO_LOTE - 1);
+
+            for (Object item : lote) {
+
+                if (item == FINALIZAR) {
+                    finalizar = true;
+                } else if (item == COMPACTAR) {
+                    acrescentar(linhas);
+                    gravarSnapshot();
+                } else {
+                    linhas.append(gson.toJson(item)).append('\n');
+                }
+            }
+
+            acrescentar(linhas);
+            lote.clear();
+        }
+    }
+
+    /**
+     * Acrescenta as linhas ao journal e sincroniza o journal em disco
+     */
+    private void acrescentar(StringBuilder linhas) {
+
+        if (linhas.isEmpty()) return;
+
+        try {
+            ByteBuffer bytes = ByteBuffer.wrap(linhas.toString().getBytes(StandardCharsets.UTF_8));
+
+            while (bytes.hasRemaining()) {
+                canal.write(bytes);
+            }
+
+            canal.force(false);
+        } catch (IOException e) {
+            logger.error("Erro ao gravar o journal do catálogo em " + journal, e);
+        }
+
+        linhas.setLength(0);
+    }
+
+    /**
+     * Grava o catálogo inteiro em um novo snapshot e esvazia o journal
+     * Executado pela thread de gravação, para que nenhum registro seja acrescentado ao journal durante a troca
+     */
+    private void gravarSnapshot() {
+
+        // A sequência é lida antes dos arquivos, assim o estado gravado é sempre igual ou mais novo que os registros com sequência menor
+        long sequenciaSnapshot = sequencia.get();
+        long registros = registrosDesdeCompactacao.get();
+        Path temporario = snapshot.resolveSibling(ARQUIVO_SNAPSHOT + ".tmp");
+
+        try {
+            try (BufferedWriter writer = Files.newBufferedWriter(temporario, StandardCharsets.UTF_8)) {
+
+                // A primeira linha do snapshot é a sua sequência
+                writer.write(Long.toString(sequenciaSnapshot));
+                writer.write('\n');
+
+                for (FileWrapper arquivo : catalogo) {
+                    writer.write(gson.toJson(arquivo.toRegistro(sequenciaSnapshot)));
+                    writer.write('\n');
+                }
+            }
+
+            try (FileChannel canalSnapshot = FileChannel.open(temporario, StandardOpenOption.WRITE)) {
+                canalSnapshot.force(true);
+            }
+
+            Files.move(temporario, snapshot, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            canal.truncate(0);
+            canal.force(true);
+
+            registrosDesdeCompactacao.addAndGet(-registros);
+
+            logger.debug(String.format("Snapshot do catálogo gravado com %d arquivos", catalogo.size()));
+        } catch (IOException e) {
+            logger.error("Erro ao gravar o snapshot do catálogo em " + snapshot, e);
+        }
+    }
+
+    /**
+     * Lê um arquivo de registros, mantendo para cada arquivo somente o registro de maior sequência
+     * Linhas inválidas, como uma linha incompleta no final do journal após uma queda, são ignoradas
+     * @param caminho snapshot ou journal
+     * @param registros registros lidos
+     * @param sequenciaMinima registros com sequência até este valor são ignorados. Se negativa, a primeira linha é lida como a sequência do snapshot
+     * @return sequência do snapshot, ou -1 para o journal
+     */
+    private long ler(Path caminho, Map<String, RegistroArquivo> registros, long sequenciaMinima) {
+
+        long sequenciaSnapshot = -1;
+
+        if (!Files.exists(caminho)) return sequenciaSnapshot;
+
+        try (BufferedReader reader = Files.newBufferedReader(caminho, StandardCharsets.UTF_8)) {
+
+            String linha;
+
+            if (sequenciaMinima < 0 && (linha = reader.readLine()) != null) {
+                try {
+                    sequenciaSnapshot = Long.parseLong(linha.trim());
+                    sequencia.accumulateAndGet(sequenciaSnapshot, Math::max);
+                } catch (NumberFormatException e) {
+                    logger.warn("Cabeçalho inválido no snapshot do catálogo " + caminho + ": " + linha);
+                }
+            }
+
+            while ((linha = reader.readLine()) != null) {
+
+                if (linha.isBlank()) continue;
+
+                RegistroArquivo registro;
+
+                try {
+                    registro = gson.fromJson(linha, RegistroArquivo.class);
+                } catch (JsonParseException e) {
+                    logger.warn("Linha inválida no catálogo " + caminho + ": " + linha);
+                    continue;
+                }
+
+                if (registro == null || registro.nome() == null || registro.sequencia() <= sequenciaMinima) continue;
+
+                registros.merge(registro.ftpCaminhoBase() + "/" + registro.nome(), registro, (atual, novo) -> novo.sequencia() > atual.sequencia() ? novo : atual);
+                sequencia.accumulateAndGet(registro.sequencia(), Math::max);
+            }
+        } catch (IOException e) {
+            logger.error("Erro ao ler o catálogo de " + caminho, e);
+        }
+
+        return sequenciaSnapshot;
+    }
+}
@@ -0,0 +1,19 @@
+package com.hemelo.connect.catalogo;
+
+import com.hemelo.connect.dto.FileWrapper;
+
+/**
+ * Notificado a cada mudança de status de um arquivo
+ */
+@FunctionalInterface
+public interface OuvinteTransicao {
+
+    /**
+     * Chamado com o monitor do arquivo adquirido, logo após a mudança de status
+     * Mudanças concorrentes podem chegar agrupadas em uma única chamada
+     * @param arquivo arquivo alterado
+     * @param estadoAnterior estado compactado entregue na chamada anterior, ver {@link EstadoArquivo}
+     * @param estadoAtual estado compactado após a mudança
+     */
+    void aoTransicionar(FileWrapper arquivo, int estadoAnterior, int estadoAtual);
+}
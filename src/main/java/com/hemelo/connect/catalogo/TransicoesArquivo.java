@@ -0,0 +1,71 @@
+package com.hemelo.connect.catalogo;
+
+import com.hemelo.connect.enums.FileStatusEnvio;
+import com.hemelo.connect.enums.FileStatusLocal;
+import com.hemelo.connect.enums.FileStatusRemoto;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.hemelo.connect.enums.FileStatusEnvio.*;
+import static com.hemelo.connect.enums.FileStatusLocal.*;
+import static com.hemelo.connect.enums.FileStatusRemoto.*;
+
+/**
+ * Tabela das transições de status permitidas para um arquivo
+ * Manter um status é sempre permitido. Qualquer outra transição fora da tabela é rejeitada pelo {@link com.hemelo.connect.dto.FileWrapper}
+ * <p>
+ * Um arquivo só é reservado para download se estiver {@link FileStatusLocal#INDISPONIVEL} e só é reservado para envio se ainda não foi enviado,
+ * assim o download e o envio de um mesmo arquivo nunca são executados duas vezes ao mesmo tempo
+ */
+public final class TransicoesArquivo {
+
+    private static final Map<FileStatusRemoto, Set<FileStatusRemoto>> TRANSICOES_FTP = new EnumMap<>(FileStatusRemoto.class);
+    private static final Map<FileStatusLocal, Set<FileStatusLocal>> TRANSICOES_LOCAL = new EnumMap<>(FileStatusLocal.class);
+    private static final Map<FileStatusEnvio, Set<FileStatusEnvio>> TRANSICOES_ENVIO = new EnumMap<>(FileStatusEnvio.class);
+
+    static {
+        TRANSICOES_FTP.put(NECESSARIO_VERIFICACAO, EnumSet.of(EM_TRANSFERENCIA, TRANSFERIDO, REFERENCIA_PERDIDA, DELETADO));
+        TRANSICOES_FTP.put(EM_TRANSFERENCIA, EnumSet.of(TRANSFERIDO, REFERENCIA_PERDIDA, DELETADO));
+        TRANSICOES_FTP.put(TRANSFERIDO, EnumSet.of(EM_TRANSFERENCIA, REFERENCIA_PERDIDA, DELETADO));
+        TRANSICOES_FTP.put(REFERENCIA_PERDIDA, EnumSet.of(EM_TRANSFERENCIA, TRANSFERIDO, DELETADO));
+        TRANSICOES_FTP.put(DELETADO, EnumSet.noneOf(FileStatusRemoto.class));
+
+        // O arquivo fica disponível uma única vez. Um arquivo inválido pode ser baixado novamente
+        TRANSICOES_LOCAL.put(INDISPONIVEL, EnumSet.of(BAIXANDO, DISPONIVEL));
+        TRANSICOES_LOCAL.put(BAIXANDO, EnumSet.of(DISPONIVEL, DISPONIVEL_INVALIDO, INDISPONIVEL));
+        TRANSICOES_LOCAL.put(DISPONIVEL, EnumSet.of(DISPONIVEL_INVALIDO));
+        TRANSICOES_LOCAL.put(DISPONIVEL_INVALIDO, EnumSet.of(INDISPONIVEL));
+
+        // Um arquivo enviado não volta a ser enviado
+        TRANSICOES_ENVIO.put(NAO_ENVIADO, EnumSet.of(ENVIANDO, ENVIADO, ERRO_ENVIO));
+        TRANSICOES_ENVIO.put(ERRO_ENVIO, EnumSet.of(ENVIANDO, ENVIADO));
+        TRANSICOES_ENVIO.put(ENVIANDO, EnumSet.of(ENVIADO, ERRO_ENVIO, NAO_ENVIADO));
+        TRANSICOES_ENVIO.put(ENVIADO, EnumSet.noneOf(FileStatusEnvio.class));
+    }
+
+    private TransicoesArquivo() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Se o status FTP não admite nenhuma transição, como um arquivo deletado
+     */
+    public static boolean terminal(FileStatusRemoto status) {
+        return TRANSICOES_FTP.get(status).isEmpty();
+    }
+
+    public static boolean permitida(FileStatusRemoto de, FileStatusRemoto para) {
+        return de == para || TRANSICOES_FTP.get(de).contains(para);
+    }
+
+    public static boolean permitida(FileStatusLocal de, FileStatusLocal para) {
+        return de == para || TRANSICOES_LOCAL.get(de).contains(para);
+    }
+
+    public static boolean permitida(FileStatusEnvio de, FileStatusEnvio para) {
+        return de == para || TRANSICOES_ENVIO.get(de).contains(para);
+    }
+}
@@ -10,4 +10,6 @@ public class Caminhos {
     public static final String SUFIXO_ARQUIVO_ENVIADO = "ENVIADO";
 
     public static final String CAMINHO_ENVIO_CONNECT= "C:\\connect\\enviados";
+    public static final String DIRETORIO_CACHE = "C:\\connect\\cache";
+    public static final String DIRETORIO_CATALOGO = "C:\\connect\\catalogo";
 }
@@ -2,5 +2,6 @@ package com.hemelo.connect.constants;
 
 public class Sizes {
 
+    public static final long UM_MEGABYTE = (long) 1024 * 1024; // 1 MB
     public static final long UM_GIGABYTE = (long) 1024 * 1024 * 1024; // 1 GB
 }
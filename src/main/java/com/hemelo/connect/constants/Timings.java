@@ -21,6 +21,9 @@ public class Timings {
     // Intervalo responsável por controlar a frequência de verificação de arquivos no FTP
     public static final Duration INTERVALO_PESQUISA_ARQUIVOS = Duration.ofMinutes(Main.isProductionEnvironment ? 20 : 1);
 
+    // Intervalo entre as varreduras completas do FTP. Nas demais varreduras somente os diretórios alterados são listados novamente
+    public static final Duration INTERVALO_VARREDURA_COMPLETA_FTP = Duration.ofHours(1);
+
     // Intervalo responsável por controlar a frequência de verificação de arquivos no FTP antes de uma nova tentativa durante o download de arquivos
     // Esse intervalo é utilizado quando tem algum arquivo em transferência e o sistema tá executando a funcionalidade de baixar arquivos
     // A fim de não interromper o download, o programa espera o arquivo ser enviado para o FTP completamente antes de tentar baixar novamente
@@ -47,6 +50,19 @@ public class Timings {
     // Define o tempo limite para download de arquivos
     public static final Duration TEMPO_LIMITE_DOWNLOAD = Duration.ofMinutes(5);
 
+    // Define o tempo máximo sem receber bytes a partir do qual um download é considerado travado e abortado
+    public static final Duration TEMPO_LIMITE_SEM_PROGRESSO_DOWNLOAD = Duration.ofMinutes(1);
+
+    // Define o intervalo entre os relatórios de progresso de cada download
+    public static final Duration INTERVALO_PROGRESSO_DOWNLOAD = TEMPO_LIMITE_DOWNLOAD.dividedBy(5);
+
+    // Define o tempo máximo de espera por uma sessão livre no pool de conexões com o FTP
+    // Uma sessão pode ficar presa durante um download inteiro, portanto o tempo de espera acompanha o tempo limite de download
+    public static final Duration TEMPO_LIMITE_AGUARDAR_SESSAO_FTP = TEMPO_LIMITE_DOWNLOAD.plusMinutes(1);
+
+    // Define o tempo de ociosidade a partir do qual uma sessão do FTP é validada via NOOP antes de ser reutilizada
+    public static final Duration INTERVALO_VALIDACAO_SESSAO_FTP = Duration.ofSeconds(30);
+
     // Define o tempo limite para upload de arquivos
     public static final Duration WAIT_FOR_HOURLY_SYNC = Duration.ofMinutes(10);
 
@@ -67,4 +83,7 @@ public class Timings {
 
     // Define o tempo limite para conexão com o banco de dados para validar status
     public static final long TEMPO_LIMITE_CONEXAO_STATUS_DB = Duration.ofSeconds(30).toMillis();
+
+    // Define o tempo limite de espera por uma sessão do FTP para validar status
+    public static final Duration TEMPO_LIMITE_CONEXAO_STATUS_FTP = Duration.ofSeconds(30);
 }
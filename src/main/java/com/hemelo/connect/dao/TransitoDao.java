@@ -10,9 +10,15 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.util.*;
 
 public final class TransitoDao {
 
+    private static final int TAMANHO_LOTE_CONSULTA = 500;
+
+    // As duas consultas utilizam a mesma ordem, para que um arquivo com linhas duplicadas seja validado sempre com o mesmo hash
+    private static final String ORDEM_CONSULTA_HASHES = " ORDER BY nomeArquivo, hash";
+
     private Datasource datasource;
 
     private static final Logger logger = LoggerFactory.getLogger(TransitoDao.class);
@@ -35,9 +41,11 @@ public final class TransitoDao {
             stmt.setString(1, fileWrapper.getNomeArquivo());
             ResultSet rs = stmt.executeQuery();
 
-            if (rs.next()) {
+            // O nome é comparado exatamente, sem depender da collation do banco, assim como na busca em lote
+            while (rs.next()) {
+
+                if (!fileWrapper.getNomeArquivo().equals(rs.getString("nomeArquivo"))) continue;
 
-                String status = rs.getString("status");
                 String hash = rs.getString("hash");
 
                 fileWrapper.setHashDatabase(hash);
@@ -56,13 +64,61 @@ public final class TransitoDao {
         }
     }
 
+    /**
+     * Busca os hashes de vários arquivos no banco de dados utilizando uma única conexão
+     * As consultas são feitas em lotes de até {@link #TAMANHO_LOTE_CONSULTA} arquivos para não exceder o limite de parâmetros
+     * @param nomesArquivos Nomes dos arquivos
+     * @return Hash de cada arquivo encontrado, indexado pelo nome do arquivo. Arquivos não encontrados não constam no mapa
+     * @throws SQLException Em caso de erro na consulta
+     */
+    public Map<String, String> buscarHashes(Collection<String> nomesArquivos) throws SQLException {
+
+        // Os nomes são comparados exatamente, pois a collation da tabela pode não diferenciar maiúsculas e minúsculas
+        Map<String, String> hashes = new HashMap<>();
+        List<String> nomes = new ArrayList<>(new LinkedHashSet<>(nomesArquivos));
+
+        if (nomes.isEmpty()) return hashes;
+
+        try (Connection conn = datasource.getConnection()) {
+
+            for (int inicio = 0; inicio < nomes.size(); inicio += TAMANHO_LOTE_CONSULTA) {
+
+                List<String> lote = nomes.subList(inicio, Math.min(inicio + TAMANHO_LOTE_CONSULTA, nomes.size()));
+
+                try (PreparedStatement stmt = conn.prepareStatement(getQueryConsultaHashesArquivosFtp(lote.size()))) {
+
+                    for (int i = 0; i < lote.size(); i++) {
+                        stmt.setString(i + 1, lote.get(i));
+                    }
+
+                    try (ResultSet rs = stmt.executeQuery()) {
+                        // Com nomes duplicados vale a primeira linha, na mesma ordem da busca individual
+                        while (rs.next()) {
+                            hashes.putIfAbsent(rs.getString("nomeArquivo"), rs.getString("hash"));
+                        }
+                    }
+                }
+            }
+
+            logger.trace(String.format("%d de %d arquivos encontrados no logsistema.transito", hashes.size(), nomes.size()));
+            return hashes;
+        } catch (SQLException ex) {
+            logger.error("Erro ao buscar hashes dos arquivos no sistema", ex);
+            throw ex;
+        }
+    }
+
     public void atualizaStatusArquivo(FileWrapper fileWrapper, FileStatusDatabase fileStatusDatabase) {
 
     }
 
     //------------------------------------------------------------------------------------------------------------------
 
+    private String getQueryConsultaHashesArquivosFtp(int quantidade) {
+        return "SELECT nomeArquivo, hash FROM logsistema.transitoArquivos WHERE nomeArquivo IN (" + String.join(",", Collections.nCopies(quantidade, "?")) + ")" + ORDEM_CONSULTA_HASHES;
+    }
+
     private String getQueryConsultaArquivoFtp() {
-        return "SELECT * FROM logsistema.transitoArquivos WHERE nomeArquivo = ?";
+        return "SELECT nomeArquivo, hash FROM logsistema.transitoArquivos WHERE nomeArquivo = ?" + ORDEM_CONSULTA_HASHES;
     }
 }
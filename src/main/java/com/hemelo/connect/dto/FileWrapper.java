@@ -1,12 +1,17 @@
 package com.hemelo.connect.dto;
 
+import com.hemelo.connect.catalogo.EstadoArquivo;
+import com.hemelo.connect.catalogo.OuvinteTransicao;
+import com.hemelo.connect.catalogo.TransicoesArquivo;
 import com.hemelo.connect.constants.Dates;
+import com.hemelo.connect.enums.AlgoritmoHash;
 import com.hemelo.connect.enums.FileStatusDatabase;
 import com.hemelo.connect.enums.FileStatusEnvio;
 import com.hemelo.connect.enums.FileStatusLocal;
 import com.hemelo.connect.enums.FileStatusRemoto;
 import com.hemelo.connect.exception.HashAlteradoException;
-import com.hemelo.connect.utils.FileUtils;
+import com.hemelo.connect.infra.HashCache;
+import com.hemelo.connect.utils.HashUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.net.ftp.FTPFile;
 import org.slf4j.Logger;
@@ -15,8 +20,15 @@ import org.slf4j.LoggerFactory;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Classe que encapsula um arquivo, com informações sobre o arquivo e seu status
@@ -26,83 +38,353 @@ public class FileWrapper {
 
     private static final Logger logger = LoggerFactory.getLogger(FileWrapper.class);
 
-    private String parent;
+    // Um evento por transição de estado, em formato chave=valor, para análise externa. Desligado por padrão em log4j2.properties
+    private static final Logger loggerTransicoes = LoggerFactory.getLogger("com.hemelo.connect.transicoes");
+
+    // Valor das datas ainda não definidas
+    private static final long SEM_DATA = -1;
 
-    private Instant ftpLatestUpdate, dbLatestUpdate, downloadLatestUpdate, envioLatestUpdate, enviadoAt, downloadedAt, findedAt;
+    // Retornado por uma transição de estado que não é permitida. O estado compactado nunca é negativo
+    private static final int TRANSICAO_INVALIDA = -1;
 
+    private static final AtomicLongFieldUpdater<FileWrapper> ESTADO = AtomicLongFieldUpdater.newUpdater(FileWrapper.class, "estado");
+
+    // Os nomes de diretórios e usuários se repetem entre milhares de arquivos e são mantidos internalizados
+    private String parent;
     private String ftpCaminhoBase;
     private String localCaminhoBase;
     private String envioCaminhoBase;
 
-    private FTPFile ftpFile;
+    // Somente os dados utilizados do arquivo no FTP são mantidos, e não o FTPFile inteiro
+    private final String nome;
+    private long tamanho;
+    private long ftpModificadoEm = SEM_DATA;
+    private boolean ftpModificadoSegundos;
+    private String ftpUsuario;
+    private String ftpIdUnico;
+
+    // Datas em milissegundos desde a época
+    private long ftpLatestUpdate, dbLatestUpdate = SEM_DATA, downloadLatestUpdate = SEM_DATA, envioLatestUpdate = SEM_DATA, enviadoAt = SEM_DATA, downloadedAt = SEM_DATA, findedAt;
 
     private FileStatusDatabase statusDatabase;
-    private FileStatusRemoto statusFtp;
-    private FileStatusLocal statusLocal;
-    private FileStatusEnvio statusEnvio;
 
-    private Boolean isCredenciado = false;
+    // Bits 0-31: status do FTP, local, de envio e resultado da comparação do hash, ver EstadoArquivo. Bits 32-63: versão, incrementada a cada transição
+    // Alterado somente por compareAndSet, sem adquirir o monitor do arquivo
+    private volatile long estado;
+
+    // Notificado a cada mudança de status, mantém os índices do catálogo atualizados
+    // O ouvinte e o último estado entregue a ele são protegidos pelo monitor do arquivo
+    private OuvinteTransicao ouvinteTransicao;
+    private int estadoNotificado;
+
+    private boolean isCredenciado = false;
 
-    private String hash, hashDatabase;
+    // Hashes do arquivo local em binário: 20 bytes para SHA-1 e 32 bytes para SHA-256
+    private byte[] hash, hashSha256;
+
+    private String hashDatabase;
+
+    // Tamanho e data de modificação do arquivo local quando o hash foi calculado, utilizados para saber se o hash ainda é válido
+    private long hashTamanho = -1, hashModificadoEm = -1;
 
     private String adicional;
 
     public FileWrapper(FTPFile ftpFile) {
-        this.findedAt = Instant.now();
-        this.ftpLatestUpdate = Instant.now();
-        this.ftpFile = ftpFile;
-        this.statusFtp = FileStatusRemoto.NECESSARIO_VERIFICACAO;
-        this.statusLocal = FileStatusLocal.INDISPONIVEL;
-        this.statusEnvio = FileStatusEnvio.NAO_ENVIADO;
+        this(MetadadosArquivoFtp.de(ftpFile));
+    }
+
+    public FileWrapper(MetadadosArquivoFtp metadados) {
+        this.nome = metadados.nome();
+        this.findedAt = System.currentTimeMillis();
+        this.estado = EstadoArquivo.compactar(FileStatusRemoto.NECESSARIO_VERIFICACAO, FileStatusLocal.INDISPONIVEL, FileStatusEnvio.NAO_ENVIADO, false);
+        setMetadadosFtp(metadados);
+    }
+
+    private FileWrapper(String nome) {
+        this.nome = nome;
     }
 
     @Override
     public boolean equals(Object object) {
-        if (object instanceof FTPFile _ftpFile) {
-            return this.ftpFile.getName().equals(_ftpFile.getName());
-        }
-
         if (object instanceof FileWrapper _FileWrapper) {
-            return this.ftpFile.getName().equals(_FileWrapper.getFtpFile().getName()) && this.ftpCaminhoBase.equals(_FileWrapper.getFtpCaminhoBase());
+            return this.nome.equals(_FileWrapper.nome) && Objects.equals(this.ftpCaminhoBase, _FileWrapper.getFtpCaminhoBase());
         }
 
         return false;
     }
 
-    // Getters e Setters
+    @Override
+    public int hashCode() {
+        return Objects.hash(ftpCaminhoBase, nome);
+    }
+
+    /**
+     * Estado atual do arquivo compactado, ver {@link EstadoArquivo}
+     */
+    public int getEstado() {
+        return (int) estado;
+    }
+
+    /**
+     * Versão do estado, incrementada a cada transição de status
+     */
+    public int getVersao() {
+        return (int) (estado >>> 32);
+    }
+
+    /**
+     * Passa a notificar o ouvinte a cada transição
+     * @return estado a partir do qual o ouvinte será notificado
+     */
+    public synchronized int registrarOuvinteTransicao(OuvinteTransicao ouvinteTransicao) {
+        this.ouvinteTransicao = ouvinteTransicao;
+        this.estadoNotificado = getEstado();
+        return estadoNotificado;
+    }
+
+    /**
+     * Deixa de notificar o ouvinte
+     * @return último estado entregue ao ouvinte
+     */
+    public synchronized int removerOuvinteTransicao() {
+        this.ouvinteTransicao = null;
+        return estadoNotificado;
+    }
 
-    public FTPFile getFtpFile() {
-        return ftpFile;
+    /**
+     * Reserva o arquivo para download, passando de {@link FileStatusLocal#INDISPONIVEL} para {@link FileStatusLocal#BAIXANDO}
+     * Se várias threads tentarem reservar o mesmo arquivo, somente uma consegue
+     * @return true se o arquivo foi reservado
+     */
+    public boolean reservarParaDownload() {
+
+        if (transicionar(e -> EstadoArquivo.getStatusLocal(e) == FileStatusLocal.INDISPONIVEL ? EstadoArquivo.comStatusLocal(e, FileStatusLocal.BAIXANDO) : TRANSICAO_INVALIDA) == TRANSICAO_INVALIDA) {
+            return false;
+        }
+
+        notificarTransicao();
+        return true;
     }
 
+    /**
+     * Libera a reserva de download, caso o download não tenha concluído nem falhado
+     */
+    public void liberarReservaDownload() {
+        if (transicionar(e -> EstadoArquivo.getStatusLocal(e) == FileStatusLocal.BAIXANDO ? EstadoArquivo.comStatusLocal(e, FileStatusLocal.INDISPONIVEL) : TRANSICAO_INVALIDA) != TRANSICAO_INVALIDA) {
+            notificarTransicao();
+        }
+    }
+
+    /**
+     * Reserva o arquivo para envio, passando para {@link FileStatusEnvio#ENVIANDO}
+     * Somente um arquivo disponível e ainda não enviado pode ser reservado, e somente por uma thread
+     * @return true se o arquivo foi reservado
+     */
+    public boolean reservarParaEnvio() {
+
+        IntUnaryOperator reserva = e -> {
+            FileStatusEnvio statusEnvio = EstadoArquivo.getStatusEnvio(e);
+
+            if (EstadoArquivo.getStatusLocal(e) != FileStatusLocal.DISPONIVEL || (statusEnvio != FileStatusEnvio.NAO_ENVIADO && statusEnvio != FileStatusEnvio.ERRO_ENVIO)) {
+                return TRANSICAO_INVALIDA;
+            }
+
+            return EstadoArquivo.comStatusEnvio(e, FileStatusEnvio.ENVIANDO);
+        };
+
+        if (transicionar(reserva) == TRANSICAO_INVALIDA) {
+            return false;
+        }
+
+        notificarTransicao();
+        return true;
+    }
+
+    /**
+     * Libera a reserva de envio, caso o envio não tenha concluído nem falhado
+     */
+    public void liberarReservaEnvio() {
+        if (transicionar(e -> EstadoArquivo.getStatusEnvio(e) == FileStatusEnvio.ENVIANDO ? EstadoArquivo.comStatusEnvio(e, FileStatusEnvio.NAO_ENVIADO) : TRANSICAO_INVALIDA) != TRANSICAO_INVALIDA) {
+            notificarTransicao();
+        }
+    }
+
+    /**
+     * Aplica uma transição ao estado com compareAndSet, repetindo enquanto outra thread alterar o estado no meio tempo
+     * Cada transição efetiva incrementa a versão
+     * @param transicao calcula o próximo estado a partir do atual, ou retorna {@link #TRANSICAO_INVALIDA}
+     * @return estado anterior, ou {@link #TRANSICAO_INVALIDA} se a transição não é permitida a partir do estado atual
+     */
+    private int transicionar(IntUnaryOperator transicao) {
+
+        long atual, proximo;
+        int anterior, novo;
+
+        do {
+            atual = estado;
+            anterior = (int) atual;
+            novo = transicao.applyAsInt(anterior);
+
+            if (novo == TRANSICAO_INVALIDA) return TRANSICAO_INVALIDA;
+            if (novo == anterior) return anterior;
+
+            proximo = ((atual >>> 32) + 1) << 32 | novo;
+        } while (!ESTADO.compareAndSet(this, atual, proximo));
+
+        // Os argumentos só são montados se o evento estiver habilitado
+        if (loggerTransicoes.isInfoEnabled()) {
+            loggerTransicoes.info("arquivo={} de={} para={} versao={} em={}", getFtpCaminhoCompleto(), EstadoArquivo.descrever(anterior), EstadoArquivo.descrever(novo), proximo >>> 32, System.currentTimeMillis());
+        }
+
+        return anterior;
+    }
+
+    /**
+     * Entrega ao ouvinte a diferença entre o último estado notificado e o estado atual
+     * Transições concorrentes podem ser agrupadas em uma única notificação, mas o ouvinte nunca recebe um estado mais antigo que o anterior
+     */
+    private synchronized void notificarTransicao() {
+        int estadoAtual = getEstado();
+
+        if (ouvinteTransicao != null && estadoNotificado != estadoAtual) {
+            ouvinteTransicao.aoTransicionar(this, estadoNotificado, estadoAtual);
+        }
+
+        estadoNotificado = estadoAtual;
+    }
+
+    /**
+     * Registro com o estado atual do arquivo, para ser persistido pelo journal do catálogo
+     * @param sequencia ordem do registro
+     */
+    public synchronized RegistroArquivo toRegistro(long sequencia) {
+        return new RegistroArquivo(sequencia, false, ftpCaminhoBase, nome, parent, tamanho, ftpModificadoEm,
+                localCaminhoBase, envioCaminhoBase, getEstado(), statusDatabase != null ? statusDatabase.name() : null, isCredenciado,
+                getHashHex(), getHashSha256(), hashDatabase, findedAt, downloadedAt, enviadoAt);
+    }
+
+    /**
+     * Reconstrói um arquivo a partir de um registro persistido pelo journal do catálogo
+     * @param registro registro
+     * @return arquivo com o estado do registro
+     */
+    public static FileWrapper fromRegistro(RegistroArquivo registro) {
+
+        FileWrapper arquivo = new FileWrapper(registro.nome());
+        arquivo.tamanho = registro.tamanho();
+        arquivo.ftpModificadoEm = registro.ftpModificadoEm();
+        arquivo.ftpLatestUpdate = System.currentTimeMillis();
+        arquivo.findedAt = registro.encontradoEm();
+        arquivo.ftpCaminhoBase = internalizar(registro.ftpCaminhoBase());
+        arquivo.parent = internalizar(registro.parent());
+        arquivo.localCaminhoBase = internalizar(registro.localCaminhoBase());
+        arquivo.envioCaminhoBase = internalizar(registro.envioCaminhoBase());
+        arquivo.estado = liberarReservas(registro.estado());
+        arquivo.statusDatabase = registro.statusDatabase() != null ? FileStatusDatabase.valueOf(registro.statusDatabase()) : null;
+        arquivo.isCredenciado = registro.credenciado();
+        arquivo.hash = registro.hash() != null ? HashUtils.fromHex(registro.hash()) : null;
+        arquivo.hashSha256 = registro.hashSha256() != null ? HashUtils.fromHex(registro.hashSha256()) : null;
+        arquivo.hashDatabase = registro.hashDatabase();
+        arquivo.downloadedAt = registro.baixadoEm();
+        arquivo.enviadoAt = registro.enviadoEm();
+        return arquivo;
+    }
+
+    // Getters e Setters
+
+    /**
+     * Atualiza os dados do arquivo com uma nova listagem do FTP
+     * @param ftpFile arquivo listado no FTP
+     */
     public void setFtpFile(FTPFile ftpFile) {
-        this.ftpFile = ftpFile;
-        this.ftpLatestUpdate = Instant.now();
+        setMetadadosFtp(MetadadosArquivoFtp.de(ftpFile));
+    }
+
+    /**
+     * Atualiza os dados do arquivo com uma nova listagem do FTP
+     * @param metadados metadados do arquivo listado no FTP
+     */
+    public void setMetadadosFtp(MetadadosArquivoFtp metadados) {
+        this.tamanho = metadados.tamanho();
+        this.ftpModificadoEm = metadados.modificadoEm();
+        this.ftpModificadoSegundos = metadados.precisaoSegundos();
+        this.ftpUsuario = internalizar(metadados.usuario());
+        this.ftpIdUnico = metadados.idUnico();
+        this.ftpLatestUpdate = System.currentTimeMillis();
+    }
+
+    /**
+     * Verifica se o arquivo mudou no FTP desde a listagem anterior, indicando que ainda está em transferência ou foi substituído
+     * A data de modificação só é comparada quando as duas listagens a informam com segundos, pois a data do LIST muda de formato com a idade do arquivo
+     * @param metadados metadados da nova listagem
+     * @return true se o identificador único, o tamanho ou a data de modificação mudaram
+     */
+    public boolean isAlteradoNoFtp(MetadadosArquivoFtp metadados) {
+
+        if (ftpIdUnico != null && metadados.idUnico() != null && !ftpIdUnico.equals(metadados.idUnico())) return true;
+
+        if (tamanho != metadados.tamanho()) return true;
+
+        return ftpModificadoSegundos && metadados.precisaoSegundos() && ftpModificadoEm != metadados.modificadoEm();
+    }
+
+    /**
+     * Registra que o arquivo continua no FTP sem alterações, quando o seu diretório não foi listado novamente
+     */
+    public void confirmarFtp() {
+        this.ftpLatestUpdate = System.currentTimeMillis();
+    }
+
+    public long getTamanho() {
+        return tamanho;
+    }
+
+    /**
+     * Data de modificação do arquivo no FTP, nula se o servidor não informou
+     */
+    public Instant getFtpModificadoEm() {
+        return instante(ftpModificadoEm);
+    }
+
+    public String getFtpUsuario() {
+        return ftpUsuario;
     }
 
     public FileStatusRemoto getStatusFtp() {
-        return statusFtp;
+        return EstadoArquivo.getStatusFtp(getEstado());
     }
 
-    public void setStatusFtp(FileStatusRemoto statusFtp) {
+    /**
+     * Altera o status do arquivo no FTP, se a transição for permitida por {@link TransicoesArquivo}
+     * @return false se a transição não é permitida a partir do status atual
+     */
+    public boolean setStatusFtp(FileStatusRemoto statusFtp) {
 
-        if (this.statusFtp != statusFtp)
-            logger.debug("Status FTP do arquivo " + getNomeArquivo() + " alterado de \"" + this.statusFtp + "\" para \"" + statusFtp + "\"");
+        int estadoAnterior = transicionar(e -> TransicoesArquivo.permitida(EstadoArquivo.getStatusFtp(e), statusFtp) ? EstadoArquivo.comStatusFtp(e, statusFtp) : TRANSICAO_INVALIDA);
 
-        this.statusFtp = statusFtp;
+        if (estadoAnterior == TRANSICAO_INVALIDA) {
+            logger.warn("Transição do status FTP do arquivo {} de \"{}\" para \"{}\" não permitida", nome, getStatusFtp(), statusFtp);
+            return false;
+        }
 
-        if (statusFtp != FileStatusRemoto.REFERENCIA_PERDIDA && statusFtp != FileStatusRemoto.DELETADO) {
+        long agora = System.currentTimeMillis();
+        boolean atualizaData = statusFtp != FileStatusRemoto.REFERENCIA_PERDIDA && statusFtp != FileStatusRemoto.DELETADO;
 
-            if (this.ftpLatestUpdate == null) {
-                logger.debug("Atualizando data de última verificação do arquivo " + getNomeArquivo() + " no FTP para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
+        if (logger.isDebugEnabled()) {
 
-            } else {
-                logger.debug("Atualizando data de última verificação do arquivo " + getNomeArquivo() + " no FTP de " + LocalDateTime.ofInstant(this.ftpLatestUpdate, Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER) + " para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
-            }
+            if (EstadoArquivo.getStatusFtp(estadoAnterior) != statusFtp)
+                logger.debug("Status FTP do arquivo {} alterado de \"{}\" para \"{}\"", nome, EstadoArquivo.getStatusFtp(estadoAnterior), statusFtp);
 
-            this.ftpLatestUpdate = Instant.now();
+            if (atualizaData)
+                logger.debug("Atualizando data de última verificação do arquivo {} no FTP de {} para {}", nome, formatar(this.ftpLatestUpdate), formatar(agora));
         }
 
+        if (atualizaData) {
+            this.ftpLatestUpdate = agora;
+        }
+
+        notificarTransicao();
+        return true;
     }
 
     public String getFtpCaminhoBase() {
@@ -110,15 +392,15 @@ public class FileWrapper {
     }
 
     public void setFtpCaminhoBase(String ftpCaminhoBase) {
-        this.ftpCaminhoBase = ftpCaminhoBase;
+        this.ftpCaminhoBase = internalizar(ftpCaminhoBase);
     }
 
     public Instant getFtpLatestUpdate() {
-        return ftpLatestUpdate;
+        return instante(ftpLatestUpdate);
     }
 
     public Instant getFindedAt() {
-        return findedAt;
+        return instante(findedAt);
     }
 
     public boolean isCredenciado() {
@@ -130,46 +412,69 @@ public class FileWrapper {
     }
 
     public FileStatusLocal getStatusLocal() {
-        return statusLocal;
+        return EstadoArquivo.getStatusLocal(getEstado());
     }
 
-    public void setStatusLocal(FileStatusLocal statusLocal) {
-
-        if (this.statusLocal != statusLocal)
-            logger.debug("Status local do arquivo " + getNomeArquivo() + " alterado de \"" + this.statusLocal + "\"  para \"" + statusLocal + "\"");
-
-        this.statusLocal = statusLocal;
+    /**
+     * Altera o status do arquivo na máquina local, se a transição for permitida por {@link TransicoesArquivo}
+     * @return false se a transição não é permitida a partir do status atual
+     */
+    public boolean setStatusLocal(FileStatusLocal statusLocal) {
 
-        if (this.downloadLatestUpdate == null) {
-            logger.debug("Atualizando data de última verificação do arquivo " + getNomeArquivo() + " na máquina local para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
+        int estadoAnterior = transicionar(e -> TransicoesArquivo.permitida(EstadoArquivo.getStatusLocal(e), statusLocal) ? EstadoArquivo.comStatusLocal(e, statusLocal) : TRANSICAO_INVALIDA);
 
-        } else {
-            logger.debug("Atualizando data de última atualização do arquivo " + getNomeArquivo() + " na máquina local de " + LocalDateTime.ofInstant(this.downloadLatestUpdate, Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER) + " para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
+        if (estadoAnterior == TRANSICAO_INVALIDA) {
+            logger.warn("Transição do status local do arquivo {} de \"{}\" para \"{}\" não permitida", nome, getStatusLocal(), statusLocal);
+            return false;
         }
 
-        this.downloadLatestUpdate = Instant.now();
+        long agora = System.currentTimeMillis();
 
-        if (statusLocal == FileStatusLocal.DISPONIVEL) {
+        if (logger.isDebugEnabled()) {
 
-            if (this.downloadedAt == null) {
-                logger.debug("Atualizando data de download do arquivo " + getNomeArquivo() + " para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
+            if (EstadoArquivo.getStatusLocal(estadoAnterior) != statusLocal)
+                logger.debug("Status local do arquivo {} alterado de \"{}\" para \"{}\"", nome, EstadoArquivo.getStatusLocal(estadoAnterior), statusLocal);
 
+            if (this.downloadLatestUpdate == SEM_DATA) {
+                logger.debug("Atualizando data de última verificação do arquivo {} na máquina local para {}", nome, formatar(agora));
             } else {
-                logger.debug("Atualizando data de download do arquivo " + getNomeArquivo() + " de " + LocalDateTime.ofInstant(this.downloadedAt, Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER) + " para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
+                logger.debug("Atualizando data de última atualização do arquivo {} na máquina local de {} para {}", nome, formatar(this.downloadLatestUpdate), formatar(agora));
             }
 
-            this.downloadedAt = Instant.now();
+            if (statusLocal == FileStatusLocal.DISPONIVEL) {
+                if (this.downloadedAt == SEM_DATA) {
+                    logger.debug("Atualizando data de download do arquivo {} para {}", nome, formatar(agora));
+                } else {
+                    logger.debug("Atualizando data de download do arquivo {} de {} para {}", nome, formatar(this.downloadedAt), formatar(agora));
+                }
+            }
         }
+
+        this.downloadLatestUpdate = agora;
+
+        if (statusLocal == FileStatusLocal.DISPONIVEL) {
+            this.downloadedAt = agora;
+        }
+
+        notificarTransicao();
+        return true;
     }
 
-    public void setStatusLocalSilent(FileStatusLocal statusLocal) {
+    public boolean setStatusLocalSilent(FileStatusLocal statusLocal) {
 
-        this.statusLocal = statusLocal;
-        this.downloadLatestUpdate = Instant.now();
+        if (transicionar(e -> TransicoesArquivo.permitida(EstadoArquivo.getStatusLocal(e), statusLocal) ? EstadoArquivo.comStatusLocal(e, statusLocal) : TRANSICAO_INVALIDA) == TRANSICAO_INVALIDA) {
+            return false;
+        }
+
+        long agora = System.currentTimeMillis();
+        this.downloadLatestUpdate = agora;
 
         if (statusLocal == FileStatusLocal.DISPONIVEL) {
-            this.downloadedAt = Instant.now();
+            this.downloadedAt = agora;
         }
+
+        notificarTransicao();
+        return true;
     }
 
     public String getLocalCaminhoBase() {
@@ -177,7 +482,7 @@ public class FileWrapper {
     }
 
     public void setLocalCaminhoBase(String localCaminhoBase) {
-        this.localCaminhoBase = localCaminhoBase;
+        this.localCaminhoBase = internalizar(localCaminhoBase);
     }
 
     public String getParent() {
@@ -185,53 +490,77 @@ public class FileWrapper {
     }
 
     public void setParent(String parent) {
-        this.parent = parent;
+        this.parent = internalizar(parent);
     }
 
     public FileStatusEnvio getStatusEnvio() {
-        return statusEnvio;
+        return EstadoArquivo.getStatusEnvio(getEstado());
     }
 
-    public void setStatusEnvio(FileStatusEnvio statusEnvio) {
-
-        if (this.statusEnvio != statusEnvio)
-            logger.debug("Status de envio do arquivo " + getNomeArquivo() + " alterado de \"" + this.statusEnvio + "\" para \"" + statusEnvio + "\"");
-
-        this.statusEnvio = statusEnvio;
+    /**
+     * Altera o status do envio do arquivo para o Connect, se a transição for permitida por {@link TransicoesArquivo}
+     * @return false se a transição não é permitida a partir do status atual
+     */
+    public boolean setStatusEnvio(FileStatusEnvio statusEnvio) {
 
-        if (this.envioLatestUpdate == null) {
-            logger.debug("Atualizando data de última atualização do envio do arquivo " + getNomeArquivo() + " para o connect para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
+        int estadoAnterior = transicionar(e -> TransicoesArquivo.permitida(EstadoArquivo.getStatusEnvio(e), statusEnvio) ? EstadoArquivo.comStatusEnvio(e, statusEnvio) : TRANSICAO_INVALIDA);
 
-        } else {
-            logger.debug("Atualizando data de última atualização do envio do arquivo " + getNomeArquivo() + " para o connect de " + LocalDateTime.ofInstant(this.envioLatestUpdate, Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER) + " para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
+        if (estadoAnterior == TRANSICAO_INVALIDA) {
+            logger.warn("Transição do status de envio do arquivo {} de \"{}\" para \"{}\" não permitida", nome, getStatusEnvio(), statusEnvio);
+            return false;
         }
 
-        this.envioLatestUpdate = Instant.now();
+        long agora = System.currentTimeMillis();
 
-        if (statusEnvio == FileStatusEnvio.ENVIADO) {
+        if (logger.isDebugEnabled()) {
 
-            if (this.enviadoAt == null) {
-                logger.debug("Atualizando data de envio do arquivo " + getNomeArquivo() + " para o connect para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
+            if (EstadoArquivo.getStatusEnvio(estadoAnterior) != statusEnvio)
+                logger.debug("Status de envio do arquivo {} alterado de \"{}\" para \"{}\"", nome, EstadoArquivo.getStatusEnvio(estadoAnterior), statusEnvio);
 
+            if (this.envioLatestUpdate == SEM_DATA) {
+                logger.debug("Atualizando data de última atualização do envio do arquivo {} para o connect para {}", nome, formatar(agora));
             } else {
-                logger.debug("Atualizando data de envio do arquivo " + getNomeArquivo() + " para o connect de " + LocalDateTime.ofInstant(this.enviadoAt, Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER) + " para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
+                logger.debug("Atualizando data de última atualização do envio do arquivo {} para o connect de {} para {}", nome, formatar(this.envioLatestUpdate), formatar(agora));
             }
 
-            this.enviadoAt = Instant.now();
+            if (statusEnvio == FileStatusEnvio.ENVIADO) {
+                if (this.enviadoAt == SEM_DATA) {
+                    logger.debug("Atualizando data de envio do arquivo {} para o connect para {}", nome, formatar(agora));
+                } else {
+                    logger.debug("Atualizando data de envio do arquivo {} para o connect de {} para {}", nome, formatar(this.enviadoAt), formatar(agora));
+                }
+            }
         }
+
+        this.envioLatestUpdate = agora;
+
+        if (statusEnvio == FileStatusEnvio.ENVIADO) {
+            this.enviadoAt = agora;
+        }
+
+        notificarTransicao();
+        return true;
     }
 
-    public void setStatusEnvioSilent(FileStatusEnvio statusEnvio) {
-        this.statusEnvio = statusEnvio;
-        this.envioLatestUpdate = Instant.now();
+    public boolean setStatusEnvioSilent(FileStatusEnvio statusEnvio) {
+
+        if (transicionar(e -> TransicoesArquivo.permitida(EstadoArquivo.getStatusEnvio(e), statusEnvio) ? EstadoArquivo.comStatusEnvio(e, statusEnvio) : TRANSICAO_INVALIDA) == TRANSICAO_INVALIDA) {
+            return false;
+        }
+
+        long agora = System.currentTimeMillis();
+        this.envioLatestUpdate = agora;
 
         if (statusEnvio == FileStatusEnvio.ENVIADO) {
-            this.enviadoAt = Instant.now();
+            this.enviadoAt = agora;
         }
+
+        notificarTransicao();
+        return true;
     }
 
     public String getNomeArquivo() {
-        return ftpFile.getName();
+        return nome;
     }
 
     public String getFtpCaminhoCompleto() {
@@ -247,23 +576,23 @@ public class FileWrapper {
     }
 
     public Instant getEnviadoAt() {
-        return enviadoAt;
+        return instante(enviadoAt);
     }
 
     public Instant getDownloadedAt() {
-        return downloadedAt;
+        return instante(downloadedAt);
     }
 
     public Instant getDownloadLatestUpdate() {
-        return downloadLatestUpdate;
+        return instante(downloadLatestUpdate);
     }
 
     public Instant getEnvioLatestUpdate() {
-        return envioLatestUpdate;
+        return instante(envioLatestUpdate);
     }
 
     public void setEnvioCaminhoBase(String envioCaminhoBase) {
-        this.envioCaminhoBase = envioCaminhoBase;
+        this.envioCaminhoBase = internalizar(envioCaminhoBase);
     }
 
     /**
@@ -276,39 +605,95 @@ public class FileWrapper {
 
         if (StringUtils.isBlank(getLocalCaminhoCompleto()) || !new File(getLocalCaminhoCompleto()).exists()) {
 
-            if (StringUtils.isNotBlank(hash)) {
-                return hash;
+            if (hash != null) {
+                return getHashHex();
             }
 
             throw new FileNotFoundException("Arquivo não encontrado: " + getLocalCaminhoCompleto());
         }
 
-        String newHash = FileUtils.calculateFileHash1(getLocalCaminhoCompleto());
+        // Se o arquivo não mudou desde que o hash foi calculado, não é necessário ler o arquivo novamente
+        if (hash != null && isHashValido()) {
+            return getHashHex();
+        }
 
-        if (StringUtils.isBlank(hash)) {
-            logger.debug("Calculando hash do arquivo " + getNomeArquivo() + " pela primeira vez");
-        } else {
+        byte[] newHash = HashUtils.fromHex(HashCache.getInstance().calcular(Path.of(getLocalCaminhoCompleto()), AlgoritmoHash.SHA1));
 
-            newHash = newHash.toUpperCase();
+        if (hash == null) {
+            logger.debug("Calculando hash do arquivo {} pela primeira vez", nome);
+        } else {
 
-            if (!newHash.equalsIgnoreCase(hash)) {
-                logger.warn("Hash do arquivo " + getNomeArquivo() + " alterado de " + hash + " para " + newHash);
+            if (!Arrays.equals(newHash, hash)) {
+                logger.warn("Hash do arquivo " + getNomeArquivo() + " alterado de " + getHashHex() + " para " + HashUtils.toHex(newHash));
 
-                throw new HashAlteradoException("Hash do arquivo " + getNomeArquivo() + " alterado de " + hash + " para " + newHash);
-            } else {
-                logger.debug("Atualizando hash do arquivo " + getNomeArquivo() + " de " + hash + " para " + newHash);
+                throw new HashAlteradoException("Hash do arquivo " + getNomeArquivo() + " alterado de " + getHashHex() + " para " + HashUtils.toHex(newHash));
+            } else if (logger.isDebugEnabled()) {
+                logger.debug("Atualizando hash do arquivo {} de {} para {}", nome, getHashHex(), HashUtils.toHex(newHash));
             }
         }
 
         hash = newHash;
-        return hash;
+        atualizarValidadeHash();
+        return getHashHex();
+    }
+
+    /**
+     * Registra o hash calculado enquanto o arquivo era baixado, evitando uma nova leitura do arquivo local
+     * Deve ser chamado após o arquivo local ser fechado
+     * @param sha1 hash SHA-1 do arquivo
+     * @param sha256 hash SHA-256 do arquivo, pode ser nulo
+     */
+    public void registrarHashDownload(byte[] sha1, byte[] sha256) {
+        this.hash = sha1;
+        this.hashSha256 = sha256;
+        atualizarValidadeHash();
+
+        HashCache.getInstance().registrar(Path.of(getLocalCaminhoCompleto()), AlgoritmoHash.SHA1, HashUtils.toHex(sha1));
+
+        if (sha256 != null) {
+            HashCache.getInstance().registrar(Path.of(getLocalCaminhoCompleto()), AlgoritmoHash.SHA256, HashUtils.toHex(sha256));
+        }
+    }
+
+    public String getHashSha256() {
+        return hashSha256 != null ? HashUtils.toHex(hashSha256) : null;
+    }
+
+    private String getHashHex() {
+        return hash != null ? HashUtils.toHex(hash) : null;
+    }
+
+    private boolean isHashValido() {
+        try {
+            BasicFileAttributes atributos = Files.readAttributes(Path.of(getLocalCaminhoCompleto()), BasicFileAttributes.class);
+            return atributos.size() == hashTamanho && atributos.lastModifiedTime().toMillis() == hashModificadoEm;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void atualizarValidadeHash() {
+        try {
+            BasicFileAttributes atributos = Files.readAttributes(Path.of(getLocalCaminhoCompleto()), BasicFileAttributes.class);
+            hashTamanho = atributos.size();
+            hashModificadoEm = atributos.lastModifiedTime().toMillis();
+        } catch (IOException e) {
+            hashTamanho = -1;
+            hashModificadoEm = -1;
+        }
     }
     
     public String getHashDatabase() {
         return hashDatabase;
     }
     
-    public void setHashDatabase(String hashDatabase) {
+    public synchronized void setHashDatabase(String hashDatabase) {
+
+        // Um novo hash no banco de dados invalida a comparação anterior
+        if (!StringUtils.equalsIgnoreCase(this.hashDatabase, hashDatabase)) {
+            setHashConfere(false);
+        }
+
         this.hashDatabase = hashDatabase;
     }
 
@@ -327,32 +712,51 @@ public class FileWrapper {
         try {
             hash = this.getHash();
         } catch (IOException | HashAlteradoException e) {
-            logger.error("Erro ao calcular hash do arquivo " + getNomeArquivo(), e);
+            logger.error("Erro ao calcular hash do arquivo {}", nome, e);
+            setHashConfere(false);
             return false;
         }
 
-        return hash.equalsIgnoreCase(this.getHashDatabase());
+        boolean confere = hash.equalsIgnoreCase(this.getHashDatabase());
+        setHashConfere(confere);
+        return confere;
+    }
+
+    /**
+     * Resultado da última chamada de {@link #comparaHashDatabase()}, sem calcular o hash novamente
+     */
+    public boolean isHashConfere() {
+        return EstadoArquivo.isHashConfere(getEstado());
+    }
+
+    private void setHashConfere(boolean hashConfere) {
+        transicionar(e -> EstadoArquivo.comHashConfere(e, hashConfere));
+        notificarTransicao();
     }
 
     public void setStatusDatabase(FileStatusDatabase statusDatabase) {
-        if (this.statusDatabase != statusDatabase)
-            logger.debug("Status de arquivo " + getNomeArquivo() + " no banco de dados alterado de \"" + this.statusEnvio + "\" para \"" + statusEnvio + "\"");
 
-        this.statusDatabase = statusDatabase;
+        long agora = System.currentTimeMillis();
 
-        if (this.dbLatestUpdate == null) {
-            logger.debug("Atualizando data de última atualização do status do arquivo " + getNomeArquivo() + " no banco de dados para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
+        if (logger.isDebugEnabled()) {
 
-        } else {
-            logger.debug("Atualizando data de última atualização do status do arquivo " + getNomeArquivo() + " no banco de dados de " + LocalDateTime.ofInstant(this.envioLatestUpdate, Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER) + " para " + LocalDateTime.ofInstant(Instant.now(), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER));
+            if (this.statusDatabase != statusDatabase)
+                logger.debug("Status de arquivo {} no banco de dados alterado de \"{}\" para \"{}\"", nome, this.statusDatabase, statusDatabase);
+
+            if (this.dbLatestUpdate == SEM_DATA) {
+                logger.debug("Atualizando data de última atualização do status do arquivo {} no banco de dados para {}", nome, formatar(agora));
+            } else {
+                logger.debug("Atualizando data de última atualização do status do arquivo {} no banco de dados de {} para {}", nome, formatar(this.dbLatestUpdate), formatar(agora));
+            }
         }
 
-        this.dbLatestUpdate = Instant.now();
+        this.statusDatabase = statusDatabase;
+        this.dbLatestUpdate = agora;
     }
 
     public void setStatusDatabaseSilent(FileStatusDatabase statusDatabase) {
         this.statusDatabase = statusDatabase;
-        this.dbLatestUpdate = Instant.now();
+        this.dbLatestUpdate = System.currentTimeMillis();
     }
 
     public FileStatusDatabase getStatusDatabase() {
@@ -360,7 +764,7 @@ public class FileWrapper {
     }
 
     public Instant getDbLatestUpdate() {
-        return dbLatestUpdate;
+        return instante(dbLatestUpdate);
     }
 
     public String getAdicional() {
@@ -370,4 +774,34 @@ public class FileWrapper {
     public void setAdicional(String adicional) {
         this.adicional = adicional;
     }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Reservas de download e de envio não sobrevivem a uma reinicialização, o arquivo volta a aguardar o download ou o envio
+     */
+    private static int liberarReservas(int estado) {
+
+        if (EstadoArquivo.getStatusLocal(estado) == FileStatusLocal.BAIXANDO) {
+            estado = EstadoArquivo.comStatusLocal(estado, FileStatusLocal.INDISPONIVEL);
+        }
+
+        if (EstadoArquivo.getStatusEnvio(estado) == FileStatusEnvio.ENVIANDO) {
+            estado = EstadoArquivo.comStatusEnvio(estado, FileStatusEnvio.NAO_ENVIADO);
+        }
+
+        return estado;
+    }
+
+    private static Instant instante(long millis) {
+        return millis == SEM_DATA ? null : Instant.ofEpochMilli(millis);
+    }
+
+    private static String formatar(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER);
+    }
+
+    private static String internalizar(String texto) {
+        return texto != null ? texto.intern() : null;
+    }
 }
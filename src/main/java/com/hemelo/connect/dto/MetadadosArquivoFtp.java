@@ -0,0 +1,65 @@
+package com.hemelo.connect.dto;
+
+import org.apache.commons.net.ftp.FTPFile;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Metadados de uma entrada listada no FTP
+ * <p>
+ * Nas listagens MLSD os dados vêm dos fatos da RFC 3659: data de modificação em UTC com segundos, identificador único e permissões
+ * Nas listagens LIST vêm da linha interpretada pelo Apache Commons Net, com a data em minutos (ou somente o dia, nos arquivos antigos)
+ * @param nome nome da entrada
+ * @param diretorio se a entrada é um diretório
+ * @param tamanho tamanho em bytes, -1 se desconhecido
+ * @param modificadoEm data de modificação em milissegundos desde a época, -1 se desconhecida
+ * @param precisaoSegundos se a data de modificação veio do fato modify, com segundos
+ * @param idUnico fato unique, que muda quando o arquivo é substituído, nulo se o servidor não informou
+ * @param permissoes fato perm (ex.: "adfrw"), nulo se o servidor não informou
+ * @param usuario dono do arquivo, nulo se o servidor não informou
+ */
+public record MetadadosArquivoFtp(String nome, boolean diretorio, long tamanho, long modificadoEm, boolean precisaoSegundos,
+                                  String idUnico, String permissoes, String usuario) {
+
+    public static final long SEM_DATA = -1;
+
+    /**
+     * Extrai os metadados de uma entrada listada por MLSD ou LIST
+     * @param file entrada interpretada pelo Apache Commons Net
+     * @return metadados da entrada
+     */
+    public static MetadadosArquivoFtp de(FTPFile file) {
+
+        // O Apache Commons Net interpreta tamanho, data e dono, mas descarta os fatos unique e perm, lidos da linha original
+        final Map<String, String> fatos = getFatos(file.getRawListing());
+        final long modificadoEm = file.getTimestamp() != null ? file.getTimestamp().getTimeInMillis() : SEM_DATA;
+
+        return new MetadadosArquivoFtp(file.getName(), file.isDirectory(), file.getSize(), modificadoEm,
+                modificadoEm != SEM_DATA && fatos.containsKey("modify"), fatos.get("unique"), fatos.get("perm"),
+                file.getUser() == null || file.getUser().isEmpty() ? null : file.getUser());
+    }
+
+    /**
+     * Fatos de uma linha do MLSD, no formato "fato=valor;fato=valor; nome"
+     * @return fatos pelo nome em minúsculas, vazio se a linha não for do MLSD
+     */
+    static Map<String, String> getFatos(String linha) {
+
+        if (linha == null) return Map.of();
+
+        final int espaco = linha.indexOf(' ');
+
+        if (espaco <= 0 || linha.charAt(espaco - 1) != ';' || linha.indexOf('=') > espaco || linha.indexOf('=') < 0) return Map.of();
+
+        final Map<String, String> fatos = new HashMap<>();
+
+        for (String fato : linha.substring(0, espaco).split(";")) {
+            final int igual = fato.indexOf('=');
+            if (igual > 0) fatos.put(fato.substring(0, igual).toLowerCase(Locale.ROOT), fato.substring(igual + 1));
+        }
+
+        return fatos;
+    }
+}
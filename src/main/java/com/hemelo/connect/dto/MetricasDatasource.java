@@ -0,0 +1,15 @@
+package com.hemelo.connect.dto;
+
+/**
+ * Métricas do pool de conexões com o banco de dados
+ * @param ativas conexões em uso
+ * @param ociosas conexões livres no pool
+ * @param total conexões abertas
+ * @param aguardando threads aguardando uma conexão livre do pool
+ * @param aquisicoes conexões entregues desde o início da aplicação
+ * @param tempoMedioEsperaMs tempo médio para obter uma conexão
+ * @param tempoMaximoEsperaMs maior tempo para obter uma conexão
+ * @param falhas tentativas de obter conexão que falharam
+ */
+public record MetricasDatasource(int ativas, int ociosas, int total, int aguardando, long aquisicoes, long tempoMedioEsperaMs, long tempoMaximoEsperaMs, long falhas) {
+}
@@ -0,0 +1,16 @@
+package com.hemelo.connect.dto;
+
+import com.hemelo.connect.enums.TipoTarefa;
+
+/**
+ * Métricas das tarefas assíncronas de um tipo
+ * @param tipo tipo das tarefas
+ * @param emExecucao tarefas em execução no momento
+ * @param picoEmExecucao maior quantidade de tarefas executando ao mesmo tempo
+ * @param naFila tarefas aguardando uma thread livre
+ * @param concluidas tarefas finalizadas desde o início da aplicação, com ou sem erro
+ * @param falhas tarefas finalizadas com exceção
+ * @param rejeitadas tarefas descartadas porque a fila estava cheia
+ */
+public record MetricasTarefas(TipoTarefa tipo, int emExecucao, int picoEmExecucao, int naFila, long concluidas, long falhas, long rejeitadas) {
+}
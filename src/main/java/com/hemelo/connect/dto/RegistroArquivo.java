@@ -0,0 +1,44 @@
+package com.hemelo.connect.dto;
+
+/**
+ * Registro persistido de um arquivo do catálogo
+ * Contém somente tipos simples para ser gravado como uma linha JSON no journal e no snapshot do catálogo
+ * @param sequencia ordem do registro, utilizada para descartar registros antigos ao reconstruir o catálogo
+ * @param removido indica que o arquivo foi removido do catálogo
+ * @param ftpCaminhoBase diretório do arquivo no FTP
+ * @param nome nome do arquivo
+ * @param parent diretório pai do arquivo
+ * @param tamanho tamanho do arquivo no FTP
+ * @param ftpModificadoEm data de modificação do arquivo no FTP em milissegundos, -1 se desconhecida
+ * @param localCaminhoBase diretório do arquivo na máquina local
+ * @param envioCaminhoBase diretório do arquivo no Connect
+ * @param estado estado compactado do arquivo, ver {@link com.hemelo.connect.catalogo.EstadoArquivo}
+ * @param statusDatabase nome do status no banco de dados, pode ser nulo
+ * @param credenciado se o arquivo é credenciado
+ * @param hash hash SHA-1 do arquivo local
+ * @param hashSha256 hash SHA-256 do arquivo local
+ * @param hashDatabase hash do arquivo no banco de dados
+ * @param encontradoEm data em que o arquivo foi encontrado no FTP em milissegundos
+ * @param baixadoEm data do download em milissegundos, -1 se não baixado
+ * @param enviadoEm data do envio ao Connect em milissegundos, -1 se não enviado
+ */
+public record RegistroArquivo(long sequencia, boolean removido, String ftpCaminhoBase, String nome, String parent, long tamanho, long ftpModificadoEm,
+                              String localCaminhoBase, String envioCaminhoBase, int estado, String statusDatabase, boolean credenciado,
+                              String hash, String hashSha256, String hashDatabase, long encontradoEm, long baixadoEm, long enviadoEm) {
+
+    /**
+     * Cópia do registro com outra sequência
+     */
+    public RegistroArquivo comSequencia(long sequencia) {
+        return new RegistroArquivo(sequencia, removido, ftpCaminhoBase, nome, parent, tamanho, ftpModificadoEm, localCaminhoBase, envioCaminhoBase, estado,
+                statusDatabase, credenciado, hash, hashSha256, hashDatabase, encontradoEm, baixadoEm, enviadoEm);
+    }
+
+    /**
+     * Cópia do registro marcada como removida
+     */
+    public RegistroArquivo comoRemovido() {
+        return new RegistroArquivo(sequencia, true, ftpCaminhoBase, nome, parent, tamanho, ftpModificadoEm, localCaminhoBase, envioCaminhoBase, estado,
+                statusDatabase, credenciado, hash, hashSha256, hashDatabase, encontradoEm, baixadoEm, enviadoEm);
+    }
+}
@@ -0,0 +1,16 @@
+package com.hemelo.connect.dto;
+
+/**
+ * Resultado do download de um arquivo do FTP
+ * @param arquivo arquivo processado
+ * @param situacao situação final do download
+ * @param detalhe linha de detalhes do arquivo para os logs de download
+ */
+public record ResultadoDownload(FileWrapper arquivo, Situacao situacao, String detalhe) {
+
+    public enum Situacao {
+        BAIXADO,
+        ERRO,
+        IGNORADO // Arquivo já havia sido enviado para o Connect e não deve constar nos logs
+    }
+}
@@ -0,0 +1,38 @@
+package com.hemelo.connect.enums;
+
+public enum AlgoritmoHash {
+    SHA1("SHA-1"),
+    SHA256("SHA-256"),
+    CRC32C("CRC32C");
+
+    private final String nome;
+
+    AlgoritmoHash(String nome) {
+        this.nome = nome;
+    }
+
+    /**
+     * Retorna o algoritmo pelo nome utilizado no MessageDigest (ex.: SHA-1)
+     * @param nome nome do algoritmo
+     * @return algoritmo
+     * @throws IllegalArgumentException se o algoritmo não for suportado
+     */
+    public static AlgoritmoHash fromNome(String nome) {
+        for (AlgoritmoHash algoritmo : values()) {
+            if (algoritmo.nome.equalsIgnoreCase(nome)) {
+                return algoritmo;
+            }
+        }
+
+        throw new IllegalArgumentException("Algoritmo de hash não suportado: " + nome);
+    }
+
+    public String getNome() {
+        return nome;
+    }
+
+    @Override
+    public String toString() {
+        return nome;
+    }
+}
@@ -0,0 +1,36 @@
+package com.hemelo.connect.enums;
+
+/**
+ * Estratégias de listagem da árvore de diretórios do FTP, da que utiliza menos comandos para a que utiliza mais
+ * Quando o servidor não suporta uma estratégia, a listagem passa para a seguinte
+ */
+public enum EstrategiaListagem {
+
+    // Um único LIST -R para a árvore inteira
+    LIST_RECURSIVO("LIST -R"),
+
+    // Um MLSD com caminho absoluto para cada diretório, sem mudanças de diretório
+    MLSD("MLSD"),
+
+    // Um LIST com caminho absoluto para cada diretório, suportado por qualquer servidor
+    LIST_POR_DIRETORIO("LIST por diretório");
+
+    private final String descricao;
+
+    EstrategiaListagem(String descricao) {
+        this.descricao = descricao;
+    }
+
+    /**
+     * Próxima estratégia a ser tentada quando o servidor não suporta esta
+     * @return próxima estratégia, nula se esta é a última
+     */
+    public EstrategiaListagem getAlternativa() {
+        return ordinal() + 1 < values().length ? values()[ordinal() + 1] : null;
+    }
+
+    @Override
+    public String toString() {
+        return descricao;
+    }
+}
@@ -3,7 +3,8 @@ package com.hemelo.connect.enums;
 public enum FileStatusEnvio {
     NAO_ENVIADO("Não Enviado"),
     ERRO_ENVIO("Erro no Envio"),
-    ENVIADO("Enviado");
+    ENVIADO("Enviado"),
+    ENVIANDO("Enviando");
 
     private final String status;
 
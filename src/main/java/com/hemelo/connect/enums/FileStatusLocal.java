@@ -3,7 +3,8 @@ package com.hemelo.connect.enums;
 public enum FileStatusLocal {
     DISPONIVEL("Disponível"),
     DISPONIVEL_INVALIDO("Disponível com erro"),
-    INDISPONIVEL("Indisponível");
+    INDISPONIVEL("Indisponível"),
+    BAIXANDO("Baixando");
 
     private final String status;
 
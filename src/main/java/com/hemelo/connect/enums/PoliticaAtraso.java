@@ -0,0 +1,24 @@
+package com.hemelo.connect.enums;
+
+/**
+ * Define o que um job faz com as execuções que deveriam ter ocorrido enquanto a execução anterior ainda estava em andamento
+ */
+public enum PoliticaAtraso {
+
+    // As execuções perdidas são descartadas e o job aguarda o próximo horário
+    PULAR("Pular execuções atrasadas"),
+
+    // As execuções perdidas são agrupadas em uma única execução imediata
+    AGRUPAR("Agrupar execuções atrasadas");
+
+    private final String descricao;
+
+    PoliticaAtraso(String descricao) {
+        this.descricao = descricao;
+    }
+
+    @Override
+    public String toString() {
+        return descricao;
+    }
+}
@@ -0,0 +1,46 @@
+package com.hemelo.connect.enums;
+
+/**
+ * Tipos de tarefas assíncronas executadas pelo {@link com.hemelo.connect.utils.ProcessaUtils}
+ * Cada tipo possui seu próprio pool de threads, com limite de threads e de tarefas aguardando na fila
+ */
+public enum TipoTarefa {
+
+    // Envio de e-mails. Os e-mails já são enviados um por vez pelo Mailer, portanto rajadas de alertas aguardam na fila
+    EMAIL("E-mail", 2, 1_000),
+
+    // Verificações de status do banco de dados. A espera pelos processos sincronizados, que pode travar em um deadlock, utiliza a sua própria thread
+    MONITORAMENTO("Monitoramento", 4, 50),
+
+    // Reset de dados e limpeza de logs
+    MANUTENCAO("Manutenção", 2, 20),
+
+    // Pesquisas de arquivos no FTP disparadas durante o download
+    PESQUISA("Pesquisa", 1, 10),
+
+    // Sessões adicionais da varredura de diretórios do FTP. Somente uma varredura acontece por vez
+    LISTAGEM("Listagem", 8, 8);
+
+    private final String descricao;
+    private final int limiteThreads;
+    private final int capacidadeFila;
+
+    TipoTarefa(String descricao, int limiteThreads, int capacidadeFila) {
+        this.descricao = descricao;
+        this.limiteThreads = limiteThreads;
+        this.capacidadeFila = capacidadeFila;
+    }
+
+    public int getLimiteThreads() {
+        return limiteThreads;
+    }
+
+    public int getCapacidadeFila() {
+        return capacidadeFila;
+    }
+
+    @Override
+    public String toString() {
+        return descricao;
+    }
+}
@@ -0,0 +1,331 @@
+package com.hemelo.connect.infra;
+
+import com.hemelo.connect.constants.Dates;
+import com.hemelo.connect.enums.PoliticaAtraso;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Executa os jobs periódicos da aplicação em um único pool de threads agendado
+ * <p>
+ * Cada job é reagendado somente ao final da sua execução, portanto duas execuções do mesmo job nunca se sobrepõem
+ * Os horários que passaram durante uma execução são tratados conforme a {@link PoliticaAtraso} do job
+ * <p>
+ * Para cada job é mantido o estado, a próxima execução e um histograma da duração das execuções
+ */
+public final class AgendadorJobs {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgendadorJobs.class);
+
+    // Os jobs aguardam uns aos outros através dos monitores do MainAux, portanto o pool comporta todos os jobs da aplicação ao mesmo tempo
+    private static final int TAMANHO_POOL = 5;
+
+    // Limites superiores das faixas do histograma de duração, em milissegundos. A última faixa não tem limite
+    private static final long[] FAIXAS_DURACAO_MS = { 10, 100, 1_000, 10_000, 60_000, 600_000 };
+
+    private static AgendadorJobs instance;
+
+    private final ScheduledThreadPoolExecutor executor;
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>();
+
+    AgendadorJobs(int tamanhoPool) {
+        AtomicInteger contador = new AtomicInteger();
+
+        this.executor = new ScheduledThreadPoolExecutor(tamanhoPool, r -> {
+            // Assim como as threads do antigo java.util.Timer, as threads dos jobs mantêm a aplicação em execução
+            return new Thread(r, "Job - " + contador.incrementAndGet());
+        });
+
+        this.executor.setRemoveOnCancelPolicy(true);
+    }
+
+    public static synchronized AgendadorJobs getInstance() {
+        if (instance == null) {
+            instance = new AgendadorJobs(TAMANHO_POOL);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Agenda um job para executar periodicamente, a primeira vez após um segundo
+     * @param nome nome do job, único
+     * @param intervalo intervalo entre os inícios das execuções
+     * @param politica tratamento das execuções perdidas enquanto o job executava
+     * @param tarefa tarefa do job
+     * @return job agendado
+     */
+    public Job agendar(String nome, Duration intervalo, PoliticaAtraso politica, Runnable tarefa) {
+
+        Job job = new Job(nome, intervalo, politica, tarefa);
+
+        if (jobs.putIfAbsent(nome, job) != null) {
+            throw new IllegalArgumentException("Já existe um job com o nome " + nome);
+        }
+
+        logger.info(String.format("Agendando job \"%s\" a cada %dms (%s)", nome, intervalo.toMillis(), politica));
+
+        job.agendar(System.nanoTime() + TimeUnit.SECONDS.toNanos(1));
+        return job;
+    }
+
+    public Collection<Job> getJobs() {
+        return Collections.unmodifiableCollection(jobs.values());
+    }
+
+    /**
+     * Descrição do estado de todos os jobs, para monitoramento
+     */
+    public StringBuilder descrever() {
+        StringBuilder sb = new StringBuilder();
+
+        jobs.values().stream().sorted((a, b) -> a.getNome().compareTo(b.getNome())).forEach(job -> sb.append(job.descrever()).append(System.lineSeparator()));
+
+        return sb;
+    }
+
+    /**
+     * Cancela todos os jobs. Execuções em andamento não são interrompidas
+     */
+    public void finalizar() {
+        jobs.values().forEach(Job::cancelar);
+        executor.shutdown();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    public enum EstadoJob {
+        AGUARDANDO("Aguardando"),
+        EXECUTANDO("Executando"),
+        CANCELADO("Cancelado");
+
+        private final String descricao;
+
+        EstadoJob(String descricao) {
+            this.descricao = descricao;
+        }
+
+        @Override
+        public String toString() {
+            return descricao;
+        }
+    }
+
+    /**
+     * Job agendado
+     */
+    public final class Job implements Runnable {
+
+        private final String nome;
+        private final long intervaloNanos;
+        private final PoliticaAtraso politica;
+        private final Runnable tarefa;
+
+        private volatile EstadoJob estado = EstadoJob.AGUARDANDO;
+        private volatile boolean cancelado = false;
+        private volatile ScheduledFuture<?> agendamento;
+
+        // Horário planejado da execução atual, em System.nanoTime
+        private volatile long planejadaNanos;
+        private volatile Instant proximaExecucao, ultimoInicio;
+        private volatile long ultimaDuracaoMs = -1;
+
+        private final AtomicLong execucoes = new AtomicLong();
+        private final AtomicLong falhas = new AtomicLong();
+        private final AtomicLong execucoesPuladas = new AtomicLong();
+        private final AtomicLong duracaoTotalMs = new AtomicLong();
+        private final AtomicLong duracaoMaximaMs = new AtomicLong();
+        private final AtomicLongArray histograma = new AtomicLongArray(FAIXAS_DURACAO_MS.length + 1);
+
+        private Job(String nome, Duration intervalo, PoliticaAtraso politica, Runnable tarefa) {
+            this.nome = nome;
+            this.intervaloNanos = intervalo.toNanos();
+            this.politica = politica;
+            this.tarefa = tarefa;
+        }
+
+        @Override
+        public void run() {
+
+            if (cancelado) return;
+
+            estado = EstadoJob.EXECUTANDO;
+            ultimoInicio = Instant.now();
+            long inicio = System.nanoTime();
+
+            try {
+                tarefa.run();
+            } catch (Throwable e) {
+                falhas.incrementAndGet();
+                logger.error(String.format("Erro inesperado ao executar o job \"%s\"", nome), e);
+            } finally {
+                registrarDuracao(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+            }
+
+            if (cancelado) {
+                estado = EstadoJob.CANCELADO;
+                return;
+            }
+
+            estado = EstadoJob.AGUARDANDO;
+            agendar(calcularProxima(System.nanoTime()));
+        }
+
+        /**
+         * Cancela as próximas execuções do job
+         */
+        public void cancelar() {
+            cancelado = true;
+            estado = EstadoJob.CANCELADO;
+            proximaExecucao = null;
+
+            ScheduledFuture<?> atual = agendamento;
+
+            if (atual != null) {
+                atual.cancel(false);
+            }
+        }
+
+        public String getNome() {
+            return nome;
+        }
+
+        public EstadoJob getEstado() {
+            return estado;
+        }
+
+        public Instant getProximaExecucao() {
+            return proximaExecucao;
+        }
+
+        public Instant getUltimoInicio() {
+            return ultimoInicio;
+        }
+
+        public long getExecucoes() {
+            return execucoes.get();
+        }
+
+        public long getFalhas() {
+            return falhas.get();
+        }
+
+        public long getExecucoesPuladas() {
+            return execucoesPuladas.get();
+        }
+
+        /**
+         * Quantidade de execuções em cada faixa de duração
+         * A faixa i contém as execuções com duração menor que {@code FAIXAS_DURACAO_MS[i]}, e a última faixa as demais
+         */
+        public long[] getHistogramaDuracao() {
+            long[] copia = new long[histograma.length()];
+
+            for (int i = 0; i < copia.length; i++) {
+                copia[i] = histograma.get(i);
+            }
+
+            return copia;
+        }
+
+        /**
+         * Descrição do estado do job em uma linha
+         */
+        public String descrever() {
+
+            long quantidade = execucoes.get();
+            StringBuilder sb = new StringBuilder();
+
+            sb.append("⚙️ ").append(nome).append(": ").append(estado);
+            sb.append(", execuções: ").append(quantidade);
+            sb.append(", falhas: ").append(falhas.get());
+            sb.append(", puladas: ").append(execucoesPuladas.get());
+
+            if (quantidade > 0) {
+                sb.append(", duração média: ").append(duracaoTotalMs.get() / quantidade).append("ms");
+                sb.append(", máxima: ").append(duracaoMaximaMs.get()).append("ms");
+                sb.append(", última: ").append(ultimaDuracaoMs).append("ms");
+            }
+
+            if (proximaExecucao != null) {
+                sb.append(", próxima: ").append(Dates.BRAZILIAN_DATE_TIME_FORMATTER.format(LocalDateTime.ofInstant(proximaExecucao, Dates.ZONE_ID)));
+            }
+
+            sb.append(", histograma:");
+
+            for (int i = 0; i < histograma.length(); i++) {
+                sb.append(i < FAIXAS_DURACAO_MS.length ? " <" + FAIXAS_DURACAO_MS[i] + "ms=" : " >=" + FAIXAS_DURACAO_MS[FAIXAS_DURACAO_MS.length - 1] + "ms=").append(histograma.get(i));
+            }
+
+            return sb.toString();
+        }
+
+        //--------------------------------------------------------------------------------------------------------------
+
+        private void agendar(long planejadaNanos) {
+
+            this.planejadaNanos = planejadaNanos;
+
+            long atraso = Math.max(0, planejadaNanos - System.nanoTime());
+            proximaExecucao = Instant.now().plusNanos(atraso);
+
+            try {
+                agendamento = executor.schedule(this, atraso, TimeUnit.NANOSECONDS);
+            } catch (RejectedExecutionException e) {
+                logger.debug(String.format("Job \"%s\" não reagendado, o agendador foi finalizado", nome));
+            }
+        }
+
+        /**
+         * Próximo horário a partir do horário planejado da execução que terminou, sem acumular o desvio das execuções
+         */
+        private long calcularProxima(long agoraNanos) {
+
+            long proxima = planejadaNanos + intervaloNanos;
+
+            if (proxima - agoraNanos > 0) {
+                return proxima;
+            }
+
+            // Horários que passaram durante a execução
+            long perdidas = (agoraNanos - proxima) / intervaloNanos + 1;
+
+            if (politica == PoliticaAtraso.AGRUPAR) {
+                execucoesPuladas.addAndGet(perdidas - 1);
+                logger.debug(String.format("Job \"%s\" atrasado, %d execução(ões) agrupadas em uma execução imediata", nome, perdidas));
+                return agoraNanos;
+            }
+
+            execucoesPuladas.addAndGet(perdidas);
+            logger.debug(String.format("Job \"%s\" atrasado, %d execução(ões) puladas", nome, perdidas));
+            return proxima + perdidas * intervaloNanos;
+        }
+
+        private void registrarDuracao(long duracaoMs) {
+
+            execucoes.incrementAndGet();
+            ultimaDuracaoMs = duracaoMs;
+            duracaoTotalMs.addAndGet(duracaoMs);
+            duracaoMaximaMs.accumulateAndGet(duracaoMs, Math::max);
+
+            int faixa = 0;
+
+            while (faixa < FAIXAS_DURACAO_MS.length && duracaoMs >= FAIXAS_DURACAO_MS[faixa]) {
+                faixa++;
+            }
+
+            histograma.incrementAndGet(faixa);
+        }
+    }
+}
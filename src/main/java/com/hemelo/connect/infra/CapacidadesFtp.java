@@ -0,0 +1,105 @@
+package com.hemelo.connect.infra;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Recursos anunciados pelo servidor FTP na resposta ao FEAT (RFC 2389)
+ * O FEAT é enviado uma única vez por servidor, e o resultado é reaproveitado por todas as sessões
+ * @param featSuportado se o servidor respondeu ao FEAT. Sem a resposta, os demais recursos são desconhecidos e precisam ser testados
+ * @param mlst se o servidor suporta MLST e MLSD (RFC 3659)
+ * @param fatos fatos do MLST ativos no servidor, em minúsculas
+ * @param mdtm se o servidor suporta MDTM
+ * @param size se o servidor suporta SIZE
+ */
+public record CapacidadesFtp(boolean featSuportado, boolean mlst, Set<String> fatos, boolean mdtm, boolean size) {
+
+    private static final Logger logger = LoggerFactory.getLogger(CapacidadesFtp.class);
+
+    private static final CapacidadesFtp DESCONHECIDAS = new CapacidadesFtp(false, false, Set.of(), false, false);
+
+    // Recursos de cada servidor, pelo endereço e porta
+    private static final Map<String, CapacidadesFtp> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Retorna os recursos do servidor da sessão, enviando o FEAT somente na primeira consulta ao servidor
+     * @param client cliente conectado
+     * @return recursos do servidor, desconhecidos se o FEAT falhar por erro de comunicação
+     */
+    public static CapacidadesFtp obter(org.apache.commons.net.ftp.FTPClient client) {
+
+        final String servidor = client.getRemoteAddress().getHostAddress() + ":" + client.getRemotePort();
+        final CapacidadesFtp capacidades = cache.get(servidor);
+
+        if (capacidades != null) return capacidades;
+
+        try {
+            final CapacidadesFtp detectadas = detectar(client);
+            cache.put(servidor, detectadas);
+            logger.info(String.format("Recursos do FTP %s: %s", servidor, detectadas));
+            return detectadas;
+        } catch (IOException e) {
+            // Não é mantido no cache, para que o FEAT seja repetido na próxima consulta
+            logger.warn(String.format("Erro ao consultar os recursos do FTP %s: %s", servidor, e.getMessage()));
+            return DESCONHECIDAS;
+        }
+    }
+
+    /**
+     * Envia o FEAT e interpreta a resposta
+     * A resposta é lida diretamente, pois as consultas de recursos do Apache Commons Net enviariam um segundo FEAT
+     */
+    static CapacidadesFtp detectar(org.apache.commons.net.ftp.FTPClient client) throws IOException {
+
+        if (!client.features()) return DESCONHECIDAS;
+
+        // Cada recurso é uma linha iniciada por espaço: " MLST type*;size*;modify*;perm;"
+        final Map<String, String> recursos = new HashMap<>();
+
+        for (String linha : client.getReplyStrings()) {
+            if (!linha.startsWith(" ")) continue;
+
+            final String recurso = linha.trim();
+            final int espaco = recurso.indexOf(' ');
+            recursos.put((espaco < 0 ? recurso : recurso.substring(0, espaco)).toUpperCase(Locale.ROOT), espaco < 0 ? "" : recurso.substring(espaco + 1));
+        }
+
+        // Os fatos ativos são marcados com asterisco
+        final Set<String> fatos = new HashSet<>();
+
+        for (String fato : recursos.getOrDefault("MLST", "").split(";")) {
+            if (fato.trim().endsWith("*")) fatos.add(fato.trim().replace("*", "").toLowerCase(Locale.ROOT));
+        }
+
+        return new CapacidadesFtp(true, recursos.containsKey("MLST"), Set.copyOf(fatos), recursos.containsKey("MDTM"), recursos.containsKey("SIZE"));
+    }
+
+    /**
+     * Se o MLSD traz a data de modificação com segundos, preferível ao LIST
+     */
+    public boolean isMlsdComDatas() {
+        return mlst && fatos.contains("modify");
+    }
+
+    /**
+     * Se o servidor informou no FEAT que não suporta o MLSD, dispensando a tentativa
+     */
+    public boolean isMlsdNaoSuportado() {
+        return featSuportado && !mlst;
+    }
+
+    @Override
+    public String toString() {
+        if (!featSuportado) return "FEAT não suportado";
+
+        return String.format("MLST %s, MDTM %s, SIZE %s", mlst ? fatos : "não", mdtm ? "sim" : "não", size ? "sim" : "não");
+    }
+}
@@ -0,0 +1,31 @@
+package com.hemelo.connect.infra;
+
+import org.apache.commons.net.ftp.FTPFile;
+
+import java.util.List;
+
+/**
+ * Recebe as entradas dos diretórios listados pelo {@link ListadorFtp}
+ * <p>
+ * As entradas chegam em páginas conforme o parser avança, portanto as entradas de um diretório grande nunca ficam todas em memória
+ * Cada diretório é entregue por uma única thread, mas diretórios diferentes podem ser entregues concorrentemente
+ */
+@FunctionalInterface
+public interface ConsumidorListagem {
+
+    /**
+     * Recebe uma página de entradas de um diretório
+     * Todo diretório listado recebe ao menos uma página, vazia se o diretório não possuir entradas
+     * Se a listagem for interrompida por erro de comunicação, o diretório pode ser entregue novamente desde o início por outra sessão
+     * @param diretorio nome do diretório, abaixo do diretório base
+     * @param pagina entradas da página
+     */
+    void aoListar(String diretorio, List<FTPFile> pagina);
+
+    /**
+     * Recebe um diretório que não foi listado na varredura incremental por não ter sido alterado desde a última listagem
+     * @param diretorio nome do diretório, abaixo do diretório base
+     */
+    default void aoReaproveitar(String diretorio) {
+    }
+}
@@ -4,18 +4,23 @@
  */
 package com.hemelo.connect.infra;
 
+import com.hemelo.connect.dto.MetricasDatasource;
 import com.hemelo.connect.exception.ConexaoException;
 import com.hemelo.connect.utils.PropertiesUtils;
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Function;
 
 /**
@@ -30,6 +35,13 @@ public final class Datasource {
     public static final AtomicBoolean isConnectingDatasource;
     public final AtomicBoolean isRetrievingConnection;
 
+    // Métricas de aquisição de conexões
+    private final AtomicInteger threadsAguardando = new AtomicInteger(0);
+    private final LongAdder aquisicoes = new LongAdder();
+    private final LongAdder tempoEsperaTotal = new LongAdder();
+    private final AtomicLong tempoEsperaMaximo = new AtomicLong(0);
+    private final LongAdder falhas = new LongAdder();
+
     private HikariConfig config;
     private HikariDataSource ds;
     private Properties properties;
@@ -141,72 +153,100 @@ public final class Datasource {
 
     /**
      * Recupera uma conexao com o banco de dados
-     * Se nao conseguir conectar ao banco de dados, tenta novamente por 5 vezes
+     * As conexões são entregues pelo HikariCP de forma concorrente, sem serializar as threads
+     * Se nao conseguir conectar ao banco de dados, aguarda um tempo crescente e tenta novamente por até 5 vezes
      *
      * @throws ConexaoException
      */
     public Connection getConnection() {
 
-        AtomicReference<Connection> connection = new AtomicReference<>();
-
         Function<Integer, Integer> timeoutCalculator = (Integer t) -> switch (t) {
             case 1 -> 1000;
             case 2 -> 2000;
             case 3 -> 5000;
             case 4 -> 10000;
-            case 5 -> 30000;
             default -> throw new IllegalStateException("Unexpected value: " + t);
         };
 
-        synchronized (isRetrievingConnection) {
-
-            while (isRetrievingConnection.get()) {
-                try {
-                    isRetrievingConnection.wait();
-                } catch (InterruptedException ex) {
-                    logger.error("Erro ao aguardar a finalizacao da thread de conexao", ex);
-                }
+        final long inicio = System.nanoTime();
+        int tentativas = 0;
+
+        while (++tentativas <= 5) {
+            try {
+                Connection connection = ds.getConnection();
+                registrarEspera(System.nanoTime() - inicio);
+                return connection;
+            } catch (SQLException ex) {
+                falhas.increment();
+                logger.error("Erro ao conectar ao sistema. Tentativa " + tentativas, ex);
             }
 
-            isRetrievingConnection.set(true);
-            isRetrievingConnection.notifyAll();
+            if (tentativas < 5) {
+                aguardarNovaTentativa(timeoutCalculator.apply(tentativas));
+            }
+        }
 
-            Integer tentativas = 0;
+        logger.error("Erro ao conectar ao banco de dados. Número maximo de tentativas atingido.");
+        throw new ConexaoException("Erro ao conectar ao banco de dados");
+    }
 
-            while (connection.get() == null && ++tentativas <= 5) {
-                try {
-                    connection.set(ds.getConnection());
-                } catch (SQLException ex) {
-                    logger.error("Erro ao conectar ao sistema. Tentativa " + tentativas, ex);
-                }
+    /**
+     * Retorna as métricas do pool de conexões
+     * @return métricas do pool, ou null se o pool não foi iniciado
+     */
+    public MetricasDatasource getMetricas() {
+
+        if (ds == null || ds.getHikariPoolMXBean() == null) return null;
+
+        HikariPoolMXBean pool = ds.getHikariPoolMXBean();
+        long quantidade = aquisicoes.sum();
+
+        return new MetricasDatasource(
+                pool.getActiveConnections(),
+                pool.getIdleConnections(),
+                pool.getTotalConnections(),
+                pool.getThreadsAwaitingConnection(),
+                quantidade,
+                quantidade == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(tempoEsperaTotal.sum() / quantidade),
+                TimeUnit.NANOSECONDS.toMillis(tempoEsperaMaximo.get()),
+                falhas.sum());
+    }
 
-                try {
-                    Thread.sleep(timeoutCalculator.apply(tentativas));
-                } catch (Exception ex) {
-                    logger.debug("Erro ao tentar esperar para conectar novamente ao sistema", ex);
-                }
-            }
+    /**
+     * Aguarda antes de tentar recuperar uma conexão novamente
+     * Enquanto alguma thread estiver aguardando, isRetrievingConnection fica como true
+     * @param millis tempo de espera
+     */
+    private void aguardarNovaTentativa(long millis) {
 
-            isRetrievingConnection.set(false);
+        synchronized (isRetrievingConnection) {
+            threadsAguardando.incrementAndGet();
+            isRetrievingConnection.set(true);
             isRetrievingConnection.notifyAll();
+        }
 
-            if (connection.get() == null) {
-                logger.error("Erro ao conectar ao banco de dados. Número maximo de tentativas atingido.");
-                throw new ConexaoException("Erro ao conectar ao banco de dados");
-            }
-
-            while (isRetrievingConnection.get()) {
-                try {
-                    isRetrievingConnection.wait();
-                } catch (InterruptedException ex) {
-                    logger.error("Erro ao aguardar a finalizacao da thread de conexao", ex);
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            logger.debug("Erro ao tentar esperar para conectar novamente ao sistema", ex);
+            Thread.currentThread().interrupt();
+        } finally {
+            synchronized (isRetrievingConnection) {
+                if (threadsAguardando.decrementAndGet() == 0) {
+                    isRetrievingConnection.set(false);
                 }
-            }
 
-            return connection.get();
+                isRetrievingConnection.notifyAll();
+            }
         }
     }
 
+    private void registrarEspera(long nanos) {
+        aquisicoes.increment();
+        tempoEsperaTotal.add(nanos);
+        tempoEsperaMaximo.accumulateAndGet(nanos, Math::max);
+    }
+
     public void close() {
 
         if (ds != null)
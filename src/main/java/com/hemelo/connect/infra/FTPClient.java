@@ -1,7 +1,6 @@
 package com.hemelo.connect.infra;
 
 import com.hemelo.connect.MainAux;
-import com.hemelo.connect.constants.Caminhos;
 import com.hemelo.connect.constants.Timings;
 import com.hemelo.connect.dao.GenericDao;
 import com.hemelo.connect.exception.ConexaoException;
@@ -14,73 +13,130 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.SocketException;
-import java.util.Objects;
+import java.time.Duration;
 import java.util.Optional;
 import java.util.Properties;
 
 /**
  * Classe gateway para conexão com o servidor FTP
- * É responsável por criar uma instância do cliente FTP real do Apache Commons Net
- * e retornar essa instância para ser utilizada em outras classes
+ * É responsável por manter o pool de sessões com o servidor FTP ({@link FTPConnectionPool})
+ * e emprestar essas sessões para serem utilizadas em outras classes
  */
 public final class FTPClient {
 
     private static final Logger logger = LoggerFactory.getLogger(FTPClient.class);
     private static Optional<Properties> props;
 
-    private static FTPClient instance;
-    private org.apache.commons.net.ftp.FTPClient ftpClient;
+    private static FTPConnectionPool pool;
 
     private FTPClient() {
-        loadFtpConfig();
-
-        if (props.isPresent() && (!props.get().containsKey("ftp.password") || StringUtils.isBlank(props.get().getProperty("ftp.password")))) {
-            buscarSenhaFtp();
-        }
+        throw new IllegalStateException("Utility class");
     }
 
     /**
-     * Retorna uma instância do cliente FTP real do Apache Commons Net
-     * @return
+     * Empresta uma sessão do pool de conexões com o FTP
+     * A sessão deve ser devolvida ao final do uso, de preferência com try-with-resources
+     * @return sessão conectada ao FTP
      * @throws Exception
      */
-    public static org.apache.commons.net.ftp.FTPClient getInstance() throws Exception {
-        if (instance == null) {
-            instance = new FTPClient();
-        }
+    public static FTPSession getSession() throws Exception {
+        return getPool().borrow();
+    }
 
-        if (instance.ftpClient == null || !instance.ftpClient.isConnected()) {
+    /**
+     * Retorna o pool de conexões com o FTP, criando-o na primeira chamada
+     * @return pool de conexões
+     */
+    public static synchronized FTPConnectionPool getPool() {
+
+        if (pool == null) {
+            loadFtpConfig();
 
             if (props.isEmpty()) {
-                return null;
+                throw new ConexaoException("Não foi possível conectar ao FTP. Arquivo de propriedades não foi encontrado.");
             }
 
-            instance.ftpClient = getClientFtp(
-                    props.get().getProperty("ftp.host"),
-                    Integer.parseInt(props.get().getProperty("ftp.port")),
-                    props.get().getProperty("ftp.user"),
-                    props.get().getProperty("ftp.password")
+            if (!props.get().containsKey("ftp.password") || StringUtils.isBlank(props.get().getProperty("ftp.password"))) {
+                buscarSenhaFtp();
+            }
+
+            int minimo = getPropriedadeInt("ftp.pool.minimo", 1);
+            int maximo = getPropriedadeInt("ftp.pool.maximo", 4);
+
+            logger.debug(String.format("Criando pool de conexões com o FTP (mínimo %d, máximo %d)", minimo, maximo));
+
+            pool = new FTPConnectionPool(
+                    () -> getClientFtp(
+                            props.get().getProperty("ftp.host"),
+                            Integer.parseInt(props.get().getProperty("ftp.port")),
+                            props.get().getProperty("ftp.user"),
+                            props.get().getProperty("ftp.password")
+                    ),
+                    minimo,
+                    maximo,
+                    Timings.INTERVALO_VALIDACAO_SESSAO_FTP,
+                    Timings.TEMPO_LIMITE_AGUARDAR_SESSAO_FTP
             );
+        }
 
-            instance.ftpClient.addProtocolCommandListener(new ProtocolCommandListener() {
-                @Override
-                public void protocolCommandSent(ProtocolCommandEvent protocolCommandEvent) {
-                    logger.debug(String.format("Command sent: [%s]-%s",
-                            protocolCommandEvent.getCommand(),
-                            Optional.ofNullable(protocolCommandEvent.getMessage()).map(s -> s.replace("\n", "")).orElse("")));
-                }
+        return pool;
+    }
 
-                @Override
-                public void protocolReplyReceived(ProtocolCommandEvent protocolCommandEvent) {
-                    String message = Optional.ofNullable(protocolCommandEvent.getMessage()).map(s -> s.replace("\n", "")).orElse("");
+    /**
+     * Verifica se é possível conversar com o FTP, emprestando uma sessão e enviando um NOOP
+     * @param tempoLimite tempo máximo de espera por uma sessão livre
+     * @return true se o servidor respondeu
+     */
+    public static boolean testarConexao(Duration tempoLimite) {
+        try (FTPSession sessao = getPool().borrow(tempoLimite)) {
+            return sessao.getClient().sendNoOp();
+        } catch (Exception e) {
+            logger.trace("Erro ao testar conexão com o FTP", e);
+            return false;
+        }
+    }
 
-                    if (!message.isBlank())
-                        logger.debug(String.format("Reply received : %s", message));
-                }
-            });
+    /**
+     * Retorna uma propriedade inteira do arquivo ftp.properties
+     * @param chave chave da propriedade
+     * @param padrao valor padrão caso a propriedade não exista ou seja inválida
+     * @return valor da propriedade
+     */
+    public static int getPropriedadeInt(String chave, int padrao) {
+
+        if (props == null) {
+            loadFtpConfig();
         }
 
-        return Objects.requireNonNull(instance.ftpClient, "Não foi possível conectar ao FTP");
+        if (props.isEmpty() || StringUtils.isBlank(props.get().getProperty(chave))) {
+            return padrao;
+        }
+
+        try {
+            return Integer.parseInt(props.get().getProperty(chave).trim());
+        } catch (NumberFormatException e) {
+            logger.error(String.format("Valor inválido para a propriedade %s do FTP: %s", chave, props.get().getProperty(chave)));
+            return padrao;
+        }
+    }
+
+    /**
+     * Retorna uma propriedade booleana do arquivo ftp.properties
+     * @param chave chave da propriedade
+     * @param padrao valor padrão caso a propriedade não exista
+     * @return valor da propriedade
+     */
+    public static boolean getPropriedadeBoolean(String chave, boolean padrao) {
+
+        if (props == null) {
+            loadFtpConfig();
+        }
+
+        if (props.isEmpty() || StringUtils.isBlank(props.get().getProperty(chave))) {
+            return padrao;
+        }
+
+        return Boolean.parseBoolean(props.get().getProperty(chave).trim());
     }
 
     /**
@@ -90,7 +146,7 @@ public final class FTPClient {
         props = PropertiesUtils.getProperties("ftp.properties");
 
         if (props.isEmpty()) {
-            logger.debug("Não será possível autenticar usuários pois as propriedades do LDAP não foram configuradas corretamente");
+            logger.debug("Não será possível conectar ao FTP pois as propriedades do FTP não foram configuradas corretamente");
         }
     }
 
@@ -128,6 +184,22 @@ public final class FTPClient {
 
             logger.info("Conectando ao FTP " + host + ":" + port + " com usuário " + username);
 
+            ftpClient.addProtocolCommandListener(new ProtocolCommandListener() {
+                @Override
+                public void protocolCommandSent(ProtocolCommandEvent protocolCommandEvent) {
+                    logger.debug(String.format("Command sent: [%s]-%s",
+                            protocolCommandEvent.getCommand(),
+                            Optional.ofNullable(protocolCommandEvent.getMessage()).map(s -> s.replace("\n", "")).orElse("")));
+                }
+
+                @Override
+                public void protocolReplyReceived(ProtocolCommandEvent protocolCommandEvent) {
+                    String message = Optional.ofNullable(protocolCommandEvent.getMessage()).map(s -> s.replace("\n", "")).orElse("");
+
+                    if (!message.isBlank())
+                        logger.debug(String.format("Reply received : %s", message));
+                }
+            });
 
             ftpClient.connect(host, port);
             ftpClient.setDataTimeout(Timings.TEMPO_LIMITE_DOWNLOAD);
@@ -135,7 +207,12 @@ public final class FTPClient {
             ftpClient.setAutodetectUTF8(true);
             ftpClient.setBufferSize(0);
             ftpClient.setControlKeepAliveTimeout(300);
-            ftpClient.login(username, password);
+
+            if (!ftpClient.login(username, password)) {
+                ftpClient.disconnect();
+                throw new ConexaoException("Erro ao autenticar no FTP com usuário " + username);
+            }
+
             ftpClient.setFileType(FTP.BINARY_FILE_TYPE);
             ftpClient.enterLocalPassiveMode();
             return ftpClient;
@@ -144,35 +221,4 @@ public final class FTPClient {
             throw new ConexaoException("Erro ao conectar ao FTP");
         }
     }
-
-    /**
-     * Move para o diretório de trabalho
-     * @return
-     */
-    public static boolean moveToWorkBaseDirectory() {
-        return changeWorkingDirectory(Caminhos.CAMINHO_BASE_FTP);
-    }
-
-
-    /**
-     * Move para o diretório de trabalho informado
-     * @param caminho - Caminho para onde se deseja mover
-     * @return
-     */
-    public static boolean changeWorkingDirectory(String caminho) {
-
-        try {
-            if (!Objects.requireNonNullElse(getInstance().printWorkingDirectory(), "").equals(caminho) && !getInstance().changeWorkingDirectory(caminho)) {
-                logger.error(String.format("Erro ao mudar de diretorio para %s", caminho));
-                return false; // Se não conseguir mudar de diretorio, retorna false
-            } else return true;
-        } catch (SocketException e) {
-            instance.ftpClient = null;
-            logger.error("Erro ao mudar de diretorio para " + caminho, e);
-            return false;
-        } catch (Exception e) {
-            logger.error("Erro ao mudar de diretorio para " + caminho, e);
-            return false;
-        }
-    }
 }
@@ -0,0 +1,301 @@
+package com.hemelo.connect.infra;
+
+import com.hemelo.connect.exception.ConexaoException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool de sessões de controle com o servidor FTP
+ * Permite que várias threads conversem com o servidor ao mesmo tempo, cada uma com sua própria conexão de controle
+ * <p>
+ * As sessões ociosas são validadas via NOOP antes de serem reutilizadas e sessões quebradas são descartadas e substituídas automaticamente
+ */
+public final class FTPConnectionPool {
+
+    private static final Logger logger = LoggerFactory.getLogger(FTPConnectionPool.class);
+
+    private final Callable<org.apache.commons.net.ftp.FTPClient> fabrica;
+    private final int tamanhoMinimo;
+    private final int tamanhoMaximo;
+    private final Duration intervaloValidacao;
+    private final Duration tempoLimiteEmprestimo;
+
+    private final Semaphore permissoes;
+    private final LinkedBlockingDeque<FTPSession> ociosas = new LinkedBlockingDeque<>();
+    private final AtomicInteger abertas = new AtomicInteger(0);
+
+    private volatile boolean fechado = false;
+
+    /**
+     * Construtor do pool
+     * @param fabrica responsável por criar um cliente FTP já conectado e autenticado
+     * @param tamanhoMinimo quantidade mínima de sessões mantidas abertas
+     * @param tamanhoMaximo quantidade máxima de sessões abertas ao mesmo tempo
+     * @param intervaloValidacao tempo de ociosidade a partir do qual uma sessão é validada via NOOP antes de ser reutilizada
+     * @param tempoLimiteEmprestimo tempo máximo de espera por uma sessão livre
+     */
+    public FTPConnectionPool(Callable<org.apache.commons.net.ftp.FTPClient> fabrica, int tamanhoMinimo, int tamanhoMaximo, Duration intervaloValidacao, Duration tempoLimiteEmprestimo) {
+
+        if (tamanhoMaximo < 1 || tamanhoMinimo < 0 || tamanhoMinimo > tamanhoMaximo) {
+            throw new IllegalArgumentException(String.format("Tamanho do pool FTP inválido (mínimo %d, máximo %d)", tamanhoMinimo, tamanhoMaximo));
+        }
+
+        this.fabrica = fabrica;
+        this.tamanhoMinimo = tamanhoMinimo;
+        this.tamanhoMaximo = tamanhoMaximo;
+        this.intervaloValidacao = intervaloValidacao;
+        this.tempoLimiteEmprestimo = tempoLimiteEmprestimo;
+        this.permissoes = new Semaphore(tamanhoMaximo, true);
+    }
+
+    /**
+     * Empresta uma sessão do pool, aguardando o tempo limite padrão caso todas estejam em uso
+     * @return sessão conectada
+     * @throws InterruptedException se a thread for interrompida enquanto aguarda
+     * @throws ConexaoException se não for possível obter ou criar uma sessão
+     */
+    public FTPSession borrow() throws InterruptedException {
+        return borrow(tempoLimiteEmprestimo);
+    }
+
+    /**
+     * Empresta uma sessão do pool
+     * @param tempoLimite tempo máximo de espera por uma sessão livre
+     * @return sessão conectada
+     * @throws InterruptedException se a thread for interrompida enquanto aguarda
+     * @throws ConexaoException se não for possível obter ou criar uma sessão
+     */
+    public FTPSession borrow(Duration tempoLimite) throws InterruptedException {
+
+        if (fechado) {
+            throw new ConexaoException("O pool de conexões com o FTP foi fechado");
+        }
+
+        if (!permissoes.tryAcquire(tempoLimite.toMillis(), TimeUnit.MILLISECONDS)) {
+            throw new ConexaoException(String.format("Tempo limite de %dms excedido ao aguardar uma sessão livre do FTP (%d sessões em uso)", tempoLimite.toMillis(), getSessoesEmUso()));
+        }
+
+        try {
+            FTPSession sessao;
+
+            // Reaproveita a sessão ociosa mais recente, descartando as que estiverem quebradas
+            while ((sessao = ociosas.pollFirst()) != null) {
+                if (validar(sessao)) {
+                    sessao.marcarEmprestada();
+                    return sessao;
+                }
+
+                logger.debug("Sessão ociosa do FTP está quebrada e será substituída");
+                destruir(sessao);
+            }
+
+            sessao = criar();
+            sessao.marcarEmprestada();
+            return sessao;
+
+        } catch (RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+    }
+
+    /**
+     * Empresta uma sessão ociosa do pool, sem aguardar e sem abrir novas sessões
+     * Utilizado por tarefas oportunistas, que só devem ocupar sessões que ninguém está utilizando
+     * @return sessão ociosa conectada, vazio se todas estiverem em uso, se não houver sessões abertas ou se o pool estiver fechado
+     */
+    public Optional<FTPSession> borrowOciosa() {
+
+        if (fechado || !permissoes.tryAcquire()) return Optional.empty();
+
+        try {
+            FTPSession sessao;
+
+            while ((sessao = ociosas.pollFirst()) != null) {
+                if (validar(sessao)) {
+                    sessao.marcarEmprestada();
+                    return Optional.of(sessao);
+                }
+
+                logger.debug("Sessão ociosa do FTP está quebrada e foi descartada");
+                destruir(sessao);
+            }
+        } catch (RuntimeException e) {
+            permissoes.release();
+            throw e;
+        }
+
+        permissoes.release();
+        return Optional.empty();
+    }
+
+    /**
+     * Devolve uma sessão ao pool
+     * Sessões invalidadas ou desconectadas são descartadas
+     * @param sessao sessão emprestada
+     */
+    void devolver(FTPSession sessao) {
+
+        if (!sessao.marcarDevolvida()) {
+            logger.warn("Sessão do FTP devolvida mais de uma vez ao pool");
+            return;
+        }
+
+        try {
+            if (fechado || !sessao.isValida()) {
+                destruir(sessao);
+            } else {
+                sessao.atualizarUltimoUso();
+                ociosas.offerFirst(sessao);
+            }
+        } finally {
+            permissoes.release();
+        }
+    }
+
+    /**
+     * Valida as sessões ociosas via NOOP, substitui as quebradas e completa o pool até o tamanho mínimo
+     * Sessões em uso não são afetadas
+     */
+    public void manter() {
+
+        if (fechado) return;
+
+        int quantidade = ociosas.size();
+
+        for (int i = 0; i < quantidade; i++) {
+
+            if (!permissoes.tryAcquire()) break;
+
+            try {
+                FTPSession sessao = ociosas.pollLast();
+
+                if (sessao == null) break;
+
+                if (validar(sessao)) {
+                    ociosas.offerLast(sessao);
+                } else {
+                    logger.debug("Sessão ociosa do FTP está quebrada e foi descartada");
+                    destruir(sessao);
+                }
+            } finally {
+                permissoes.release();
+            }
+        }
+
+        while (abertas.get() < tamanhoMinimo && permissoes.tryAcquire()) {
+            try {
+                ociosas.offerLast(criar());
+            } catch (ConexaoException e) {
+                logger.error("Erro ao completar o pool de conexões com o FTP", e);
+                break;
+            } finally {
+                permissoes.release();
+            }
+        }
+    }
+
+    /**
+     * Fecha o pool e desconecta todas as sessões ociosas
+     * As sessões em uso são desconectadas ao serem devolvidas
+     */
+    public void fechar() {
+        fechado = true;
+
+        FTPSession sessao;
+
+        while ((sessao = ociosas.pollFirst()) != null) {
+            destruir(sessao);
+        }
+    }
+
+    public int getTamanhoMinimo() {
+        return tamanhoMinimo;
+    }
+
+    public int getTamanhoMaximo() {
+        return tamanhoMaximo;
+    }
+
+    public int getSessoesAbertas() {
+        return abertas.get();
+    }
+
+    public int getSessoesOciosas() {
+        return ociosas.size();
+    }
+
+    public int getSessoesEmUso() {
+        return tamanhoMaximo - permissoes.availablePermits();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private FTPSession criar() {
+        try {
+            org.apache.commons.net.ftp.FTPClient client = fabrica.call();
+
+            if (client == null) {
+                throw new ConexaoException("Não foi possível conectar ao FTP");
+            }
+
+            abertas.incrementAndGet();
+            logger.debug(String.format("Nova sessão do FTP aberta (%d/%d)", abertas.get(), tamanhoMaximo));
+
+            return new FTPSession(this, client);
+        } catch (ConexaoException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ConexaoException("Erro ao conectar ao FTP", e);
+        }
+    }
+
+    private boolean validar(FTPSession sessao) {
+
+        if (!sessao.isValida()) return false;
+
+        if (System.currentTimeMillis() - sessao.getUltimoUso() < intervaloValidacao.toMillis()) return true;
+
+        try {
+            boolean resultado = sessao.getClient().sendNoOp();
+
+            if (resultado) sessao.atualizarUltimoUso();
+
+            return resultado;
+        } catch (IOException e) {
+            logger.trace("Sessão do FTP não respondeu ao NOOP", e);
+            return false;
+        }
+    }
+
+    private void destruir(FTPSession sessao) {
+        abertas.decrementAndGet();
+
+        org.apache.commons.net.ftp.FTPClient client = sessao.getClient();
+
+        try {
+            if (client.isConnected()) {
+                client.logout();
+            }
+        } catch (IOException e) {
+            logger.trace("Erro ao efetuar logout da sessão do FTP", e);
+        }
+
+        try {
+            if (client.isConnected()) {
+                client.disconnect();
+            }
+        } catch (IOException e) {
+            logger.trace("Erro ao desconectar a sessão do FTP", e);
+        }
+    }
+}
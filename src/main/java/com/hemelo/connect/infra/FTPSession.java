@@ -0,0 +1,182 @@
+package com.hemelo.connect.infra;
+
+import com.hemelo.connect.constants.Caminhos;
+import org.apache.commons.net.ftp.FTPConnectionClosedException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.SocketException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sessão de controle com o servidor FTP emprestada do {@link FTPConnectionPool}
+ * Cada sessão possui seu próprio cliente do Apache Commons Net, portanto o diretório de trabalho de uma sessão não interfere nas demais
+ * Deve ser utilizada com try-with-resources, para que seja devolvida ao pool ao final do uso
+ * <p>
+ * O diretório de trabalho é acompanhado pela própria sessão, evitando um PWD antes de cada CWD
+ * Por isso as mudanças de diretório devem ser feitas pelos métodos da sessão, e não diretamente pelo cliente
+ */
+public final class FTPSession implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(FTPSession.class);
+
+    private final FTPConnectionPool pool;
+    private final org.apache.commons.net.ftp.FTPClient client;
+    private final AtomicBoolean emprestada = new AtomicBoolean(false);
+
+    private volatile boolean invalida = false;
+    private volatile long ultimoUso = System.currentTimeMillis();
+
+    // Diretório de trabalho atual no servidor, nulo enquanto desconhecido
+    private volatile String diretorioAtual;
+
+    FTPSession(FTPConnectionPool pool, org.apache.commons.net.ftp.FTPClient client) {
+        this.pool = pool;
+        this.client = client;
+    }
+
+    /**
+     * Retorna o cliente FTP real do Apache Commons Net desta sessão
+     * @return cliente FTP
+     */
+    public org.apache.commons.net.ftp.FTPClient getClient() {
+        return client;
+    }
+
+    /**
+     * Move para o diretório de trabalho
+     * @return
+     */
+    public boolean moveToWorkBaseDirectory() {
+        return changeWorkingDirectory(Caminhos.CAMINHO_BASE_FTP);
+    }
+
+    /**
+     * Move para o diretório de trabalho informado
+     * Se a sessão já estiver no diretório, nenhum comando é enviado ao servidor
+     * @param caminho - Caminho para onde se deseja mover, absoluto ou relativo ao diretório atual
+     * @return
+     */
+    public boolean changeWorkingDirectory(String caminho) {
+
+        final String destino = resolver(caminho);
+
+        if (destino != null && destino.equals(diretorioAtual)) return true;
+
+        try {
+            if (!client.changeWorkingDirectory(caminho)) {
+                logger.error(String.format("Erro ao mudar de diretorio para %s", caminho));
+                return false; // Se não conseguir mudar de diretorio, retorna false
+            }
+
+            diretorioAtual = destino;
+            return true;
+        } catch (SocketException | FTPConnectionClosedException e) {
+            invalidar();
+            logger.error("Erro ao mudar de diretorio para " + caminho, e);
+            return false;
+        } catch (Exception e) {
+            // Não se sabe se o servidor chegou a mudar de diretório
+            diretorioAtual = null;
+            logger.error("Erro ao mudar de diretorio para " + caminho, e);
+            return false;
+        }
+    }
+
+    /**
+     * Move para o diretório pai do diretório atual
+     * @return
+     */
+    public boolean changeToParentDirectory() {
+        return changeWorkingDirectory("..");
+    }
+
+    /**
+     * Retorna o diretório de trabalho atual
+     * O servidor só é consultado se o diretório ainda não é conhecido pela sessão
+     * @return caminho absoluto do diretório atual, nulo se o servidor não informou
+     * @throws IOException se ocorrer erro na comunicação com o servidor
+     */
+    public String getDiretorioAtual() throws IOException {
+
+        if (diretorioAtual == null) {
+            diretorioAtual = client.printWorkingDirectory();
+        }
+
+        return diretorioAtual;
+    }
+
+    /**
+     * Marca a sessão como inválida, fazendo com que seja descartada ao ser devolvida ao pool
+     * Deve ser chamado quando a conexão de controle apresentar falha
+     */
+    public void invalidar() {
+        this.invalida = true;
+    }
+
+    /**
+     * Verifica se a sessão ainda pode ser utilizada
+     * @return true se a sessão não foi invalidada e o cliente está conectado
+     */
+    public boolean isValida() {
+        return !invalida && client.isConnected();
+    }
+
+    /**
+     * Devolve a sessão para o pool
+     */
+    @Override
+    public void close() {
+        pool.devolver(this);
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    boolean marcarEmprestada() {
+        return emprestada.compareAndSet(false, true);
+    }
+
+    boolean marcarDevolvida() {
+        return emprestada.compareAndSet(true, false);
+    }
+
+    /**
+     * Resolve o caminho informado para um caminho absoluto normalizado a partir do diretório atual
+     * @return caminho absoluto, nulo se o caminho é relativo e o diretório atual é desconhecido
+     */
+    String resolver(String caminho) {
+
+        if (caminho == null || caminho.isEmpty()) return null;
+
+        if (!caminho.startsWith("/") && diretorioAtual == null) return null;
+
+        final String completo = caminho.startsWith("/") ? caminho : diretorioAtual + "/" + caminho;
+        final StringBuilder sb = new StringBuilder();
+        final Deque<String> partes = new ArrayDeque<>();
+
+        for (String parte : completo.split("/")) {
+            if (parte.isEmpty() || parte.equals(".")) continue;
+
+            if (parte.equals("..")) {
+                partes.pollLast();
+            } else {
+                partes.addLast(parte);
+            }
+        }
+
+        partes.forEach(parte -> sb.append("/").append(parte));
+
+        return sb.length() == 0 ? "/" : sb.toString();
+    }
+
+    long getUltimoUso() {
+        return ultimoUso;
+    }
+
+    void atualizarUltimoUso() {
+        this.ultimoUso = System.currentTimeMillis();
+    }
+}
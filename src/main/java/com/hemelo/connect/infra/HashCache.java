@@ -0,0 +1,214 @@
+package com.hemelo.connect.infra;
+
+import com.hemelo.connect.constants.Caminhos;
+import com.hemelo.connect.enums.AlgoritmoHash;
+import com.hemelo.connect.utils.FileUtils;
+import com.hemelo.connect.utils.HashUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache de hashes de arquivos locais
+ * O hash de um arquivo só é recalculado se o caminho, o tamanho ou a data de modificação do arquivo mudarem
+ * <p>
+ * Os hashes são mantidos em memória com descarte dos menos utilizados (LRU) e gravados em disco,
+ * para que sobrevivam a reinicializações da aplicação
+ */
+public final class HashCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(HashCache.class);
+
+    private static final int TAMANHO_MAXIMO = 50_000;
+    private static final String SEPARADOR = "\t";
+
+    private static HashCache instance;
+
+    private final Path arquivoCache;
+    private final Map<String, Entrada> entradas;
+
+    private boolean alterado = false;
+
+    /**
+     * Construtor do cache
+     * @param arquivoCache arquivo onde o cache é gravado
+     * @param tamanhoMaximo quantidade máxima de hashes mantidos
+     */
+    HashCache(Path arquivoCache, int tamanhoMaximo) {
+        this.arquivoCache = arquivoCache;
+
+        // LinkedHashMap em ordem de acesso, descartando o hash utilizado há mais tempo ao atingir o tamanho máximo
+        this.entradas = new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entrada> eldest) {
+                return size() > tamanhoMaximo;
+            }
+        };
+    }
+
+    public static synchronized HashCache getInstance() {
+        if (instance == null) {
+            instance = new HashCache(Path.of(Caminhos.DIRETORIO_CACHE, "hashes.tsv"), TAMANHO_MAXIMO);
+            instance.carregar();
+        }
+
+        return instance;
+    }
+
+    /**
+     * Retorna o hash do arquivo, calculando-o somente se o arquivo mudou desde o último cálculo
+     * @param caminho caminho do arquivo
+     * @param algoritmo algoritmo de hash
+     * @return hash em hexadecimal minúsculo
+     * @throws IOException em caso de erro ao ler o arquivo
+     */
+    public String calcular(Path caminho, AlgoritmoHash algoritmo) throws IOException {
+
+        String canonico = caminho.toRealPath().toString();
+        BasicFileAttributes atributos = Files.readAttributes(caminho, BasicFileAttributes.class);
+        String chave = chave(canonico, algoritmo);
+
+        synchronized (this) {
+            Entrada entrada = entradas.get(chave);
+
+            if (entrada != null && entrada.confere(atributos)) {
+                return entrada.hash();
+            }
+        }
+
+        // O cálculo é feito fora do lock para não bloquear as demais threads enquanto o arquivo é lido
+        String hash = HashUtils.calcular(caminho, algoritmo);
+
+        synchronized (this) {
+            entradas.put(chave, new Entrada(atributos.size(), atributos.lastModifiedTime().toMillis(), hash));
+            alterado = true;
+        }
+
+        return hash;
+    }
+
+    /**
+     * Registra um hash já calculado, por exemplo durante o download do arquivo
+     * @param caminho caminho do arquivo
+     * @param algoritmo algoritmo de hash
+     * @param hash hash do arquivo
+     */
+    public void registrar(Path caminho, AlgoritmoHash algoritmo, String hash) {
+        try {
+            String canonico = caminho.toRealPath().toString();
+            BasicFileAttributes atributos = Files.readAttributes(caminho, BasicFileAttributes.class);
+
+            synchronized (this) {
+                entradas.put(chave(canonico, algoritmo), new Entrada(atributos.size(), atributos.lastModifiedTime().toMillis(), hash.toLowerCase()));
+                alterado = true;
+            }
+        } catch (IOException e) {
+            logger.debug("Erro ao registrar hash do arquivo " + caminho + " no cache", e);
+        }
+    }
+
+    /**
+     * Grava o cache em disco se houve alteração desde a última gravação
+     * A gravação é feita em um arquivo temporário que substitui o anterior, evitando um cache corrompido
+     */
+    public void salvar() {
+
+        StringBuilder conteudo = new StringBuilder();
+
+        synchronized (this) {
+            if (!alterado) return;
+
+            for (Map.Entry<String, Entrada> e : entradas.entrySet()) {
+                Entrada entrada = e.getValue();
+                conteudo.append(e.getKey()).append(SEPARADOR).append(entrada.tamanho()).append(SEPARADOR).append(entrada.modificadoEm()).append(SEPARADOR).append(entrada.hash()).append(System.lineSeparator());
+            }
+
+            alterado = false;
+        }
+
+        try {
+            FileUtils.createDirectoryIfNotExists(arquivoCache.getParent().toString());
+
+            Path temporario = arquivoCache.resolveSibling(arquivoCache.getFileName() + ".tmp");
+
+            try (BufferedWriter writer = Files.newBufferedWriter(temporario, StandardCharsets.UTF_8)) {
+                writer.write(conteudo.toString());
+            }
+
+            Files.move(temporario, arquivoCache, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            logger.trace("Cache de hashes gravado em " + arquivoCache);
+        } catch (IOException e) {
+            logger.error("Erro ao gravar o cache de hashes em " + arquivoCache, e);
+
+            synchronized (this) {
+                alterado = true;
+            }
+        }
+    }
+
+    public synchronized int getTamanho() {
+        return entradas.size();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Carrega o cache gravado em disco
+     * Linhas inválidas são ignoradas
+     */
+    void carregar() {
+
+        if (!Files.exists(arquivoCache)) return;
+
+        int carregados = 0;
+
+        try (BufferedReader reader = Files.newBufferedReader(arquivoCache, StandardCharsets.UTF_8)) {
+
+            String linha;
+
+            while ((linha = reader.readLine()) != null) {
+
+                // caminho, algoritmo, tamanho, data de modificação e hash
+                String[] campos = linha.split(SEPARADOR);
+
+                if (campos.length != 5) continue;
+
+                try {
+                    AlgoritmoHash algoritmo = AlgoritmoHash.valueOf(campos[1]);
+
+                    synchronized (this) {
+                        entradas.put(chave(campos[0], algoritmo), new Entrada(Long.parseLong(campos[2]), Long.parseLong(campos[3]), campos[4]));
+                    }
+
+                    carregados++;
+                } catch (IllegalArgumentException e) {
+                    logger.trace("Linha inválida no cache de hashes: " + linha);
+                }
+            }
+
+            logger.debug(String.format("%d hashes carregados do cache em %s", carregados, arquivoCache));
+        } catch (IOException e) {
+            logger.error("Erro ao carregar o cache de hashes de " + arquivoCache, e);
+        }
+    }
+
+    private static String chave(String caminhoCanonico, AlgoritmoHash algoritmo) {
+        return caminhoCanonico + SEPARADOR + algoritmo.name();
+    }
+
+    private record Entrada(long tamanho, long modificadoEm, String hash) {
+
+        boolean confere(BasicFileAttributes atributos) {
+            return tamanho == atributos.size() && modificadoEm == atributos.lastModifiedTime().toMillis();
+        }
+    }
+}
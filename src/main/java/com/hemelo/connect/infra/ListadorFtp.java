@@ -0,0 +1,599 @@
+package com.hemelo.connect.infra;
+
+import com.hemelo.connect.constants.Timings;
+import com.hemelo.connect.enums.EstrategiaListagem;
+import com.hemelo.connect.enums.TipoTarefa;
+import com.hemelo.connect.utils.ProcessaUtils;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPListParseEngine;
+import org.apache.commons.net.ftp.FTPReply;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lista a árvore de diretórios do FTP com a menor quantidade de comandos que o servidor permite
+ * <p>
+ * Tenta primeiro um único LIST -R, depois um MLSD por diretório e por fim um LIST por diretório, sempre com caminhos absolutos
+ * Quando o servidor não suporta uma estratégia, ela é abandonada e as próximas listagens já começam pela seguinte
+ * <p>
+ * Os recursos anunciados no FEAT ({@link CapacidadesFtp}) ajustam essa ordem: se o MLSD traz a data de modificação, ele é preferido
+ * ao LIST -R, pois as datas com segundos e os identificadores únicos tornam mais precisas a detecção de arquivos em transferência
+ * e a varredura incremental. Se o servidor anuncia que não suporta o MLSD, a tentativa é dispensada
+ * <p>
+ * As listagens LIST sempre informam o parser ao cliente, pois o Apache Commons Net reaproveita o último parser utilizado
+ * nas listagens sem parser informado
+ * <p>
+ * Nas estratégias por diretório a varredura pode ser incremental: a data de modificação de cada diretório listado é mantida,
+ * e um diretório cuja data não mudou não é listado novamente. Uma varredura completa é feita a cada
+ * {@link Timings#INTERVALO_VARREDURA_COMPLETA_FTP}, corrigindo o que a data de modificação não revela
+ * <p>
+ * As entradas não são mantidas: são entregues ao {@link ConsumidorListagem} em páginas, conforme o parser avança
+ */
+public final class ListadorFtp {
+
+    private static final Logger logger = LoggerFactory.getLogger(ListadorFtp.class);
+
+    // Chave do parser utilizada se o servidor não responder ao SYST
+    private static final String CHAVE_PARSER_PADRAO = "UNIX";
+
+    private static final long SEM_DATA = Long.MIN_VALUE;
+
+    // Retorno das estratégias quando o servidor não as suporta
+    private static final int NAO_SUPORTADO = -1;
+
+    // Quantidade de entradas convertidas e entregues de uma vez ao consumidor
+    private static final int TAMANHO_PAGINA = 500;
+
+    // Quantidade de diretórios mais lentos exibidos na descrição da última varredura
+    private static final int DIRETORIOS_RELATORIO = 5;
+
+    // Precisão da data de modificação dos diretórios no LIST. No MLSD o fato modify possui segundos
+    private static final Duration PRECISAO_MODIFICACAO = Duration.ofMinutes(1);
+    private static final Duration PRECISAO_MODIFICACAO_MLSD = Duration.ofSeconds(1);
+
+    private static ListadorFtp instance;
+
+    private volatile EstrategiaListagem estrategia;
+
+    // Última listagem de cada diretório, pelo caminho absoluto do diretório
+    private final Map<String, ListagemDiretorio> cache = new ConcurrentHashMap<>();
+    private final long intervaloVarreduraCompletaNanos;
+    private final long precisaoModificacaoNanos;
+    private volatile long ultimaVarreduraCompletaNanos;
+    private volatile boolean possuiVarreduraCompleta = false;
+    private volatile Varredura ultimaVarredura;
+    private volatile CapacidadesFtp capacidades;
+
+    /**
+     * @param estrategia primeira estratégia a ser tentada
+     */
+    public ListadorFtp(EstrategiaListagem estrategia) {
+        this(estrategia, Timings.INTERVALO_VARREDURA_COMPLETA_FTP);
+    }
+
+    /**
+     * @param estrategia primeira estratégia a ser tentada
+     * @param intervaloVarreduraCompleta intervalo entre as varreduras completas nas varreduras incrementais
+     */
+    public ListadorFtp(EstrategiaListagem estrategia, Duration intervaloVarreduraCompleta) {
+        this(estrategia, intervaloVarreduraCompleta, PRECISAO_MODIFICACAO);
+    }
+
+    ListadorFtp(EstrategiaListagem estrategia, Duration intervaloVarreduraCompleta, Duration precisaoModificacao) {
+        this.estrategia = estrategia;
+        this.intervaloVarreduraCompletaNanos = intervaloVarreduraCompleta.toNanos();
+        this.precisaoModificacaoNanos = precisaoModificacao.toNanos();
+    }
+
+    public static synchronized ListadorFtp getInstance() {
+        if (instance == null) {
+            instance = new ListadorFtp(EstrategiaListagem.LIST_RECURSIVO);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Estratégia utilizada pelas próximas listagens
+     */
+    public EstrategiaListagem getEstrategia() {
+        return estrategia;
+    }
+
+    /**
+     * Lista as entradas de cada diretório imediatamente abaixo do diretório base, listando todos os diretórios
+     * @param sessao sessão utilizada nas listagens
+     * @param base caminho absoluto do diretório base
+     * @return entradas de cada diretório, pelo nome do diretório, na ordem em que o servidor listou os diretórios
+     * @throws IOException se o servidor recusar a listagem do diretório base ou ocorrer erro de comunicação
+     */
+    public Map<String, List<FTPFile>> listar(FTPSession sessao, String base) throws IOException {
+        return listar(sessao, base, null);
+    }
+
+    /**
+     * Lista as entradas de cada diretório imediatamente abaixo do diretório base, de forma incremental
+     * Os diretórios sem alteração desde a última listagem não são listados e não fazem parte do resultado
+     * @param sessao sessão utilizada nas listagens
+     * @param base caminho absoluto do diretório base
+     * @param relistar nomes dos diretórios que devem ser listados mesmo sem alteração, nulo para listar todos
+     * @return entradas de cada diretório listado, pelo nome do diretório, na ordem em que o servidor listou os diretórios
+     * @throws IOException se o servidor recusar a listagem do diretório base ou ocorrer erro de comunicação
+     */
+    public Map<String, List<FTPFile>> listar(FTPSession sessao, String base, Set<String> relistar) throws IOException {
+        final Map<String, List<FTPFile>> resultado = new LinkedHashMap<>();
+        listar(sessao, null, 1, base, relistar, (diretorio, pagina) -> resultado.computeIfAbsent(diretorio, k -> new ArrayList<>()).addAll(pagina));
+        return resultado;
+    }
+
+    /**
+     * Lista as entradas de cada diretório imediatamente abaixo do diretório base, de forma incremental,
+     * entregando as entradas ao consumidor em páginas, conforme cada diretório é listado
+     * <p>
+     * Nas estratégias por diretório, as listagens são distribuídas entre a sessão informada e as sessões ociosas do pool,
+     * até o paralelismo informado. Sessões em uso por downloads não são aguardadas e nenhuma sessão nova é aberta
+     * O consumidor é chamado concorrentemente pelas sessões, mas um diretório é sempre entregue por uma única sessão
+     * @param sessao sessão utilizada na listagem do diretório base e nas listagens por diretório
+     * @param pool pool de onde são emprestadas as sessões adicionais, nulo para utilizar somente a sessão informada
+     * @param paralelismo quantidade máxima de sessões listando ao mesmo tempo
+     * @param base caminho absoluto do diretório base
+     * @param relistar nomes dos diretórios que devem ser listados mesmo sem alteração, nulo para listar todos
+     * @param consumidor recebe as páginas de entradas dos diretórios listados e os diretórios sem alteração
+     * @return quantidade de diretórios encontrados
+     * @throws IOException se o servidor recusar a listagem do diretório base ou ocorrer erro de comunicação
+     */
+    public int listar(FTPSession sessao, FTPConnectionPool pool, int paralelismo, String base, Set<String> relistar, ConsumidorListagem consumidor) throws IOException {
+
+        final CapacidadesFtp recursos = CapacidadesFtp.obter(sessao.getClient());
+        capacidades = recursos;
+
+        if (estrategia == EstrategiaListagem.LIST_RECURSIVO && recursos.isMlsdComDatas()) {
+            logger.info(String.format("O FTP anuncia o MLST com datas de modificação. As listagens passarão a utilizar %s", EstrategiaListagem.MLSD));
+            estrategia = EstrategiaListagem.MLSD;
+        }
+
+        EstrategiaListagem atual = estrategia;
+
+        final boolean completa = relistar == null || !possuiVarreduraCompleta || System.nanoTime() - ultimaVarreduraCompletaNanos >= intervaloVarreduraCompletaNanos;
+
+        while (true) {
+
+            long inicio = System.nanoTime();
+            Varredura varredura = new Varredura(atual, consumidor);
+
+            int diretorios = switch (atual) {
+                case LIST_RECURSIVO -> listarRecursivo(sessao, base, varredura);
+                case MLSD -> listarPorDiretorio(sessao, pool, paralelismo, base, true, completa ? null : relistar, varredura);
+                case LIST_POR_DIRETORIO -> listarPorDiretorio(sessao, pool, paralelismo, base, false, completa ? null : relistar, varredura);
+            };
+
+            if (diretorios != NAO_SUPORTADO) {
+
+                // O LIST -R sempre traz a árvore inteira, portanto toda listagem recursiva é completa
+                if (completa || atual == EstrategiaListagem.LIST_RECURSIVO) {
+                    ultimaVarreduraCompletaNanos = inicio;
+                    possuiVarreduraCompleta = true;
+                }
+
+                varredura.finalizar(inicio, diretorios);
+                ultimaVarredura = varredura;
+
+                logger.debug(String.format("%d diretórios listados em %s via %s em %d ms", diretorios, base, atual, varredura.duracaoMs));
+                return diretorios;
+            }
+
+            EstrategiaListagem alternativa = atual.getAlternativa();
+
+            if (alternativa == EstrategiaListagem.MLSD && recursos.isMlsdNaoSuportado()) {
+                alternativa = alternativa.getAlternativa();
+            }
+
+            logger.warn(String.format("O FTP não suporta a listagem via %s. As listagens passarão a utilizar %s", atual, alternativa));
+            logger.debug(String.format("Última resposta do FTP: %s", sessao.getClient().getReplyString().trim()));
+
+            estrategia = alternativa;
+            atual = alternativa;
+        }
+    }
+
+    /**
+     * Descrição da última varredura, com os diretórios mais lentos, para monitoramento
+     */
+    public StringBuilder descrever() {
+        StringBuilder sb = new StringBuilder();
+        Varredura varredura = ultimaVarredura;
+
+        if (varredura == null) {
+            return sb.append("Nenhuma varredura do FTP realizada").append(System.lineSeparator());
+        }
+
+        sb.append("🔎 Recursos do FTP: ").append(capacidades).append(System.lineSeparator());
+
+        sb.append("📂 Última varredura via ").append(varredura.estrategia).append(": ")
+                .append(varredura.diretorios).append(" diretórios em ").append(varredura.duracaoMs).append(" ms com ")
+                .append(varredura.sessoes.get()).append(" sessões, ").append(varredura.reaproveitados.get()).append(" sem alteração")
+                .append(System.lineSeparator());
+
+        varredura.latencias.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(DIRETORIOS_RELATORIO)
+                .forEach(e -> sb.append("🐢 ").append(e.getKey()).append(": ").append(e.getValue()).append(" ms").append(System.lineSeparator()));
+
+        return sb;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Lista a árvore inteira com um único LIST -R
+     * As entradas de cada diretório são entregues em páginas conforme o parser avança
+     * @return quantidade de diretórios, {@link #NAO_SUPORTADO} se o servidor não suporta a listagem recursiva
+     */
+    private int listarRecursivo(FTPSession sessao, String base, Varredura varredura) throws IOException {
+
+        final org.apache.commons.net.ftp.FTPClient client = sessao.getClient();
+        final FTPListParseEngine engine = client.initiateListParsing(ParserListagemRecursiva.class.getName(), "-R " + base);
+
+        if (isNaoSuportado(client.getReplyCode())) return NAO_SUPORTADO;
+
+        verificarResposta(client, base);
+
+        final String raiz = normalizar(base);
+
+        // Página em preenchimento de cada diretório imediatamente abaixo do base, na ordem em que foram encontrados
+        final Map<String, List<FTPFile>> paginas = new LinkedHashMap<>();
+        final Set<String> entregues = new HashSet<>();
+        boolean possuiCabecalhos = false;
+
+        while (engine.hasNext()) {
+            for (FTPFile entrada : engine.getNext(TAMANHO_PAGINA)) {
+
+                if (entrada == null) continue;
+
+                final String nome = entrada.getName();
+
+                if (nome.endsWith(ParserListagemRecursiva.SUFIXO_CABECALHO)) {
+                    possuiCabecalhos = true;
+
+                    String diretorio = getFilho(raiz, resolver(raiz, nome.substring(0, nome.length() - 1)));
+                    if (diretorio != null) paginas.computeIfAbsent(diretorio, k -> new ArrayList<>());
+                    continue;
+                }
+
+                final int separador = nome.lastIndexOf('/');
+                final String caminho = separador < 0 ? raiz : resolver(raiz, nome.substring(0, separador));
+
+                if (separador >= 0) {
+                    entrada.setName(nome.substring(separador + 1));
+                }
+
+                if (caminho.equals(raiz)) {
+                    if (entrada.isDirectory()) paginas.computeIfAbsent(entrada.getName(), k -> new ArrayList<>());
+                    continue;
+                }
+
+                // Somente os diretórios imediatamente abaixo do base interessam, os níveis seguintes são descartados
+                final String diretorio = getFilho(raiz, caminho);
+
+                if (diretorio == null) continue;
+
+                final List<FTPFile> pagina = paginas.computeIfAbsent(diretorio, k -> new ArrayList<>());
+                pagina.add(entrada);
+
+                if (pagina.size() >= TAMANHO_PAGINA) {
+                    varredura.consumidor.aoListar(diretorio, pagina);
+                    entregues.add(diretorio);
+                    paginas.put(diretorio, new ArrayList<>());
+                }
+            }
+        }
+
+        // Sem nenhum cabeçalho, o servidor ignorou o -R e listou somente o diretório base. Nenhuma página foi entregue nesse caso
+        if (!possuiCabecalhos && !paginas.isEmpty()) return NAO_SUPORTADO;
+
+        paginas.forEach((diretorio, pagina) -> {
+            if (!pagina.isEmpty() || !entregues.contains(diretorio)) varredura.consumidor.aoListar(diretorio, pagina);
+        });
+
+        return paginas.size();
+    }
+
+    /**
+     * Lista o diretório base e depois cada diretório abaixo dele, com MLSD ou LIST
+     * @param relistar diretórios listados mesmo sem alteração na varredura incremental, nulo para uma varredura completa
+     * @return quantidade de diretórios, {@link #NAO_SUPORTADO} se o servidor não suporta o MLSD
+     */
+    private int listarPorDiretorio(FTPSession sessao, FTPConnectionPool pool, int paralelismo, String base, boolean mlsd, Set<String> relistar, Varredura varredura) throws IOException {
+
+        final org.apache.commons.net.ftp.FTPClient client = sessao.getClient();
+        final FTPFile[] diretorios = listarDiretorio(client, base, mlsd);
+
+        if (mlsd && isNaoSuportado(client.getReplyCode())) return NAO_SUPORTADO;
+
+        verificarResposta(client, base);
+
+        final String raiz = normalizar(base);
+        final Set<String> nomes = new HashSet<>();
+        final Queue<FTPFile> pendentes = new ConcurrentLinkedQueue<>();
+
+        for (FTPFile diretorio : diretorios) {
+
+            if (diretorio == null || !diretorio.isDirectory() || isEspecial(diretorio.getName())) continue;
+
+            nomes.add(diretorio.getName());
+
+            final ListagemDiretorio anterior = cache.get(normalizar(raiz + "/" + diretorio.getName()));
+
+            if (relistar != null && !relistar.contains(diretorio.getName()) && anterior != null && anterior.isReaproveitavel(getModificacao(diretorio))) {
+                varredura.consumidor.aoReaproveitar(diretorio.getName());
+                varredura.reaproveitados.incrementAndGet();
+                continue;
+            }
+
+            pendentes.add(diretorio);
+        }
+
+        // As sessões adicionais só são emprestadas se houver mais de um diretório para cada sessão
+        final List<Future<?>> auxiliares = new ArrayList<>();
+
+        for (int i = 1; pool != null && i < Math.min(paralelismo, pendentes.size()); i++) {
+            auxiliares.add(ProcessaUtils.submeterTarefa(TipoTarefa.LISTAGEM, "Listagem FTP " + i, () -> listarComSessaoOciosa(pool, raiz, mlsd, pendentes, varredura)));
+        }
+
+        try {
+            listarPendentes(client, raiz, mlsd, pendentes, varredura);
+        } catch (IOException | RuntimeException e) {
+            // As sessões adicionais param após o diretório atual
+            pendentes.clear();
+            aguardar(auxiliares);
+            throw e;
+        }
+
+        aguardar(auxiliares);
+
+        // Diretórios devolvidos à fila por sessões adicionais que falharam
+        listarPendentes(client, raiz, mlsd, pendentes, varredura);
+
+        // Descarta as listagens dos diretórios que não existem mais
+        cache.keySet().removeIf(caminho -> caminho.startsWith(raiz + "/") && !nomes.contains(caminho.substring(raiz.length() + 1)));
+
+        if (relistar != null) {
+            logger.info(String.format("Varredura incremental do FTP: %d diretórios listados, %d sem alteração", nomes.size() - varredura.reaproveitados.get(), varredura.reaproveitados.get()));
+        }
+
+        return nomes.size();
+    }
+
+    /**
+     * Lista os diretórios pendentes com uma sessão ociosa do pool, se houver
+     */
+    private void listarComSessaoOciosa(FTPConnectionPool pool, String raiz, boolean mlsd, Queue<FTPFile> pendentes, Varredura varredura) {
+
+        if (pendentes.isEmpty()) return;
+
+        final FTPSession sessao = pool.borrowOciosa().orElse(null);
+
+        if (sessao == null) return;
+
+        try {
+            varredura.sessoes.incrementAndGet();
+            listarPendentes(sessao.getClient(), raiz, mlsd, pendentes, varredura);
+        } catch (Exception e) {
+            logger.debug("Sessão adicional da varredura do FTP encerrada: " + e.getMessage());
+
+            // A conexão de controle pode ter ficado dessincronizada, portanto a sessão não volta para o pool
+            sessao.invalidar();
+        } finally {
+            sessao.close();
+        }
+    }
+
+    /**
+     * Lista os diretórios da fila até esvaziá-la
+     * Em caso de erro de comunicação o diretório volta para a fila, para ser listado por outra sessão
+     */
+    private void listarPendentes(org.apache.commons.net.ftp.FTPClient client, String raiz, boolean mlsd, Queue<FTPFile> pendentes, Varredura varredura) throws IOException {
+
+        FTPFile diretorio;
+
+        while ((diretorio = pendentes.poll()) != null) {
+
+            final String caminho = normalizar(raiz + "/" + diretorio.getName());
+            final long modificacao = getModificacao(diretorio);
+            final ListagemDiretorio anterior = cache.get(caminho);
+            final long listadoEm = System.nanoTime();
+            final long precisao = mlsd ? Math.min(precisaoModificacaoNanos, PRECISAO_MODIFICACAO_MLSD.toNanos()) : precisaoModificacaoNanos;
+            final FTPListParseEngine engine;
+
+            try {
+                engine = iniciarListagem(client, caminho, mlsd);
+            } catch (IOException e) {
+                pendentes.add(diretorio);
+                throw e;
+            }
+
+            if (FTPReply.isPositiveCompletion(client.getReplyCode())) {
+                final boolean confirmada = anterior != null && anterior.modificacao() == modificacao && listadoEm - anterior.listadoEm() >= precisao;
+                cache.put(caminho, new ListagemDiretorio(modificacao, listadoEm, confirmada));
+            } else {
+                cache.remove(caminho);
+                logger.warn(String.format("Erro ao listar o diretório %s do FTP: %s", caminho, client.getReplyString().trim()));
+            }
+
+            // As entradas são convertidas e entregues uma página por vez
+            int entradas = 0;
+
+            do {
+                final List<FTPFile> pagina = new ArrayList<>();
+
+                for (FTPFile entrada : engine.getNext(TAMANHO_PAGINA)) {
+                    if (entrada != null && !isEspecial(entrada.getName())) pagina.add(entrada);
+                }
+
+                entradas += pagina.size();
+                varredura.consumidor.aoListar(diretorio.getName(), pagina);
+            } while (engine.hasNext());
+
+            final long latenciaMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - listadoEm);
+            varredura.latencias.put(diretorio.getName(), latenciaMs);
+            logger.trace(String.format("Diretório %s listado em %d ms com %d entradas", caminho, latenciaMs, entradas));
+        }
+    }
+
+    /**
+     * Aguarda as sessões adicionais finalizarem
+     */
+    private static void aguardar(List<Future<?>> auxiliares) {
+        for (Future<?> auxiliar : auxiliares) {
+            try {
+                auxiliar.get();
+            } catch (ExecutionException e) {
+                logger.warn("Erro em uma sessão adicional da varredura do FTP", e.getCause());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private static FTPFile[] listarDiretorio(org.apache.commons.net.ftp.FTPClient client, String caminho, boolean mlsd) throws IOException {
+        return iniciarListagem(client, caminho, mlsd).getFiles();
+    }
+
+    /**
+     * Envia o MLSD ou LIST e retorna o parser da resposta, que converte as linhas em entradas sob demanda
+     * O Apache Commons Net lê as linhas da resposta por inteiro ao iniciar a listagem, somente a conversão é paginada
+     */
+    private static FTPListParseEngine iniciarListagem(org.apache.commons.net.ftp.FTPClient client, String caminho, boolean mlsd) throws IOException {
+        return mlsd ? client.initiateMListParsing(caminho) : client.initiateListParsing(getChaveParser(client), caminho);
+    }
+
+    /**
+     * Chave do parser do sistema do servidor, a mesma que o cliente utiliza quando nenhum parser é informado
+     */
+    private static String getChaveParser(org.apache.commons.net.ftp.FTPClient client) {
+        try {
+            return Objects.requireNonNullElse(client.getSystemType(), CHAVE_PARSER_PADRAO);
+        } catch (IOException e) {
+            return CHAVE_PARSER_PADRAO;
+        }
+    }
+
+    private static void verificarResposta(org.apache.commons.net.ftp.FTPClient client, String caminho) throws IOException {
+        if (!FTPReply.isPositiveCompletion(client.getReplyCode())) {
+            throw new IOException(String.format("O FTP recusou a listagem de %s: %s", caminho, client.getReplyString().trim()));
+        }
+    }
+
+    /**
+     * Respostas que indicam que o servidor não reconhece o comando ou seus parâmetros
+     */
+    private static boolean isNaoSuportado(int codigo) {
+        return codigo == FTPReply.UNRECOGNIZED_COMMAND
+                || codigo == FTPReply.SYNTAX_ERROR_IN_ARGUMENTS
+                || codigo == FTPReply.COMMAND_NOT_IMPLEMENTED
+                || codigo == FTPReply.COMMAND_NOT_IMPLEMENTED_FOR_PARAMETER;
+    }
+
+    /**
+     * Última listagem de um diretório
+     * @param modificacao data de modificação do diretório no momento da listagem
+     * @param listadoEm instante da listagem, em {@link System#nanoTime()}
+     * @param confirmada se a listagem anterior, feita ao menos a precisão da data antes, tinha a mesma data
+     */
+    private record ListagemDiretorio(long modificacao, long listadoEm, boolean confirmada) {
+
+        /**
+         * A listagem só é reaproveitada se a data de modificação foi confirmada por duas listagens
+         * Como a data é truncada, um arquivo criado logo após uma listagem pode não alterá-la, mas uma listagem feita
+         * depois da precisão da data já contém o arquivo, e qualquer alteração posterior muda a data
+         */
+        boolean isReaproveitavel(long modificacaoAtual) {
+            return confirmada && modificacaoAtual != SEM_DATA && modificacaoAtual == modificacao;
+        }
+    }
+
+    /**
+     * Estado de uma varredura, compartilhado entre as sessões que listam os diretórios
+     */
+    private static final class Varredura {
+
+        private final EstrategiaListagem estrategia;
+        private final ConsumidorListagem consumidor;
+
+        // Latência da listagem de cada diretório listado, pelo nome do diretório
+        private final Map<String, Long> latencias = new ConcurrentHashMap<>();
+        private final AtomicInteger reaproveitados = new AtomicInteger();
+        private final AtomicInteger sessoes = new AtomicInteger(1);
+        private volatile long duracaoMs;
+        private volatile int diretorios;
+
+        private Varredura(EstrategiaListagem estrategia, ConsumidorListagem consumidor) {
+            this.estrategia = estrategia;
+            this.consumidor = consumidor;
+        }
+
+        private void finalizar(long inicio, int diretorios) {
+
+            this.duracaoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio);
+            this.diretorios = diretorios;
+
+            latencias.entrySet().stream().max(Map.Entry.comparingByValue()).ifPresent(maisLento ->
+                    logger.info(String.format("Varredura do FTP via %s em %d ms com %d sessões. %d diretórios listados, o mais lento %s em %d ms (soma de %d ms)",
+                            estrategia, duracaoMs, sessoes.get(), latencias.size(), maisLento.getKey(), maisLento.getValue(),
+                            latencias.values().stream().mapToLong(Long::longValue).sum())));
+        }
+    }
+
+    /**
+     * Nome do diretório imediatamente abaixo da raiz que contém o caminho, nulo se o caminho estiver em um nível abaixo
+     */
+    private static String getFilho(String raiz, String caminho) {
+
+        if (!caminho.startsWith(raiz + "/")) return null;
+
+        final String relativo = caminho.substring(raiz.length() + 1);
+        return relativo.isEmpty() || relativo.contains("/") ? null : relativo;
+    }
+
+    private static long getModificacao(FTPFile diretorio) {
+        return diretorio.getTimestamp() != null ? diretorio.getTimestamp().getTimeInMillis() : SEM_DATA;
+    }
+
+    private static boolean isEspecial(String nome) {
+        return ".".equals(nome) || "..".equals(nome);
+    }
+
+    /**
+     * Resolve o cabeçalho de um diretório da listagem recursiva, que pode ser absoluto ou relativo ao diretório base
+     */
+    private static String resolver(String raiz, String cabecalho) {
+
+        if (cabecalho.isEmpty() || ".".equals(cabecalho)) return raiz;
+
+        if (cabecalho.startsWith("/")) return normalizar(cabecalho);
+
+        return normalizar(raiz + "/" + (cabecalho.startsWith("./") ? cabecalho.substring(2) : cabecalho));
+    }
+
+    private static String normalizar(String caminho) {
+
+        String normalizado = caminho.replaceAll("/{2,}", "/");
+
+        while (normalizado.length() > 1 && normalizado.endsWith("/")) {
+            normalizado = normalizado.substring(0, normalizado.length() - 1);
+        }
+
+        return normalizado;
+    }
+}
@@ -3,6 +3,7 @@ package com.hemelo.connect.infra;
 import com.hemelo.connect.Main;
 import com.hemelo.connect.MainAux;
 import com.hemelo.connect.dao.GenericDao;
+import com.hemelo.connect.enums.TipoTarefa;
 import com.hemelo.connect.enums.TopicEmail;
 import com.hemelo.connect.exception.ConexaoException;
 import com.hemelo.connect.utils.ProcessaUtils;
@@ -15,6 +16,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 public class Mailer {
@@ -40,9 +42,9 @@ public class Mailer {
      * Envia um email
      * @param topic topic do email
      * @param body corpo do email
-     * @return Thread
+     * @return Future do envio
      */
-    public Thread sendMail(TopicEmail topic, String body) {
+    public Future<?> sendMail(TopicEmail topic, String body) {
         return this.sendMail(topic, body, null, null);
     }
 
@@ -51,9 +53,9 @@ public class Mailer {
      * @param topic topic do email
      * @param body corpo do email
      * @param anexos lista de arquivos anexos
-     * @return Thread
+     * @return Future do envio
      */
-    public Thread sendMail(TopicEmail topic, String body, List<File> anexos) {
+    public Future<?> sendMail(TopicEmail topic, String body, List<File> anexos) {
         return this.sendMail(topic, body, anexos, null);
     }
 
@@ -63,11 +65,11 @@ public class Mailer {
      * @param body corpo do email
      * @param anexos lista de arquivos anexos
      * @param destinatarios lista de destinatarios
-     * @return Thread
+     * @return Future do envio
      */
-    public Thread sendMail(TopicEmail topic, String body, List<File> anexos, List<String> destinatarios) {
+    public Future<?> sendMail(TopicEmail topic, String body, List<File> anexos, List<String> destinatarios) {
         // Enviar email assincrono
-        return ProcessaUtils.createThread("Mailer", () -> {
+        return ProcessaUtils.submeterTarefa(TipoTarefa.EMAIL, "Mailer " + topic, () -> {
 
             if (properties.isEmpty()) {
                 logger.error("Não é possível enviar o email pois as propriedades não foram configuradas corretamente");
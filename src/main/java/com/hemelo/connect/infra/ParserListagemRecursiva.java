@@ -0,0 +1,64 @@
+package com.hemelo.connect.infra;
+
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.commons.net.ftp.FTPFileEntryParserImpl;
+import org.apache.commons.net.ftp.parser.UnixFTPEntryParser;
+
+import java.util.List;
+
+/**
+ * Parser da saída do LIST -R, no formato do ls -R de servidores Unix
+ * <p>
+ * A saída intercala cabeçalhos de diretório ("/caminho/diretorio:") com as entradas de cada diretório
+ * Como o FTPFile não possui o diretório da entrada, o nome de cada entrada é prefixado com o cabeçalho do seu diretório,
+ * e cada cabeçalho gera uma entrada marcadora com o nome terminado em {@link #SUFIXO_CABECALHO}
+ * <p>
+ * É instanciado pelo Apache Commons Net a partir do nome da classe, portanto precisa de um construtor público sem parâmetros
+ */
+public class ParserListagemRecursiva extends FTPFileEntryParserImpl {
+
+    static final String SUFIXO_CABECALHO = "/";
+
+    private final UnixFTPEntryParser unix = new UnixFTPEntryParser();
+
+    // Cabeçalho do diretório das próximas entradas, vazio para as entradas anteriores ao primeiro cabeçalho
+    private String diretorio = "";
+
+    public ParserListagemRecursiva() {
+    }
+
+    @Override
+    public List<String> preParse(List<String> original) {
+        // O parser é reaproveitado pelo cliente entre listagens, e o preParse é chamado uma vez no início de cada uma
+        diretorio = "";
+        original.removeIf(String::isBlank);
+        return unix.preParse(original);
+    }
+
+    @Override
+    public FTPFile parseFTPEntry(String entrada) {
+
+        FTPFile file = unix.parseFTPEntry(entrada);
+
+        if (file == null) {
+
+            if (!entrada.endsWith(":")) return null;
+
+            diretorio = entrada.substring(0, entrada.length() - 1);
+
+            FTPFile cabecalho = new FTPFile();
+            cabecalho.setRawListing(entrada);
+            cabecalho.setType(FTPFile.DIRECTORY_TYPE);
+            cabecalho.setName(diretorio + SUFIXO_CABECALHO);
+            return cabecalho;
+        }
+
+        if (".".equals(file.getName()) || "..".equals(file.getName())) return null;
+
+        if (!diretorio.isEmpty()) {
+            file.setName(diretorio + "/" + file.getName());
+        }
+
+        return file;
+    }
+}
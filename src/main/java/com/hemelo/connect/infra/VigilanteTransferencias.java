@@ -0,0 +1,334 @@
+package com.hemelo.connect.infra;
+
+import com.hemelo.connect.constants.Sizes;
+import com.hemelo.connect.constants.Timings;
+import com.hemelo.connect.utils.ContadorBytesInputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Acompanha todas as transferências em andamento em uma única thread, utilizando uma roda de tempo (hashed timer wheel)
+ * <p>
+ * Cada transferência é verificada somente no seu próximo prazo: o próximo relatório de progresso ou o limite sem progresso
+ * Entre os prazos a transferência não custa nada à thread do vigilante
+ * <p>
+ * Uma transferência que fica sem receber bytes por {@link Timings#TEMPO_LIMITE_SEM_PROGRESSO_DOWNLOAD} é abortada, fechando os streams vinculados a ela
+ * A duração total não é limitada, pois um arquivo grande em um link lento pode levar muito tempo recebendo bytes normalmente
+ */
+public final class VigilanteTransferencias {
+
+    private static final Logger logger = LoggerFactory.getLogger(VigilanteTransferencias.class);
+
+    private static final Duration DURACAO_TICK = Duration.ofSeconds(1);
+
+    // Quantidade de posições da roda, potência de 2. Prazos além de uma volta aguardam as voltas seguintes na mesma posição
+    private static final int POSICOES_RODA = 64;
+
+    private static VigilanteTransferencias instance;
+
+    private final long duracaoTickNanos;
+    private final long limiteSemProgressoNanos;
+    private final long intervaloRelatorioNanos;
+
+    // Acessada somente pela thread do vigilante
+    private final List<Agendamento>[] roda;
+    private long tickAtual;
+
+    private final Queue<Agendamento> novosAgendamentos = new ConcurrentLinkedQueue<>();
+    private final Set<Transferencia> transferencias = ConcurrentHashMap.newKeySet();
+
+    private long inicioNanos;
+    private Thread thread;
+
+    @SuppressWarnings("unchecked")
+    VigilanteTransferencias(Duration duracaoTick, Duration limiteSemProgresso, Duration intervaloRelatorio) {
+        this.duracaoTickNanos = duracaoTick.toNanos();
+        this.limiteSemProgressoNanos = limiteSemProgresso.toNanos();
+        this.intervaloRelatorioNanos = intervaloRelatorio.toNanos();
+        this.roda = new List[POSICOES_RODA];
+
+        for (int i = 0; i < POSICOES_RODA; i++) {
+            roda[i] = new ArrayList<>();
+        }
+    }
+
+    public static synchronized VigilanteTransferencias getInstance() {
+        if (instance == null) {
+            instance = new VigilanteTransferencias(DURACAO_TICK, Timings.TEMPO_LIMITE_SEM_PROGRESSO_DOWNLOAD, Timings.INTERVALO_PROGRESSO_DOWNLOAD);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Passa a acompanhar uma transferência
+     * @param descricao descrição da transferência, utilizada nos logs
+     * @param bytesEsperados quantidade de bytes esperada, utilizada para o percentual de progresso
+     * @return transferência, que deve ser fechada ao terminar
+     */
+    public Transferencia registrar(String descricao, long bytesEsperados) {
+
+        iniciar();
+
+        Transferencia transferencia = new Transferencia(descricao, bytesEsperados);
+        transferencias.add(transferencia);
+        novosAgendamentos.add(new Agendamento(transferencia, transferencia.proximoPrazo()));
+
+        return transferencia;
+    }
+
+    public Collection<Transferencia> getTransferencias() {
+        return Collections.unmodifiableCollection(transferencias);
+    }
+
+    /**
+     * Descrição das transferências em andamento, para monitoramento
+     */
+    public StringBuilder descrever() {
+        StringBuilder sb = new StringBuilder();
+
+        if (transferencias.isEmpty()) {
+            sb.append("Nenhuma transferência em andamento").append(System.lineSeparator());
+        }
+
+        transferencias.forEach(t -> sb.append("📥 ").append(t.descrever()).append(System.lineSeparator()));
+
+        return sb;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private synchronized void iniciar() {
+
+        if (thread != null) return;
+
+        inicioNanos = System.nanoTime();
+
+        // A thread somente observa as transferências, portanto não impede o encerramento da aplicação
+        thread = new Thread(this::executar, "Thread - Vigilante Transferencias");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void executar() {
+
+        List<Agendamento> vencidos = new ArrayList<>();
+
+        while (!Thread.currentThread().isInterrupted()) {
+
+            aguardarTick(tickAtual + 1);
+            tickAtual++;
+
+            Agendamento novo;
+
+            while ((novo = novosAgendamentos.poll()) != null) {
+                posicionar(novo);
+            }
+
+            // Somente os agendamentos desta volta da roda vencem, os demais permanecem na posição
+            Iterator<Agendamento> posicao = roda[(int) (tickAtual & (POSICOES_RODA - 1))].iterator();
+
+            while (posicao.hasNext()) {
+                Agendamento agendamento = posicao.next();
+
+                if (agendamento.tick <= tickAtual) {
+                    posicao.remove();
+                    vencidos.add(agendamento);
+                }
+            }
+
+            for (Agendamento agendamento : vencidos) {
+                try {
+                    verificar(agendamento.transferencia);
+                } catch (RuntimeException e) {
+                    logger.error(String.format("Erro inesperado ao verificar a transferência %s", agendamento.transferencia.descricao), e);
+                }
+            }
+
+            vencidos.clear();
+        }
+    }
+
+    private void aguardarTick(long tick) {
+
+        long restante;
+
+        while ((restante = inicioNanos + tick * duracaoTickNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(this, restante);
+        }
+    }
+
+    private void posicionar(Agendamento agendamento) {
+        // Um prazo que já passou é verificado no tick seguinte
+        long tick = Math.max(agendamento.tick, tickAtual + 1);
+        roda[(int) (tick & (POSICOES_RODA - 1))].add(new Agendamento(agendamento.transferencia, tick));
+    }
+
+    private long paraTick(long nanos) {
+        long desdeInicio = nanos - inicioNanos;
+        return desdeInicio <= 0 ? 0 : (desdeInicio + duracaoTickNanos - 1) / duracaoTickNanos;
+    }
+
+    /**
+     * Aborta a transferência se ficou sem progresso pelo tempo limite, relata o progresso se chegou a hora e agenda o próximo prazo
+     */
+    private void verificar(Transferencia transferencia) {
+
+        if (transferencia.finalizada) return;
+
+        long agora = System.nanoTime();
+
+        if (agora - transferencia.ultimoProgressoNanos >= limiteSemProgressoNanos) {
+            transferencia.abortar(String.format("nenhum byte recebido em %d ms", TimeUnit.NANOSECONDS.toMillis(agora - transferencia.ultimoProgressoNanos)));
+            return;
+        }
+
+        if (agora - transferencia.ultimoRelatorioNanos >= intervaloRelatorioNanos) {
+            transferencia.relatar(agora);
+        }
+
+        posicionar(new Agendamento(transferencia, transferencia.proximoPrazo()));
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private record Agendamento(Transferencia transferencia, long tick) {}
+
+    /**
+     * Transferência acompanhada pelo vigilante
+     * Os bytes recebidos são informados pelo stream retornado em {@link #monitorar(InputStream)}
+     */
+    public final class Transferencia implements AutoCloseable {
+
+        private final String descricao;
+        private final long bytesEsperados;
+        private final long inicioNanos = System.nanoTime();
+        private final AtomicLong bytes = new AtomicLong();
+
+        private final List<Closeable> recursos = new CopyOnWriteArrayList<>();
+
+        private volatile long ultimoProgressoNanos = inicioNanos;
+        private volatile boolean finalizada = false;
+        private volatile String motivoAborto;
+
+        // Acessados somente pela thread do vigilante
+        private long ultimoRelatorioNanos = inicioNanos;
+        private long bytesUltimoRelatorio = 0;
+
+        private Transferencia(String descricao, long bytesEsperados) {
+            this.descricao = descricao;
+            this.bytesEsperados = bytesEsperados;
+        }
+
+        /**
+         * Envolve o stream de entrada da transferência para contar os bytes recebidos
+         * O stream retornado é fechado se a transferência for abortada
+         */
+        public InputStream monitorar(InputStream inputStream) {
+            InputStream monitorado = new ContadorBytesInputStream(inputStream, this::registrarBytes);
+            vincular(monitorado);
+            return monitorado;
+        }
+
+        /**
+         * Vincula um recurso a ser fechado se a transferência for abortada
+         */
+        public void vincular(Closeable recurso) {
+            recursos.add(recurso);
+
+            // Se a transferência já foi abortada, o recurso é fechado imediatamente
+            if (motivoAborto != null) fecharRecursos();
+        }
+
+        public void registrarBytes(long quantidade) {
+            bytes.addAndGet(quantidade);
+            ultimoProgressoNanos = System.nanoTime();
+        }
+
+        public long getBytes() {
+            return bytes.get();
+        }
+
+        public boolean isAbortada() {
+            return motivoAborto != null;
+        }
+
+        public String getMotivoAborto() {
+            return motivoAborto;
+        }
+
+        /**
+         * Encerra o acompanhamento da transferência
+         */
+        @Override
+        public void close() {
+            finalizada = true;
+            recursos.clear();
+            transferencias.remove(this);
+        }
+
+        /**
+         * Descrição da transferência em uma linha
+         */
+        public String descrever() {
+
+            long decorridoMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicioNanos);
+            long recebidos = bytes.get();
+
+            return String.format("%s: %d de %d bytes (%d%%), %d KB/s em média, %d ms decorridos", descricao, recebidos, bytesEsperados,
+                    bytesEsperados > 0 ? recebidos * 100 / bytesEsperados : 0,
+                    decorridoMs > 0 ? recebidos * 1000 / decorridoMs / 1024 : 0, decorridoMs);
+        }
+
+        //--------------------------------------------------------------------------------------------------------------
+
+        private long proximoPrazo() {
+            return paraTick(Math.min(ultimoProgressoNanos + limiteSemProgressoNanos, ultimoRelatorioNanos + intervaloRelatorioNanos));
+        }
+
+        private void relatar(long agora) {
+
+            long recebidos = bytes.get();
+            long intervaloMs = Math.max(1, TimeUnit.NANOSECONDS.toMillis(agora - ultimoRelatorioNanos));
+            double megabytes = (double) (recebidos - bytesUltimoRelatorio) / Sizes.UM_MEGABYTE;
+
+            logger.info(String.format("Baixando %s: %d de %d bytes (%d%%) a %.2f MB/s, %d ms decorridos", descricao, recebidos, bytesEsperados,
+                    bytesEsperados > 0 ? recebidos * 100 / bytesEsperados : 0, megabytes * 1000 / intervaloMs, TimeUnit.NANOSECONDS.toMillis(agora - inicioNanos)));
+
+            ultimoRelatorioNanos = agora;
+            bytesUltimoRelatorio = recebidos;
+        }
+
+        private void abortar(String motivo) {
+
+            motivoAborto = motivo;
+            logger.error(String.format("Abortando a transferência %s após %d bytes: %s", descricao, bytes.get(), motivo));
+
+            // Removida antes de fechar os recursos, pois quem aguarda a transferência é liberado pelo fechamento
+            transferencias.remove(this);
+            fecharRecursos();
+        }
+
+        private void fecharRecursos() {
+            for (Closeable recurso : recursos) {
+                try {
+                    recurso.close();
+                } catch (IOException e) {
+                    logger.trace(String.format("Erro ao fechar recurso da transferência abortada %s", descricao), e);
+                }
+            }
+        }
+    }
+}
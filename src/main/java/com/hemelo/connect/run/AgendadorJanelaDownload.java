@@ -0,0 +1,167 @@
+package com.hemelo.connect.run;
+
+import com.hemelo.connect.constants.Dates;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Executa uma tarefa nos horários da janela de download, dormindo até o próximo horário em vez de verificar o relógio em loop
+ * <p>
+ * A espera é feita em partes de no máximo {@link #ESPERA_MAXIMA}, recalculando o tempo restante pelo relógio a cada parte,
+ * assim ajustes no relógio do sistema e suspensões da máquina não atrasam nem adiantam a execução
+ * <p>
+ * Se algum horário passar enquanto a tarefa executa, a tarefa é executada novamente logo em seguida, uma única vez
+ */
+public class AgendadorJanelaDownload implements Runnable {
+
+    private static final Logger logger = LoggerFactory.getLogger(AgendadorJanelaDownload.class);
+
+    private static final Duration ESPERA_MAXIMA = Duration.ofMinutes(1);
+
+    // Os horários são considerados com precisão de minutos
+    private final NavigableSet<LocalTime> horarios = new TreeSet<>();
+    private final Runnable tarefa;
+    private final Clock relogio;
+
+    private volatile ZonedDateTime proximaExecucao;
+    private volatile boolean executando = true;
+    private volatile Thread thread;
+
+    public AgendadorJanelaDownload(Collection<LocalTime> horarios, Runnable tarefa) {
+        this(horarios, tarefa, Clock.system(Dates.ZONE_ID));
+    }
+
+    AgendadorJanelaDownload(Collection<LocalTime> horarios, Runnable tarefa, Clock relogio) {
+
+        if (horarios.isEmpty()) {
+            throw new IllegalArgumentException("Nenhum horário de download informado");
+        }
+
+        horarios.forEach(h -> this.horarios.add(h.truncatedTo(ChronoUnit.MINUTES)));
+        this.tarefa = tarefa;
+        this.relogio = relogio;
+    }
+
+    @Override
+    public void run() {
+
+        thread = Thread.currentThread();
+
+        // Um horário no minuto atual ainda é executado, como se a aplicação tivesse iniciado dentro dele
+        ZonedDateTime planejada = calcularProxima(agora().truncatedTo(ChronoUnit.MINUTES).minusNanos(1));
+
+        while (executando) {
+
+            proximaExecucao = planejada;
+            logger.debug(String.format("Próximo download de arquivos do FTP às %s", Dates.BRAZILIAN_DATE_TIME_FORMATTER.format(planejada)));
+
+            if (!aguardarAte(planejada)) break;
+
+            try {
+                tarefa.run();
+            } catch (RuntimeException e) {
+                logger.error("Erro inesperado ao baixar arquivos do FTP", e);
+            }
+
+            ZonedDateTime agora = agora();
+            ZonedDateTime seguinte = calcularProxima(planejada);
+
+            if (seguinte.isAfter(agora)) {
+                planejada = seguinte;
+                continue;
+            }
+
+            // Horários perdidos durante a execução são agrupados em uma única execução imediata
+            int perdidos = 0;
+
+            for (ZonedDateTime horario = seguinte; !horario.isAfter(agora); horario = calcularProxima(horario)) {
+                perdidos++;
+            }
+
+            logger.warn(String.format("%d horário(s) de download passaram durante a execução anterior. Executando novamente", perdidos));
+            planejada = agora;
+        }
+
+        proximaExecucao = null;
+        logger.info("Agendador de download de arquivos do FTP finalizado");
+    }
+
+    /**
+     * Encerra o agendador, interrompendo a espera pelo próximo horário
+     * Uma execução em andamento não é interrompida
+     */
+    public void parar() {
+        executando = false;
+
+        Thread atual = thread;
+
+        if (atual != null) {
+            LockSupport.unpark(atual);
+        }
+    }
+
+    /**
+     * Data e hora planejada para a próxima execução, nula se o agendador não está em execução
+     */
+    public ZonedDateTime getProximaExecucao() {
+        return proximaExecucao;
+    }
+
+    /**
+     * Primeiro horário da janela de download estritamente após a data informada
+     * @param apos data de referência
+     * @return próximo horário, no mesmo dia ou no dia seguinte
+     */
+    public ZonedDateTime calcularProxima(ZonedDateTime apos) {
+
+        LocalTime horario = horarios.higher(apos.toLocalTime());
+
+        if (horario != null) {
+            ZonedDateTime proxima = apos.with(horario);
+
+            // Na mudança de horário de verão o mesmo horário local pode ser ajustado para antes da referência
+            if (proxima.isAfter(apos)) return proxima;
+        }
+
+        return apos.toLocalDate().plusDays(1).atTime(horarios.first()).atZone(apos.getZone());
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private ZonedDateTime agora() {
+        return ZonedDateTime.now(relogio);
+    }
+
+    /**
+     * Dorme até a data informada, recalculando o tempo restante pelo relógio a cada parte da espera
+     * @return false se o agendador foi encerrado ou a thread interrompida
+     */
+    private boolean aguardarAte(ZonedDateTime alvo) {
+
+        while (executando) {
+
+            long restante = Duration.between(agora(), alvo).toNanos();
+
+            if (restante <= 0) return true;
+
+            LockSupport.parkNanos(this, Math.min(restante, ESPERA_MAXIMA.toNanos()));
+
+            if (Thread.currentThread().isInterrupted()) {
+                logger.warn("Agendador de download de arquivos do FTP interrompido");
+                return false;
+            }
+        }
+
+        return false;
+    }
+}
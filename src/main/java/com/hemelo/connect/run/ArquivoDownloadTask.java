@@ -0,0 +1,538 @@
+package com.hemelo.connect.run;
+
+import com.hemelo.connect.Main;
+import com.hemelo.connect.MainAux;
+import com.hemelo.connect.constants.Caminhos;
+import com.hemelo.connect.constants.Dates;
+import com.hemelo.connect.constants.Retries;
+import com.hemelo.connect.constants.Sizes;
+import com.hemelo.connect.dao.TransitoDao;
+import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.dto.ResultadoDownload;
+import com.hemelo.connect.enums.AlgoritmoHash;
+import com.hemelo.connect.enums.FileStatusEnvio;
+import com.hemelo.connect.enums.FileStatusLocal;
+import com.hemelo.connect.exception.ArquivoStatusDbInvalidoException;
+import com.hemelo.connect.infra.FTPClient;
+import com.hemelo.connect.infra.FTPConnectionPool;
+import com.hemelo.connect.infra.FTPSession;
+import com.hemelo.connect.infra.HashCache;
+import com.hemelo.connect.infra.VigilanteTransferencias;
+import com.hemelo.connect.utils.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.function.Supplier;
+
+/**
+ * Tarefa que baixa um único arquivo do FTP utilizando sua própria sessão do pool
+ * Realiza as tentativas, a validação de tamanho, de hash e a verificação de arquivos relacionados já enviados
+ * Ao final, atualiza o status local do arquivo e retorna o resultado para ser registrado nos logs
+ */
+public class ArquivoDownloadTask implements Callable<ResultadoDownload> {
+
+    private static final Logger logger = LoggerFactory.getLogger(ArquivoDownloadTask.class);
+
+    // A quantidade de segmentos é definida pelo tamanho do arquivo e pelas propriedades do FTP
+    static final int SEGMENTOS_PELAS_PROPRIEDADES = 0;
+
+    private final FileWrapper fileBase;
+    private final TransitoDao transitoDao;
+    private final Instant inicioDownload;
+    private final boolean consultarHash;
+    private final Supplier<FTPConnectionPool> pool;
+    private final String diretorioLocal;
+    private final int quantidadeSegmentos;
+
+    /**
+     * Construtor da tarefa
+     * @param fileBase arquivo a ser baixado
+     * @param transitoDao dao utilizado para buscar o hash do arquivo, pode ser nulo se não estiver validando o hash
+     * @param inicioDownload instante de início do processo de download, utilizado para definir a pasta local do arquivo
+     * @param consultarHash se o hash deve ser consultado no banco de dados pela própria tarefa, false se já foi buscado antecipadamente em lote
+     */
+    public ArquivoDownloadTask(FileWrapper fileBase, TransitoDao transitoDao, Instant inicioDownload, boolean consultarHash) {
+        this(fileBase, transitoDao, inicioDownload, consultarHash, FTPClient::getPool, Caminhos.DIRETORIO_ARQUIVOS_LOCAL, SEGMENTOS_PELAS_PROPRIEDADES);
+    }
+
+    /**
+     * Construtor utilizado nos testes, com o pool, o diretório local e a quantidade de segmentos informados
+     */
+    ArquivoDownloadTask(FileWrapper fileBase, TransitoDao transitoDao, Instant inicioDownload, boolean consultarHash,
+                        Supplier<FTPConnectionPool> pool, String diretorioLocal, int quantidadeSegmentos) {
+        this.fileBase = fileBase;
+        this.transitoDao = transitoDao;
+        this.inicioDownload = inicioDownload;
+        this.consultarHash = consultarHash;
+        this.pool = pool;
+        this.diretorioLocal = diretorioLocal;
+        this.quantidadeSegmentos = quantidadeSegmentos;
+    }
+
+    @Override
+    public ResultadoDownload call() {
+
+        // Variáveis
+        FTPSession sessao = null;
+        String error = "";
+        OutputStream outputStream = null;
+        InputStream inputStream = null;
+        List<Path> relatedFiles, relatedFilesEnviados;
+        int tentativas = 0, tentativasDelete;
+        long offset;
+        MessageDigest[] digests;
+        boolean resultado = false, resultadoTemporario = false, gravarLog = true, retomadaSuportada = true, criouArquivoLocal = false;
+
+        final int segmentos = quantidadeSegmentos == SEGMENTOS_PELAS_PROPRIEDADES ? getQuantidadeSegmentos() : quantidadeSegmentos;
+        boolean segmentado = segmentos > 1;
+
+        // Mantido entre as tentativas, para que cada tentativa baixe somente o que faltou em cada segmento
+        DownloadSegmentado downloadSegmentado = segmentado ? new DownloadSegmentado(fileBase, segmentos, pool.get()) : null;
+
+        fileBase.setLocalCaminhoBase(diretorioLocal + File.separator + fileBase.getParent() + File.separator + Dates.BRAZILIAN_DATE_FORMATTER_FS.format(LocalDate.ofInstant(inicioDownload, Dates.ZONE_ID)));
+
+        try {
+
+            // Se estiver configurado para validar o hash e ele não foi buscado em lote, busca o hash do arquivo no banco de dados
+            if (Main.validaHashArquivoDb && consultarHash) {
+
+                logger.debug("Procurando hash para o arquivo " + fileBase.getNomeArquivo() + " no banco de dados");
+
+                try {
+                    transitoDao.atualizaArquivoComDadosDoBd(fileBase);
+
+                    if (!fileBase.possuiHashDatabase()) {
+                        error = "Hash do arquivo não encontrado no banco de dados";
+                        resultado = false;
+                        logger.warn(error);
+                    }
+                } catch (ArquivoStatusDbInvalidoException ex) {
+
+                } catch (Exception ex) {
+                    error = "Erro ao buscar hash do arquivo no banco de dados";
+                    resultado = false;
+                    logger.error(error, ex);
+                }
+            }
+
+            if (Main.validaHashArquivoDb && !consultarHash && !fileBase.possuiHashDatabase()) {
+                error = "Hash do arquivo não encontrado no banco de dados";
+                logger.warn(error);
+            }
+
+            // Tenta baixar o arquivo até o número máximo de tentativas ou se o resultado for positivo
+            // E se somente se, estiver validando hash e o hash foi encontrado no banco de dados para o arquivo
+            // Ou se não estiver validando hash
+            while (tentativas++ <= Retries.MAX_RETRY_DOWNLOAD_FILE && !resultado && (!Main.validaHashArquivoDb || (Main.validaHashArquivoDb && fileBase.possuiHashDatabase()))) {
+
+                if (tentativas > 1) {
+                    logger.debug("Iniciando tentativa " + tentativas + " de baixar o arquivo " + fileBase.getNomeArquivo() + " do FTP");
+                }
+
+                // O download segmentado empresta uma sessão para cada segmento, portanto a tarefa não segura nenhuma sessão
+                if (!segmentado) {
+
+                    // Descarta a sessão que apresentou falha na tentativa anterior
+                    if (sessao != null && !sessao.isValida()) {
+                        sessao.close();
+                        sessao = null;
+                    }
+
+                    // Empresta uma sessão do pool para realizar o download
+                    if (sessao == null) {
+                        try {
+                            sessao = pool.get().borrow();
+                        } catch (Exception e) {
+                            logger.error(String.format("Tentativa %d. Erro ao obter uma sessão do FTP para baixar o arquivo %s", tentativas, fileBase.getFtpCaminhoCompleto()), e);
+                            continue;
+                        }
+                    }
+                }
+
+                // Verifica se diretório de arquivos locais existe e cria se não existir
+                if (!FileUtils.createDirectoryIfNotExists(fileBase.getLocalCaminhoBase())) {
+                    logger.error(String.format("Erro ao criar o diretório de arquivos locais %s", fileBase.getLocalCaminhoBase()));
+                }
+
+                // Renomeia o arquivo local se já existir
+                if (tentativas == 1) {
+                    try {
+                        if (FileUtils.tryOldifyFile(fileBase.getLocalCaminhoCompleto())) {
+                            logger.info(String.format("Arquivo %s já existia e foi renomeado", fileBase.getLocalCaminhoCompleto()));
+                        }
+                    } catch (IOException e) {
+                        logger.error(String.format("Erro ao tentar renomear o arquivo %s para %s.old", fileBase.getLocalCaminhoCompleto(), fileBase.getLocalCaminhoCompleto()), e);
+                        break;
+                    }
+                }
+
+                // Se uma tentativa anterior falhou no meio da transferência, retoma a partir do tamanho do arquivo parcial
+                // No download segmentado a retomada é feita por segmento
+                offset = tentativas > 1 && retomadaSuportada && !segmentado ? getTamanhoArquivoParcial() : 0;
+
+                // Cria o arquivo local, ou abre em modo de adição se for retomar o download
+                // No download segmentado o arquivo é pré-alocado e escrito pelos próprios segmentos
+                try {
+                    outputStream = segmentado ? null : new FileOutputStream(fileBase.getLocalCaminhoCompleto(), offset > 0);
+                    criouArquivoLocal = true;
+                } catch (FileNotFoundException e) {
+                    logger.error(String.format("Erro ao criar o arquivo %s local para download do FTP", fileBase.getLocalCaminhoCompleto()), e);
+                    continue;
+                }
+
+                // O hash é calculado enquanto os bytes chegam do FTP, evitando ler o arquivo local novamente
+                digests = criarDigests();
+
+                // Os bytes já baixados não passam pelo stream, portanto são lidos do arquivo parcial
+                // A leitura acontece antes do registro no vigilante, pois um arquivo parcial grande levaria mais que o limite sem progresso
+                if (offset > 0) {
+                    logger.info(String.format("Tentativa %d. Retomando o download do arquivo %s a partir do byte %d", tentativas, fileBase.getFtpCaminhoCompleto(), offset));
+
+                    try {
+                        FileUtils.updateDigests(Path.of(fileBase.getLocalCaminhoCompleto()), digests);
+                    } catch (IOException e) {
+                        logger.error(String.format("Tentativa %d. Erro ao ler o arquivo parcial %s para retomar o download", tentativas, fileBase.getLocalCaminhoCompleto()), e);
+
+                        try {
+                            outputStream.close();
+                        } catch (IOException ex) {
+                            logger.error(String.format("Tentativa %d. Erro ao fechar o stream de saída após erro de download do FTP. ", tentativas), ex);
+                        }
+
+                        // Sem conseguir ler o arquivo parcial, a próxima tentativa baixa o arquivo desde o início
+                        retomadaSuportada = false;
+                        continue;
+                    }
+                }
+
+                // Cada tentativa é acompanhada pelo vigilante, que relata o progresso e aborta a tentativa se ela travar
+                final VigilanteTransferencias.Transferencia transferencia = VigilanteTransferencias.getInstance().registrar(fileBase.getFtpCaminhoCompleto(), segmentado ? downloadSegmentado.getBytesRestantes() : fileBase.getTamanho() - offset);
+
+                try {
+                    try {
+
+                        if (segmentado) {
+                            resultadoTemporario = downloadSegmentado.baixar(transferencia);
+
+                            // Sem o REST os segmentos não conseguem se posicionar, as próximas tentativas baixam o arquivo inteiro em um único stream
+                            // O conteúdo pré-alocado não é aproveitado, pois os segmentos incompletos deixam lacunas no arquivo
+                            if (downloadSegmentado.isRetomadaRecusada()) {
+                                logger.warn(String.format("Tentativa %d. O FTP não suporta a retomada, o arquivo %s será baixado sem segmentos", tentativas, fileBase.getFtpCaminhoCompleto()));
+                                segmentado = false;
+                                retomadaSuportada = false;
+                            }
+                        } else {
+
+                            // O offset é enviado via REST antes do RETR e zerado pelo cliente após o comando
+                            // O RETR utiliza o caminho absoluto, dispensando a mudança de diretório
+                            sessao.getClient().setRestartOffset(offset);
+                            inputStream = sessao.getClient().retrieveFileStream(fileBase.getFtpCaminhoCompleto());
+
+                            if (inputStream != null) {
+                                inputStream = transferencia.monitorar(inputStream);
+                            }
+
+                            // Se o servidor recusou o REST, as próximas tentativas baixam o arquivo desde o início
+                            if (inputStream == null && offset > 0) {
+                                logger.warn(String.format("Tentativa %d. O FTP recusou a retomada do download do arquivo %s: %s", tentativas, fileBase.getFtpCaminhoCompleto(), sessao.getClient().getReplyString()));
+                                retomadaSuportada = false;
+                            }
+
+                            if (inputStream != null) {
+                                // Transfere o arquivo para stream de saída, atualizando os hashes no caminho
+                                InputStream digestInputStream = inputStream;
+
+                                for (MessageDigest digest : digests) {
+                                    digestInputStream = new DigestInputStream(digestInputStream, digest);
+                                }
+
+                                digestInputStream.transferTo(outputStream);
+
+                                resultadoTemporario = sessao.getClient().completePendingCommand();
+                            } else {
+                                // Sem o stream o servidor recusou o RETR (ou o REST) e nenhum comando ficou pendente
+                                // Aguardar a resposta de um comando pendente travaria a tentativa até o tempo limite do socket
+                                resultadoTemporario = false;
+                            }
+                        }
+
+                    } catch (IOException e) {
+                        logger.error(String.format("Tentativa %d. Erro ao completar o comando pendente para baixar o arquivo %s do FTP", tentativas, fileBase.getFtpCaminhoCompleto()), e);
+                        resultadoTemporario = false;
+
+                        if (transferencia.isAbortada()) {
+                            error = "Download abortado: " + transferencia.getMotivoAborto();
+                        }
+
+                        // A conexão de controle pode ter ficado dessincronizada, a próxima tentativa utiliza uma nova sessão
+                        if (sessao != null) {
+                            sessao.invalidar();
+                        }
+                    } finally {
+
+                        transferencia.close();
+
+                        // Fecha os streams
+                        try {
+                            if (inputStream != null) {
+                                inputStream.close();
+                            }
+                        } catch (Exception ex) {
+                            logger.error(String.format("Tentativa %d. Erro ao fechar o stream de entrada após erro de download do FTP. ", tentativas), ex);
+                        }
+
+                        try {
+                            if (outputStream != null) {
+                                outputStream.flush();
+                                outputStream.close();
+                            }
+                        } catch (Exception ex) {
+                            logger.error(String.format("Tentativa %d. Erro ao fechar o stream de saída após erro de download do FTP. ", tentativas), ex);
+                        }
+
+                    }
+
+                    // Baixa o arquivo e verifica se foi baixado corretamente
+                    if (resultadoTemporario && (segmentado || inputStream != null)) {
+
+                        // Verifica se o tamanho do arquivo baixado é igual ao tamanho do arquivo no FTP
+                        if (Files.size(Path.of(fileBase.getLocalCaminhoCompleto())) == fileBase.getTamanho()) {
+                            resultado = true;
+
+                            // Os segmentos chegam fora de ordem, portanto o hash do download segmentado é calculado em uma única leitura do arquivo
+                            if (segmentado) {
+                                FileUtils.updateDigests(Path.of(fileBase.getLocalCaminhoCompleto()), digests);
+                            }
+
+                            fileBase.registrarHashDownload(digests[0].digest(), digests.length > 1 ? digests[1].digest() : null);
+                        } else {
+                            error = "Tamanho do arquivo baixado diferente do tamanho do arquivo no FTP";
+                            resultado = false;
+                        }
+
+                        // Verifica se o hash do arquivo baixado é igual ao hash do arquivo no banco de dados
+                        if (Main.validaHashArquivoDb && resultado) {
+                            try {
+                                if (!fileBase.comparaHashDatabase()) {
+                                    error = "Hash do arquivo baixado diferente do hash do arquivo no banco de dados";
+                                    resultado = false;
+                                }
+                            } catch (Exception ex) {
+                                error = "Erro ao comparar o hash do arquivo baixado com o hash do arquivo no banco de dados.";
+                                resultado = false;
+                            }
+                        }
+
+                        // Se o arquivo não foi baixado corretamente, exclui o arquivo local
+                        // Nesse caso o conteúdo está corrompido, portanto a próxima tentativa não deve retomar a partir dele
+                        if (!resultado) {
+                            logger.error(String.format("Tentativa %d. Erro ao baixar o arquivo \"%s\" do FTP. %s", tentativas, fileBase.getNomeArquivo(), error));
+                            excluirArquivoLocal(tentativas);
+
+                            // Os segmentos recomeçam do início, pois os bytes baixados foram descartados junto com o arquivo
+                            if (segmentado) {
+                                downloadSegmentado = new DownloadSegmentado(fileBase, segmentos, pool.get());
+                            }
+                        } else { // Realiza uma última validação procurando arquivos relacionados ao arquivo baixado para verificar se o arquivo já foi enviado para o Connect
+
+                            try {
+                                // Procura arquivos relacionados ao arquivo baixado na mesma pasta
+                                relatedFiles = Objects.requireNonNullElse(FileUtils.findRelatedFiles(fileBase.getLocalCaminhoBase(), fileBase.getNomeArquivo()), new ArrayList<>());
+
+                                // Procura arquivos enviados
+                                relatedFilesEnviados = relatedFiles.stream().filter(f -> f.getFileName().toString().endsWith(Caminhos.SUFIXO_ARQUIVO_ENVIADO)).toList();
+
+                                // Se existirem arquivos relacionados
+                                if (!relatedFilesEnviados.isEmpty()) {
+
+
+                                    if (Files.size(Path.of(fileBase.getLocalCaminhoCompleto())) != Files.size(relatedFilesEnviados.get(0))) {  // Se o arquivo que foi enviado for DIFERENTE EM TAMANHO
+
+                                        logger.warn(String.format("Tentativa %d. Arquivo %s baixado do FTP já foi enviado para o Connect. Porém o tamanho dos dois arquivos não conferem.", tentativas, fileBase.getFtpCaminhoCompleto()));
+                                        logger.trace(String.format("Tentativa %d. Tamanho do arquivo baixado \"%s\" diferente do tamanho do arquivo enviado \"%s\"", tentativas, fileBase.getNomeArquivo(), relatedFilesEnviados.get(0).getFileName().toString()));
+                                        logger.trace(String.format("Tentativa %d. O programa seguirá fluxo normal, pois o arquivo enviado tem tamanho diferente do arquivo baixado. O arquivo será enviado novamente", tentativas));
+
+                                    } else if (!fileBase.getHash().equalsIgnoreCase(HashCache.getInstance().calcular(relatedFilesEnviados.get(0), AlgoritmoHash.SHA1))) { // Se o arquivo que foi enviado for DIFERENTE EM HASH
+
+                                        logger.warn(String.format("Tentativa %d. Arquivo %s baixado do FTP já foi enviado para o Connect. Porém o hash dos dois arquivos não conferem.", tentativas, fileBase.getFtpCaminhoCompleto()));
+                                        logger.trace(String.format("Tentativa %d. Hash do arquivo baixado \"%s\" diferente do hash do arquivo enviado \"%s\"", tentativas, fileBase.getNomeArquivo(), relatedFilesEnviados.get(0).getFileName().toString()));
+                                        logger.trace(String.format("Tentativa %d. O programa seguirá fluxo normal, pois o arquivo enviado tem hash diferente do arquivo baixado. O arquivo será enviado novamente", tentativas));
+
+                                    } else if (!fileBase.getNomeArquivo().equalsIgnoreCase(relatedFilesEnviados.get(0).getFileName().toString().replace(Caminhos.SUFIXO_ARQUIVO_ENVIADO, ""))) {
+
+                                        logger.warn(String.format("Tentativa %d. Arquivo %s baixado do FTP já foi enviado para o Connect. Porém o nome dos dois arquivos não conferem.", tentativas, fileBase.getFtpCaminhoCompleto()));
+                                        logger.trace(String.format("Tentativa %d. Nome do arquivo baixado \"%s\" diferente do nome do arquivo enviado \"%s\"", tentativas, fileBase.getNomeArquivo(), relatedFilesEnviados.get(0).getFileName().toString()));
+                                        logger.trace(String.format("Tentativa %d. O programa seguirá fluxo normal, pois o arquivo enviado tem nome diferente do arquivo baixado. O arquivo será enviado novamente", tentativas));
+
+                                    } else { // Se o arquivo que foi enviado for IGUAL EM NOMENCLATURA, HASH e TAMANHO
+
+                                        logger.warn(String.format("Tentativa %d. Arquivo %s baixado do FTP já foi enviado para o Connect. O arquivo baixado será excluído e será mantido o existente na pasta.", tentativas, fileBase.getFtpCaminhoCompleto()));
+
+                                        // Se o arquivo que foi enviado for IGUAL em TAMANHO, HASH e NOMENCLATURA ao arquivo baixado, marca o arquivo como JÁ ENVIADO
+                                        fileBase.setStatusLocalSilent(FileStatusLocal.DISPONIVEL);
+                                        fileBase.setStatusEnvioSilent(FileStatusEnvio.ENVIADO);
+
+                                        tentativasDelete = 0;
+
+                                        while (tentativasDelete++ <= Retries.MAX_RETRY_DELETE_FILE) {
+                                            try {
+                                                logger.trace(String.format("Tentativa %d - %d. Excluindo o arquivo baixado \"%s\" do FTP, pois o arquivo já foi enviado para o Connect e está localizado em %s", tentativas, tentativasDelete, fileBase.getLocalCaminhoCompleto(), fileBase.getLocalCaminhoCompleto() + "." + Caminhos.SUFIXO_ARQUIVO_ENVIADO));
+                                                Files.deleteIfExists(Path.of(fileBase.getLocalCaminhoCompleto()));
+                                                break;
+                                            } catch (IOException ex) {
+                                                logger.error(String.format("Tentativa %d - %d. Erro ao excluir o arquivo \"%s\" local após erro de download do FTP. ", tentativas, tentativasDelete, fileBase.getNomeArquivo()), ex);
+                                            }
+                                        }
+
+                                        gravarLog = false;
+                                    }
+                                }
+                            } catch (Exception ex) {
+                                logger.trace(String.format("Tentativa %d. Erro ao verificar arquivos relacionados ao arquivo baixado \"%s\"", tentativas, fileBase.getNomeArquivo()), ex);
+                            }
+                        }
+
+                    } else {
+
+
+                        logger.error(String.format("Tentativa %d. Erro ao baixar o arquivo %s do FTP. ", tentativas, fileBase.getFtpCaminhoCompleto()));
+
+                        // O arquivo parcial é mantido para que a próxima tentativa retome o download de onde parou
+                    }
+                } catch (Exception e) {
+                    logger.error(String.format("Tentativa %d. Erro ao baixar o arquivo %s do FTP", tentativas, fileBase.getFtpCaminhoCompleto()), e);
+
+                    try {
+                        if (inputStream != null)
+                            inputStream.close();
+                    } catch (Exception ex) {
+                        logger.error(String.format("Tentativa %d. Erro ao fechar o stream de entrada após erro de download do FTP. ", tentativas), ex);
+                    }
+
+                    try {
+                        if (outputStream != null) {
+                            outputStream.flush();
+                            outputStream.close();
+                        }
+                    } catch (Exception ex) {
+                        logger.error(String.format("Tentativa %d. Erro ao fechar o stream de saída após erro de download do FTP. ", tentativas), ex);
+                    }
+
+                    // O arquivo parcial é mantido para que a próxima tentativa retome o download de onde parou
+
+                    error = e.getMessage();
+                }
+            }
+
+            // Se todas as tentativas falharam, exclui o arquivo parcial que sobrou
+            if (!resultado && criouArquivoLocal) {
+                excluirArquivoLocal(tentativas);
+            }
+
+        } finally {
+            // Devolve a sessão ao pool
+            if (sessao != null) {
+                sessao.close();
+            }
+        }
+
+        if (!gravarLog) {
+            return new ResultadoDownload(fileBase, ResultadoDownload.Situacao.IGNORADO, MainAux.getDetalhesArquivo(fileBase));
+        }
+
+        if (resultado) {
+            fileBase.setStatusLocal(FileStatusLocal.DISPONIVEL);
+            fileBase.setAdicional(null);
+            return new ResultadoDownload(fileBase, ResultadoDownload.Situacao.BAIXADO, MainAux.getDetalhesArquivo(fileBase));
+        }
+
+        fileBase.setStatusLocal(FileStatusLocal.INDISPONIVEL);
+        fileBase.setAdicional(error);
+        return new ResultadoDownload(fileBase, ResultadoDownload.Situacao.ERRO, MainAux.getDetalhesArquivo(fileBase));
+    }
+
+    /**
+     * Retorna a quantidade de segmentos em que o arquivo deve ser baixado
+     * Somente arquivos a partir de ftp.download.segmentado.limiar (em MB) são segmentados em ftp.download.segmentos partes
+     * @return quantidade de segmentos, 1 se o arquivo não deve ser segmentado
+     */
+    private int getQuantidadeSegmentos() {
+
+        int limiarMb = FTPClient.getPropriedadeInt("ftp.download.segmentado.limiar", 0);
+
+        if (limiarMb <= 0 || fileBase.getTamanho() < limiarMb * Sizes.UM_MEGABYTE) {
+            return 1;
+        }
+
+        // Cada segmento utiliza uma sessão, portanto não faz sentido ter mais segmentos que sessões
+        int segmentos = Math.min(FTPClient.getPropriedadeInt("ftp.download.segmentos", 4), pool.get().getTamanhoMaximo());
+
+        return Math.max(1, segmentos);
+    }
+
+    /**
+     * Cria os digests calculados durante o download
+     * O SHA-1 é sempre calculado, o SHA-256 somente se ftp.download.hash.sha256 estiver habilitado
+     * @return digests, sendo o primeiro o SHA-1
+     */
+    private static MessageDigest[] criarDigests() {
+        try {
+            if (FTPClient.getPropriedadeBoolean("ftp.download.hash.sha256", false)) {
+                return new MessageDigest[] { MessageDigest.getInstance("SHA-1"), MessageDigest.getInstance("SHA-256") };
+            }
+
+            return new MessageDigest[] { MessageDigest.getInstance("SHA-1") };
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Algoritmo de hash não suportado", e);
+        }
+    }
+
+    /**
+     * Retorna o tamanho do arquivo parcial deixado pela tentativa anterior
+     * Se o arquivo parcial for maior ou igual ao arquivo no FTP, não há o que retomar e o download recomeça do início
+     * @return offset a partir do qual o download deve ser retomado
+     */
+    private long getTamanhoArquivoParcial() {
+        try {
+            Path caminho = Path.of(fileBase.getLocalCaminhoCompleto());
+
+            if (!Files.exists(caminho)) return 0;
+
+            long tamanho = Files.size(caminho);
+            return tamanho < fileBase.getTamanho() ? tamanho : 0;
+        } catch (IOException e) {
+            logger.error(String.format("Erro ao verificar o tamanho do arquivo parcial %s", fileBase.getLocalCaminhoCompleto()), e);
+            return 0;
+        }
+    }
+
+    /**
+     * Exclui o arquivo local baixado
+     * @param tentativas tentativa de download atual, utilizada nos logs
+     */
+    private void excluirArquivoLocal(int tentativas) {
+
+        int tentativasDelete = 0;
+
+        while (tentativasDelete++ <= Retries.MAX_RETRY_DELETE_FILE) {
+            try {
+                Files.deleteIfExists(Path.of(fileBase.getLocalCaminhoCompleto()));
+                break;
+            } catch (IOException ex) {
+                logger.error(String.format("Tentativa %d - %d. Erro ao excluir o arquivo \"%s\" local após erro de download do FTP. ", tentativas, tentativasDelete, fileBase.getNomeArquivo()), ex);
+            }
+        }
+    }
+}
@@ -8,15 +8,17 @@ import com.hemelo.connect.constants.Retries;
 import com.hemelo.connect.constants.Timings;
 import com.hemelo.connect.dao.TransitoDao;
 import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.dto.ResultadoDownload;
+import com.hemelo.connect.enums.FileStatusDatabase;
 import com.hemelo.connect.enums.FileStatusEnvio;
 import com.hemelo.connect.enums.FileStatusLocal;
 import com.hemelo.connect.enums.FileStatusRemoto;
+import com.hemelo.connect.enums.TipoTarefa;
 import com.hemelo.connect.enums.TopicEmail;
-import com.hemelo.connect.exception.ArquivoStatusDbInvalidoException;
 import com.hemelo.connect.infra.FTPClient;
+import com.hemelo.connect.infra.FTPSession;
 import com.hemelo.connect.infra.Mailer;
 import com.hemelo.connect.utils.DateUtils;
-import com.hemelo.connect.utils.FileUtils;
 import com.hemelo.connect.utils.ProcessaUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,7 +31,9 @@ import java.time.*;
 import java.util.ArrayList;
 import java.util.EnumSet;
 import java.util.List;
-import java.util.Objects;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import static com.hemelo.connect.constants.Timings.INTERVALO_PESQUISA_ARQUIVOS_BEFORE_RETRIEVAL_MS;
 
@@ -42,6 +46,10 @@ public class ArquivosDownloaderRunnable implements Runnable {
 
     private TransitoDao transitoDao;
 
+    /**
+     * Os horários de download são controlados pelo {@link AgendadorJanelaDownload}
+     * Aqui somente é respeitado o intervalo mínimo entre downloads
+     */
     private boolean deveExecutar() {
 
         LocalTime now = LocalTime.now(Dates.ZONE_ID);
@@ -51,12 +59,12 @@ public class ArquivosDownloaderRunnable implements Runnable {
             long diff = Duration.between(ultimoDownload, now).toMinutes();
 
             if (diff < Timings.INTERVALO_MINIMO_ENTRE_DOWNLOADS_MINUTOS) {
+                logger.debug("Download de arquivos do FTP ignorado, intervalo mínimo entre downloads não atingido");
                 return false;
             }
         }
 
-        // Verifica se pode
-        return (Timings.HORARIOS_DOWNLOAD_ARQUIVOS_FTP.stream().anyMatch(h -> h.getHour() == now.getHour() && h.getMinute() == now.getMinute()));
+        return true;
     }
 
     @Override
@@ -65,13 +73,8 @@ public class ArquivosDownloaderRunnable implements Runnable {
         if (!deveExecutar()) return;
 
         // Variáveis
-        Thread downloadWaitThread = null;
-        String detalheArquivo, error = "";
-        OutputStream outputStream;
-        InputStream inputStream;
-        List<Path> relatedFiles, relatedFilesEnviados;
-        int tentativas = 0, tentativasDelete = 0;
-        boolean resultado = false, resultadoTemporario = false, gravarLog = true;
+        String detalheArquivo;
+        int tentativas = 0;
         boolean gravouArquivosBaixadosDia = false, gravouArquivosPerdidosDia = false, gravouArquivosBaixadosExecucao = false, gravouArquivosPerdidosExecucao = false, gravouArquivosQueDeramErroDia = false, gravouArquivosQueDeramErroExecucao = false;
         IOException gravouArquivosEnviadosDiaException = null, gravouArquivosPerdidosDiaException = null, gravouArquivosEnviadosExecucaoException = null, gravouArquivosPerdidosExecucaoException = null, gravouArquivosQueDeramErroDiaException = null, gravouArquivosQueDeramErroExecucaoException = null;
 
@@ -174,7 +177,7 @@ public class ArquivosDownloaderRunnable implements Runnable {
                     if (!isObrigatorioPesquisarNovamente()) break;
 
                     // Verifica novos arquivos
-                    ProcessaUtils.createThread(String.format("Arquivos Finder for Download %02d", ++idArquivosFinderThread), new ArquivosFtpVerifierRunnable());
+                    ProcessaUtils.submeterTarefa(TipoTarefa.PESQUISA, String.format("Arquivos Finder for Download %02d", ++idArquivosFinderThread), new ArquivosFtpVerifierRunnable());
 
                     synchronized (MainAux.isProcurandoArquivos) {
                         // Novamente, se o processo de procurar arquivos estiver em andamento, aguarda a finalizacao
@@ -231,14 +234,16 @@ public class ArquivosDownloaderRunnable implements Runnable {
                 MainAux.status.notifyAll();
             }
 
-            // Baixa os arquivos
+            // Baixa os arquivos em paralelo, cada download com sua própria sessão do FTP
+            final List<Future<ResultadoDownload>> downloads = new ArrayList<>();
+            final int concorrencia = getConcorrencia();
 
-            for (FileWrapper fileBase : MainAux.arquivosParaEnviar) {
+            logger.debug(String.format("Baixando arquivos do FTP com %d downloads simultâneos", concorrencia));
 
-                // Somente baixa arquivos que ainda estáo indisponíveis na máquina local
-                if (fileBase.getStatusLocal() != FileStatusLocal.INDISPONIVEL) {
-                    continue;
-                }
+            final List<FileWrapper> arquivosParaBaixar = new ArrayList<>();
+
+            // Somente baixa arquivos que ainda estáo indisponíveis na máquina local
+            for (FileWrapper fileBase : MainAux.arquivosParaEnviar.comStatus(FileStatusLocal.INDISPONIVEL)) {
 
                 if (EnumSet.of(FileStatusRemoto.REFERENCIA_PERDIDA, FileStatusRemoto.NECESSARIO_VERIFICACAO, FileStatusRemoto.EM_TRANSFERENCIA).contains(fileBase.getStatusFtp())) {
                     detalheArquivo = MainAux.getDetalhesArquivo(fileBase);
@@ -247,318 +252,52 @@ public class ArquivosDownloaderRunnable implements Runnable {
                     continue;
                 }
 
-                fileBase.setLocalCaminhoBase(Caminhos.DIRETORIO_ARQUIVOS_LOCAL + File.separator + fileBase.getParent() + File.separator + Dates.BRAZILIAN_DATE_FORMATTER_FS.format(LocalDate.ofInstant(MainAux.ultimoDownloadArquivosInstant, Dates.ZONE_ID)));
-
-                tentativas = 0;
-                tentativasDelete = 0;
-                resultado = false;
-                resultadoTemporario = false;
-                gravarLog = true;
-                inputStream = null;
-                outputStream = null;
-                relatedFiles = null;
-                relatedFilesEnviados = null;
-                error = "";
-
-                // Se estiver configurado para validar o hash, busca o hash do arquivo no banco de dados
-                if (Main.validaHashArquivoDb) {
-
-                    logger.debug("Procurando hash para o arquivo " + fileBase.getNomeArquivo() + " no banco de dados");
-
-                    try {
-                        transitoDao.atualizaArquivoComDadosDoBd(fileBase);
-
-                        if (!fileBase.possuiHashDatabase()) {
-                            error = "Hash do arquivo não encontrado no banco de dados";
-                            resultado = false;
-                            logger.warn(error);
-                        }
-                    } catch (ArquivoStatusDbInvalidoException ex) {
-
-                    } catch (Exception ex) {
-                        error = "Erro ao buscar hash do arquivo no banco de dados";
-                        resultado = false;
-                        logger.error(error, ex);
-                    }
+                // A reserva garante que o arquivo não está sendo baixado por outra execução
+                if (fileBase.reservarParaDownload()) {
+                    arquivosParaBaixar.add(fileBase);
                 }
+            }
 
-                // Tenta baixar o arquivo até o número máximo de tentativas ou se o resultado for positivo
-                // E se somente se, estiver validando hash e o hash foi encontrado no banco de dados para o arquivo
-                // Ou se não estiver validando hash
-                while (tentativas++ <= Retries.MAX_RETRY_DOWNLOAD_FILE && !resultado && (!Main.validaHashArquivoDb || (Main.validaHashArquivoDb && fileBase.possuiHashDatabase()))) {
+            try {
 
-                    if (tentativas > 1) {
-                        logger.debug("Iniciando tentativa " + tentativas + " de baixar o arquivo " + fileBase.getNomeArquivo() + " do FTP");
-                    }
+                // Busca os hashes de todos os arquivos de uma vez, antes do primeiro download
+                final boolean hashesBuscados = buscarHashes(arquivosParaBaixar);
 
-                    // Move para a pasta de trabalho e muda para a pasta do arquivo
-                    if (!FTPClient.changeWorkingDirectory(fileBase.getFtpCaminhoBase())) {
-                        logger.error(String.format("Tentativa %d. Erro ao mudar de pasta para baixar o arquivo %s do FTP", tentativas, fileBase.getFtpCaminhoCompleto()));
-                        continue;
+                try (DownloadEngine engine = new DownloadEngine(concorrencia, concorrencia * 2)) {
+                    for (FileWrapper fileBase : arquivosParaBaixar) {
+                        downloads.add(engine.submeter(new ArquivoDownloadTask(fileBase, transitoDao, MainAux.ultimoDownloadArquivosInstant, !hashesBuscados)));
                     }
+                }
 
-                    // Verifica se diretório de arquivos locais existe e cria se não existir
-                    if (!FileUtils.createDirectoryIfNotExists(fileBase.getLocalCaminhoBase())) {
-                        logger.error(String.format("Erro ao criar o diretório de arquivos locais %s", fileBase.getLocalCaminhoBase()));
-                    }
+                // Registra os resultados na ordem em que os arquivos foram submetidos
+                for (Future<ResultadoDownload> download : downloads) {
 
-                    // Renomeia o arquivo local se já existir
-                    if (tentativas == 1) {
-                        try {
-                            if (FileUtils.tryOldifyFile(fileBase.getLocalCaminhoCompleto())) {
-                                logger.info(String.format("Arquivo %s já existia e foi renomeado", fileBase.getLocalCaminhoCompleto()));
-                            }
-                        } catch (IOException e) {
-                            logger.error(String.format("Erro ao tentar renomear o arquivo %s para %s.old", fileBase.getLocalCaminhoCompleto(), fileBase.getLocalCaminhoCompleto()), e);
-                            break;
-                        }
-                    }
+                    ResultadoDownload resultado;
 
-                    // Cria o arquivo local
                     try {
-                        outputStream = new FileOutputStream(fileBase.getLocalCaminhoCompleto());
-                    } catch (FileNotFoundException e) {
-                        logger.error(String.format("Erro ao criar o arquivo %s local para download do FTP", fileBase.getLocalCaminhoCompleto()), e);
+                        resultado = download.get();
+                    } catch (ExecutionException e) {
+                        logger.error("Erro inesperado ao baixar arquivo do FTP", e.getCause());
                         continue;
                     }
 
-                    try {
-                        try {
-
-                            synchronized (MainAux.isDownloadingFileFtp) {
-                                MainAux.isDownloadingFileFtp.set(true);
-                                MainAux.isDownloadingFileFtp.notifyAll();
-                            }
-
-                            downloadWaitThread = ProcessaUtils.createThread("Arquivos Downloader Waiting", () -> {
-
-                                int i = 0, parcial = 0;
-                                int parciais = 5;
-
-                                synchronized (MainAux.isDownloadingFileFtp) {
-                                    while (MainAux.isDownloadingFileFtp.get()) {
-                                        try {
-                                            Thread.sleep(1000);
-                                        } catch (InterruptedException e) {
-                                            break;
-                                        }
-
-                                        if (i++ >= (Timings.TEMPO_LIMITE_DOWNLOAD.toSeconds() / parciais)) {
-                                            logger.error(String.format("Aguarde, o programa está baixando o arquivo %s (%d/%d do tempo limite (%d ms))", fileBase.getFtpCaminhoCompleto(), ++parcial, parciais, Timings.TEMPO_LIMITE_DOWNLOAD.toMillis()));
-                                            i = 0;
-                                        }
-                                    }
-                                }
-                            });
-
-
-                            inputStream = FTPClient.getInstance().retrieveFileStream(fileBase.getNomeArquivo());
-
-                            if (inputStream != null) {
-                                // Transfere o arquivo para stream de saída
-                                inputStream.transferTo(outputStream);
-                            }
-
-                            resultadoTemporario = FTPClient.getInstance().completePendingCommand();
-
-                        } catch (IOException e) {
-                            logger.error(String.format("Tentativa %d. Erro ao completar o comando pendente para baixar o arquivo %s do FTP", tentativas, fileBase.getFtpCaminhoCompleto()), e);
-                            resultadoTemporario = false;
-                        } finally {
-
-                            try {
-                                if (downloadWaitThread != null) {
-                                    downloadWaitThread.interrupt();
-                                }
-                            } catch (Exception e) {
-                                logger.error("Erro ao interromper a thread de espera do download do arquivo do FTP", e);
-                            }
-
-                            // Fecha os streams
-                            try {
-                                if (inputStream != null) {
-                                    inputStream.close();
-                                }
-                            } catch (Exception ex) {
-                                logger.error(String.format("Tentativa %d. Erro ao fechar o stream de entrada após erro de download do FTP. ", tentativas), ex);
-                            }
-
-                            try {
-                                outputStream.flush();
-                                outputStream.close();
-                            } catch (Exception ex) {
-                                logger.error(String.format("Tentativa %d. Erro ao fechar o stream de saída após erro de download do FTP. ", tentativas), ex);
-                            }
-
-                            synchronized (MainAux.isDownloadingFileFtp) {
-                                MainAux.isDownloadingFileFtp.set(false);
-                                MainAux.isDownloadingFileFtp.notifyAll();
-                            }
+                    switch (resultado.situacao()) {
+                        case BAIXADO -> {
+                            arquivosBaixados.append(resultado.arquivo().getFtpCaminhoCompleto()).append(System.lineSeparator());
+                            arquivosBaixadosDetalhado.append(resultado.detalhe()).append(System.lineSeparator());
                         }
-
-                        // Baixa o arquivo e verifica se foi baixado corretamente
-                        if (resultadoTemporario && inputStream != null) {
-
-                            // Verifica se o tamanho do arquivo baixado é igual ao tamanho do arquivo no FTP
-                            if (Files.size(Path.of(fileBase.getLocalCaminhoCompleto())) == fileBase.getFtpFile().getSize()) {
-                                resultado = true;
-                            } else {
-                                error = "Tamanho do arquivo baixado diferente do tamanho do arquivo no FTP";
-                                resultado = false;
-                            }
-
-                            // Verifica se o hash do arquivo baixado é igual ao hash do arquivo no banco de dados
-                            if (Main.validaHashArquivoDb && resultado) {
-                                try {
-                                    if (!fileBase.comparaHashDatabase()) {
-                                        error = "Hash do arquivo baixado diferente do hash do arquivo no banco de dados";
-                                        resultado = false;
-                                    }
-                                } catch (Exception ex) {
-                                    error = "Erro ao comparar o hash do arquivo baixado com o hash do arquivo no banco de dados.";
-                                    resultado = false;
-                                }
-                            }
-
-                            // Se o arquivo não foi baixado corretamente, exclui o arquivo local
-                            if (!resultado) {
-                                logger.error(String.format("Tentativa %d. Erro ao baixar o arquivo \"%s\" do FTP. %s", tentativas, fileBase.getNomeArquivo(), error));
-
-                                tentativasDelete = 0;
-
-                                while (tentativasDelete++ <= Retries.MAX_RETRY_DELETE_FILE) {
-                                    try {
-                                        Files.deleteIfExists(Path.of(fileBase.getLocalCaminhoCompleto()));
-                                        break;
-                                    } catch (IOException ex) {
-                                        logger.error(String.format("Tentativa %d - %d. Erro ao excluir o arquivo \"%s\" local após erro de download do FTP. ", tentativas, tentativasDelete, fileBase.getNomeArquivo()), ex);
-                                    }
-                                }
-                            } else { // Realiza uma última validação procurando arquivos relacionados ao arquivo baixado para verificar se o arquivo já foi enviado para o Connect
-
-                                try {
-                                    // Procura arquivos relacionados ao arquivo baixado na mesma pasta
-                                    relatedFiles = Objects.requireNonNullElse(FileUtils.findRelatedFiles(fileBase.getLocalCaminhoBase(), fileBase.getNomeArquivo()), new ArrayList<>());
-
-                                    // Procura arquivos enviados
-                                    relatedFilesEnviados = relatedFiles.stream().filter(f -> f.getFileName().toString().endsWith(Caminhos.SUFIXO_ARQUIVO_ENVIADO)).toList();
-
-                                    // Se existirem arquivos relacionados
-                                    if (!relatedFilesEnviados.isEmpty()) {
-
-
-                                        if (Files.size(Path.of(fileBase.getLocalCaminhoCompleto())) != Files.size(relatedFilesEnviados.get(0))) {  // Se o arquivo que foi enviado for DIFERENTE EM TAMANHO
-
-                                            logger.warn(String.format("Tentativa %d. Arquivo %s baixado do FTP já foi enviado para o Connect. Porém o tamanho dos dois arquivos não conferem.", tentativas, fileBase.getFtpCaminhoCompleto()));
-                                            logger.trace(String.format("Tentativa %d. Tamanho do arquivo baixado \"%s\" diferente do tamanho do arquivo enviado \"%s\"", tentativas, fileBase.getNomeArquivo(), relatedFilesEnviados.get(0).getFileName().toString()));
-                                            logger.trace(String.format("Tentativa %d. O programa seguirá fluxo normal, pois o arquivo enviado tem tamanho diferente do arquivo baixado. O arquivo será enviado novamente", tentativas));
-
-                                        } else if (!FileUtils.calculateFileHash1(fileBase.getLocalCaminhoCompleto()).equalsIgnoreCase(FileUtils.calculateFileHash1(relatedFilesEnviados.get(0).toString()))) { // Se o arquivo que foi enviado for DIFERENTE EM HASH
-
-                                            logger.warn(String.format("Tentativa %d. Arquivo %s baixado do FTP já foi enviado para o Connect. Porém o hash dos dois arquivos não conferem.", tentativas, fileBase.getFtpCaminhoCompleto()));
-                                            logger.trace(String.format("Tentativa %d. Hash do arquivo baixado \"%s\" diferente do hash do arquivo enviado \"%s\"", tentativas, fileBase.getNomeArquivo(), relatedFilesEnviados.get(0).getFileName().toString()));
-                                            logger.trace(String.format("Tentativa %d. O programa seguirá fluxo normal, pois o arquivo enviado tem hash diferente do arquivo baixado. O arquivo será enviado novamente", tentativas));
-
-                                        } else if (!fileBase.getNomeArquivo().equalsIgnoreCase(relatedFilesEnviados.get(0).getFileName().toString().replace(Caminhos.SUFIXO_ARQUIVO_ENVIADO, ""))) {
-
-                                            logger.warn(String.format("Tentativa %d. Arquivo %s baixado do FTP já foi enviado para o Connect. Porém o nome dos dois arquivos não conferem.", tentativas, fileBase.getFtpCaminhoCompleto()));
-                                            logger.trace(String.format("Tentativa %d. Nome do arquivo baixado \"%s\" diferente do nome do arquivo enviado \"%s\"", tentativas, fileBase.getNomeArquivo(), relatedFilesEnviados.get(0).getFileName().toString()));
-                                            logger.trace(String.format("Tentativa %d. O programa seguirá fluxo normal, pois o arquivo enviado tem nome diferente do arquivo baixado. O arquivo será enviado novamente", tentativas));
-
-                                        } else { // Se o arquivo que foi enviado for IGUAL EM NOMENCLATURA, HASH e TAMANHO
-
-                                            logger.warn(String.format("Tentativa %d. Arquivo %s baixado do FTP já foi enviado para o Connect. O arquivo baixado será excluído e será mantido o existente na pasta.", tentativas, fileBase.getFtpCaminhoCompleto()));
-
-                                            // Se o arquivo que foi enviado for IGUAL em TAMANHO, HASH e NOMENCLATURA ao arquivo baixado, marca o arquivo como JÁ ENVIADO
-                                            fileBase.setStatusLocalSilent(FileStatusLocal.DISPONIVEL);
-                                            fileBase.setStatusEnvioSilent(FileStatusEnvio.ENVIADO);
-
-                                            tentativasDelete = 0;
-
-                                            while (tentativasDelete++ <= Retries.MAX_RETRY_DELETE_FILE) {
-                                                try {
-                                                    logger.trace(String.format("Tentativa %d - %d. Excluindo o arquivo baixado \"%s\" do FTP, pois o arquivo já foi enviado para o Connect e está localizado em %s", tentativas, tentativasDelete, fileBase.getLocalCaminhoCompleto(), fileBase.getLocalCaminhoCompleto() + "." + Caminhos.SUFIXO_ARQUIVO_ENVIADO));
-                                                    Files.deleteIfExists(Path.of(fileBase.getLocalCaminhoCompleto()));
-                                                    break;
-                                                } catch (IOException ex) {
-                                                    logger.error(String.format("Tentativa %d - %d. Erro ao excluir o arquivo \"%s\" local após erro de download do FTP. ", tentativas, tentativasDelete, fileBase.getNomeArquivo()), ex);
-                                                }
-                                            }
-
-                                            gravarLog = false;
-                                        }
-                                    }
-                                } catch (Exception ex) {
-                                    logger.trace(String.format("Tentativa %d. Erro ao verificar arquivos relacionados ao arquivo baixado \"%s\"", tentativas, fileBase.getNomeArquivo()), ex);
-                                }
-                            }
-
-                        } else {
-
-
-                            logger.error(String.format("Tentativa %d. Erro ao baixar o arquivo %s do FTP. ", tentativas, fileBase.getFtpCaminhoCompleto()));
-
-                            // Se o arquivo não foi baixado corretamente, exclui o arquivo local
-
-                            tentativasDelete = 0;
-
-                            while (tentativasDelete++ <= Retries.MAX_RETRY_DELETE_FILE) {
-                                try {
-                                    Files.deleteIfExists(Path.of(fileBase.getLocalCaminhoCompleto()));
-                                    break;
-                                } catch (IOException ex) {
-                                    logger.error(String.format("Tentativa %d - %d. Erro ao excluir o arquivo \"%s\" local após erro de download do FTP. ", tentativas, tentativasDelete, fileBase.getFtpCaminhoCompleto()), ex);
-                                }
-                            }
+                        case ERRO -> {
+                            arquivosQueDeramErro.append(resultado.arquivo().getFtpCaminhoCompleto()).append(System.lineSeparator());
+                            arquivosQueDeramErroDetalhado.append(resultado.detalhe());
+                            arquivosQueDeramErroDetalhado.append(System.lineSeparator());
                         }
-                    } catch (Exception e) {
-                        logger.error(String.format("Tentativa %d. Erro ao baixar o arquivo %s do FTP", tentativas, fileBase.getFtpCaminhoCompleto()), e);
-
-                        try {
-                            if (inputStream != null)
-                                inputStream.close();
-                        } catch (Exception ex) {
-                            logger.error(String.format("Tentativa %d. Erro ao fechar o stream de entrada após erro de download do FTP. ", tentativas), ex);
+                        case IGNORADO -> {
                         }
-
-                        try {
-                            outputStream.flush();
-                            outputStream.close();
-                        } catch (Exception ex) {
-                            logger.error(String.format("Tentativa %d. Erro ao fechar o stream de saída após erro de download do FTP. ", tentativas), ex);
-                        }
-
-                        tentativasDelete = 0;
-
-                        while (tentativasDelete++ <= Retries.MAX_RETRY_DELETE_FILE) {
-                            try {
-                                Files.deleteIfExists(Path.of(fileBase.getLocalCaminhoCompleto()));
-                                break;
-                            } catch (IOException ex) {
-                                logger.error(String.format("Tentativa %d - %d. Erro ao excluir o arquivo %s local após erro de download do FTP. ", tentativas, tentativasDelete, fileBase.getLocalCaminhoCompleto()), ex);
-                            }
-                        }
-
-                        error = e.getMessage();
                     }
                 }
-
-                if (!gravarLog) continue;
-
-                if (resultado) {
-                    fileBase.setStatusLocal(FileStatusLocal.DISPONIVEL);
-                    fileBase.setAdicional(null);
-                    detalheArquivo = MainAux.getDetalhesArquivo(fileBase);
-                    arquivosBaixados.append(fileBase.getFtpCaminhoCompleto()).append(System.lineSeparator());
-                    arquivosBaixadosDetalhado.append(detalheArquivo).append(System.lineSeparator());
-                } else {
-                    fileBase.setStatusLocal(FileStatusLocal.INDISPONIVEL);
-                    fileBase.setAdicional(error);
-                    detalheArquivo = MainAux.getDetalhesArquivo(fileBase);
-                    arquivosQueDeramErro.append(fileBase.getFtpCaminhoCompleto()).append(System.lineSeparator());
-                    arquivosQueDeramErroDetalhado.append(detalheArquivo);
-                    arquivosQueDeramErroDetalhado.append(System.lineSeparator());
-                }
+            } finally {
+                // Arquivos ignorados ou interrompidos continuam reservados e voltam a aguardar o download
+                arquivosParaBaixar.forEach(FileWrapper::liberarReservaDownload);
             }
 
             if (Timings.DELAY_AFTER_DOWNLOAD_FILES != null)
@@ -758,6 +497,54 @@ public class ArquivosDownloaderRunnable implements Runnable {
         }
     }
 
+    /**
+     * Busca em lote no banco de dados os hashes dos arquivos que serão baixados
+     * Arquivos não encontrados ficam com o status do banco de dados desconhecido
+     * @param arquivos arquivos que serão baixados
+     * @return true se os hashes foram buscados, false se não for necessário validar o hash ou se houve erro na consulta
+     */
+    private boolean buscarHashes(List<FileWrapper> arquivos) {
+
+        if (!Main.validaHashArquivoDb || arquivos.isEmpty()) return false;
+
+        logger.debug(String.format("Procurando hash de %d arquivos no banco de dados", arquivos.size()));
+
+        try {
+            Map<String, String> hashes = transitoDao.buscarHashes(arquivos.stream().map(FileWrapper::getNomeArquivo).toList());
+
+            for (FileWrapper fileBase : arquivos) {
+                String hash = hashes.get(fileBase.getNomeArquivo());
+
+                if (hash != null) {
+                    fileBase.setHashDatabase(hash);
+                } else {
+                    fileBase.setStatusDatabaseSilent(FileStatusDatabase.DESCONHECIDO);
+                }
+            }
+
+            return true;
+        } catch (Exception e) {
+            logger.error("Erro ao buscar os hashes dos arquivos no banco de dados. Os hashes serão buscados individualmente", e);
+            return false;
+        }
+    }
+
+    /**
+     * Retorna a quantidade de downloads simultâneos configurada em ftp.download.concorrencia
+     * Limitada ao tamanho máximo do pool de sessões, já que cada download utiliza uma sessão
+     * @return quantidade de downloads simultâneos
+     */
+    private static int getConcorrencia() {
+        int maximo = FTPClient.getPool().getTamanhoMaximo();
+        int concorrencia = FTPClient.getPropriedadeInt("ftp.download.concorrencia", maximo);
+
+        if (concorrencia > maximo) {
+            logger.warn(String.format("Concorrência de downloads (%d) maior que o tamanho máximo do pool de sessões do FTP (%d). Será utilizado %d", concorrencia, maximo, maximo));
+        }
+
+        return Math.max(1, Math.min(concorrencia, maximo));
+    }
+
     /**
      * Funcao que cria o nome do arquivo de lock
      *
@@ -772,13 +559,16 @@ public class ArquivosDownloaderRunnable implements Runnable {
      * Funcao que grava arquivo de Lock no FTP para sinalizar pro programa do setor de Geração nao conseguir enviar nada durante o lock
      */
     private static void gravarArquivoLock(String lockFileName) {
-        try {
+        try (FTPSession sessao = FTPClient.getSession()) {
 
-            FTPClient.moveToWorkBaseDirectory();
+            final String caminhoLock = Caminhos.CAMINHO_BASE_FTP + "/" + lockFileName;
 
-            FTPClient.getInstance().storeFile(lockFileName, new ByteArrayInputStream(new byte[0]));
+            if (!sessao.getClient().storeFile(caminhoLock, new ByteArrayInputStream(new byte[0]))) {
+                logger.error(String.format("O FTP recusou a gravação do arquivo de lock %s: %s", caminhoLock, sessao.getClient().getReplyString()));
+                return;
+            }
 
-            logger.info("Arquivo de lock do FTP gravado com sucesso em " + FTPClient.getInstance().printWorkingDirectory() + "/" + lockFileName);
+            logger.info("Arquivo de lock do FTP gravado com sucesso em " + caminhoLock);
         } catch (Exception e) {
             logger.error("Erro ao gravar arquivo de lock do FTP", e);
         }
@@ -792,12 +582,12 @@ public class ArquivosDownloaderRunnable implements Runnable {
         int tentativas = 0;
 
         while (tentativas++ <= Retries.MAX_RETRY_DELETE_FILE) {
-            try {
-                FTPClient.moveToWorkBaseDirectory();
+            try (FTPSession sessao = FTPClient.getSession()) {
+                final String caminhoLock = Caminhos.CAMINHO_BASE_FTP + "/" + lockFileName;
 
-                FTPClient.getInstance().deleteFile(lockFileName);
+                sessao.getClient().deleteFile(caminhoLock);
 
-                logger.info("Arquivo de lock deletado do FTP com sucesso em " + FTPClient.getInstance().printWorkingDirectory() + "/" + lockFileName);
+                logger.info("Arquivo de lock deletado do FTP com sucesso em " + caminhoLock);
                 break;
             } catch (Exception e) {
                 logger.error(String.format("Tentativa %d Erro ao excluir arquivo de lock do FTP", tentativas), e);
@@ -813,7 +603,7 @@ public class ArquivosDownloaderRunnable implements Runnable {
      * @return true se é obrigatorio procurar por novos arquivos
      */
     private boolean isObrigatorioPesquisarNovamente() {
-        return (MainAux.arquivosParaEnviar.stream().anyMatch(a -> a.getStatusFtp() == FileStatusRemoto.EM_TRANSFERENCIA) || MainAux.arquivosParaEnviar.stream().anyMatch(a -> a.getStatusFtp() == FileStatusRemoto.NECESSARIO_VERIFICACAO));
+        return MainAux.arquivosParaEnviar.existe(FileStatusRemoto.EM_TRANSFERENCIA) || MainAux.arquivosParaEnviar.existe(FileStatusRemoto.NECESSARIO_VERIFICACAO);
     }
 
     /**
@@ -826,7 +616,7 @@ public class ArquivosDownloaderRunnable implements Runnable {
                 Duration.between(MainAux.ultimaBuscaArquivosInstant, Instant.now()).toMinutes() > 1 ||
                 MainAux.arquivosParaEnviar.isEmpty() ||
                 isObrigatorioPesquisarNovamente() ||
-                MainAux.arquivosParaEnviar.stream().anyMatch(a -> a.getStatusFtp() == FileStatusRemoto.REFERENCIA_PERDIDA && a.getStatusEnvio() != FileStatusEnvio.ENVIADO && a.getStatusLocal() != FileStatusLocal.DISPONIVEL)
+                MainAux.arquivosParaEnviar.comStatus(FileStatusRemoto.REFERENCIA_PERDIDA).stream().anyMatch(a -> a.getStatusEnvio() != FileStatusEnvio.ENVIADO && a.getStatusLocal() != FileStatusLocal.DISPONIVEL)
         );
     }
 }
@@ -1,17 +1,28 @@
 package com.hemelo.connect.run;
 
 import com.hemelo.connect.MainAux;
+import com.hemelo.connect.catalogo.TransicoesArquivo;
+import com.hemelo.connect.constants.Caminhos;
 import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.dto.MetadadosArquivoFtp;
 import com.hemelo.connect.enums.FileStatusLocal;
 import com.hemelo.connect.enums.FileStatusRemoto;
+import com.hemelo.connect.infra.ConsumidorListagem;
 import com.hemelo.connect.infra.FTPClient;
+import com.hemelo.connect.infra.FTPSession;
+import com.hemelo.connect.infra.ListadorFtp;
 import com.hemelo.connect.utils.FiltrarArquivo;
 import org.apache.commons.net.ftp.FTPFile;
 
 import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 
 /**
@@ -21,6 +32,9 @@ public class ArquivosFtpVerifierRunnable implements Runnable {
 
     private static final org.slf4j.Logger logger = org.slf4j.LoggerFactory.getLogger(ArquivosFtpVerifierRunnable.class);
 
+    // Quantidade de sessões listando diretórios ao mesmo tempo, se não configurada em ftp.varredura.paralelismo
+    private static final int PARALELISMO_PADRAO = 4;
+
     @Override
     public void run() {
 
@@ -74,85 +88,83 @@ public class ArquivosFtpVerifierRunnable implements Runnable {
 
         logger.debug("Procurando por novos arquivos...");
 
-        try {
-
-            if (!FTPClient.moveToWorkBaseDirectory()) {
-                logger.error("Erro ao mudar para a pasta de trabalho");
-
-                synchronized (MainAux.isProcurandoArquivos) {
-                    MainAux.isProcurandoArquivos.set(false);
-                    MainAux.isProcurandoArquivos.notifyAll();
-                }
-
-                return;
-            }
+        // As páginas de cada diretório são incorporadas ao catálogo concorrentemente, conforme as sessões as listam
+        final Queue<FileWrapper> arquivosNovos = new ConcurrentLinkedQueue<>();
+        final Set<String> diretoriosSemAlteracao = ConcurrentHashMap.newKeySet();
+        boolean listagemConcluida = false;
+
+        try (FTPSession sessao = FTPClient.getSession()) {
+
+            // Os diretórios com arquivos ainda em transferência ou não verificados são sempre listados novamente
+            final Set<String> relistar = Stream.of(FileStatusRemoto.EM_TRANSFERENCIA, FileStatusRemoto.NECESSARIO_VERIFICACAO)
+                    .flatMap(status -> MainAux.arquivosParaEnviar.comStatus(status).stream())
+                    .map(FileWrapper::getParent)
+                    .collect(Collectors.toSet());
+
+            // Lista a árvore com a menor quantidade de comandos que o servidor suporta, pulando os diretórios sem alteração
+            // e distribuindo as listagens por diretório entre as sessões ociosas do pool
+            final int diretorios = ListadorFtp.getInstance().listar(sessao, FTPClient.getPool(), FTPClient.getPropriedadeInt("ftp.varredura.paralelismo", PARALELISMO_PADRAO),
+                    Caminhos.CAMINHO_BASE_FTP, relistar, new ConsumidorListagem() {
+                        @Override
+                        public void aoListar(String diretorio, List<FTPFile> pagina) {
+                            incorporar(diretorio, pagina, arquivosNovos);
+                        }
 
-            FTPFile[] diretorios = FTPClient.getInstance().listDirectories();
+                        @Override
+                        public void aoReaproveitar(String diretorio) {
+                            diretoriosSemAlteracao.add(diretorio);
+                        }
+                    });
 
-            if (diretorios == null || diretorios.length == 0) {
-                logger.error("Não foram encontrados pastas no FTP em " + FTPClient.getInstance().printWorkingDirectory());
+            if (diretorios == 0) {
+                logger.error("Não foram encontrados pastas no FTP em " + Caminhos.CAMINHO_BASE_FTP);
 
                 onFinish.run();
 
                 return;
             }
 
-            // Itera sobre os diretorios para procurar por arquivos
-            for (FTPFile diretorio : diretorios) {
-
-                if (!diretorio.isDirectory()) continue;
-
-                if (!FTPClient.changeWorkingDirectory(diretorio.getName())) {
-                    logger.error(String.format("Erro ao mudar de diretorio para %s", diretorio.getName()));
-                    continue;
-                }
-
-                for (FTPFile file : FTPClient.getInstance().listFiles()) {
-
-                    Optional<FileWrapper> fileBaseOpt = MainAux.arquivosParaEnviar.stream().filter(a -> a.equals(file)).findFirst();
-
-                    if (fileBaseOpt.isPresent()) {
-
-                        if (fileBaseOpt.get().getFtpFile().getSize() != file.getSize()) { // Se o tamanho do arquivo for diferente, provavelmente está em transferência
-                            fileBaseOpt.get().setStatusFtp(FileStatusRemoto.EM_TRANSFERENCIA);
-                        } else { // Se o tamanho do arquivo for igual, então o arquivo foi transferido
-                            fileBaseOpt.get().setStatusFtp(FileStatusRemoto.TRANSFERIDO);
-                        }
-
-                        fileBaseOpt.get().setFtpFile(file);
-                        continue;
-                    }
-
-                    FileWrapper fileBase = new FileWrapper(file);
-                    fileBase.setParent(diretorio.getName());
-                    fileBase.setFtpCaminhoBase(FTPClient.getInstance().printWorkingDirectory());
-                    fileBase.setStatusFtp(FileStatusRemoto.NECESSARIO_VERIFICACAO);
-                    fileBase.setStatusLocal(FileStatusLocal.INDISPONIVEL);
-                    fileBase.setIsCredenciado(FiltrarArquivo.validarCredenciado(fileBase.getNomeArquivo(), fileBase.getParent()));
-                    MainAux.arquivosParaEnviar.add(fileBase);
-                }
-
-                FTPClient.getInstance().changeToParentDirectory();
-            }
-
+            listagemConcluida = true;
         } catch (Exception e) {
             logger.error("Erro ao procurar por novos arquivos", e);
         }
 
+        // Sem a listagem completa, os arquivos não encontrados não podem ser considerados perdidos
+        // Os arquivos já incorporados por uma listagem parcial continuam no catálogo e são verificados na próxima busca
+        if (!listagemConcluida) {
+            onFinish.run();
+            return;
+        }
+
+        // Os arquivos dos diretórios sem alteração continuam no FTP, apesar de não terem sido listados
+        if (!diretoriosSemAlteracao.isEmpty()) {
+            Stream.of(FileStatusRemoto.NECESSARIO_VERIFICACAO, FileStatusRemoto.EM_TRANSFERENCIA, FileStatusRemoto.TRANSFERIDO)
+                    .flatMap(status -> MainAux.arquivosParaEnviar.comStatus(status).stream())
+                    .filter(a -> diretoriosSemAlteracao.contains(a.getParent()))
+                    .forEach(FileWrapper::confirmarFtp);
+        }
+
         // Remove arquivos que não são credenciados
         MainAux.arquivosParaEnviar.removeIf(a -> !a.isCredenciado());
 
         // Itera sobre os arquivos para verificar se algum arquivo não foi encontrado na busca atual
         // Se não foi encontrado, então o arquivo foi removido do servidor FTP ou o programa falhou ao encontrar o arquivo
-        final List<FileWrapper> arquivosPerdidosStream = MainAux.arquivosParaEnviar.stream().filter(a -> a.getFtpLatestUpdate().isBefore(MainAux.ultimaBuscaArquivosInstant) && a.getStatusFtp() != FileStatusRemoto.REFERENCIA_PERDIDA && a.getStatusFtp() != FileStatusRemoto.DELETADO).toList();
+        // Somente os arquivos com status diferente de referência perdida e deletado são percorridos
+        final List<FileWrapper> arquivosPerdidosStream = Stream.of(FileStatusRemoto.NECESSARIO_VERIFICACAO, FileStatusRemoto.EM_TRANSFERENCIA, FileStatusRemoto.TRANSFERIDO)
+                .flatMap(status -> MainAux.arquivosParaEnviar.comStatus(status).stream())
+                .filter(a -> a.getFtpLatestUpdate().isBefore(MainAux.ultimaBuscaArquivosInstant))
+                .toList();
         arquivosPerdidosStream.forEach(a -> a.setStatusFtp(FileStatusRemoto.REFERENCIA_PERDIDA));
 
+        // O catálogo já está atualizado, portanto os downloads e envios podem continuar enquanto os resultados são registrados
+        onFinish.run();
+
         // Verifica se existem arquivos que foram encontrados previamente, mas não foram encontrados agora
         if (!arquivosPerdidosStream.isEmpty()) {
             logger.info(String.format("%d arquivos foram perdidos: [%s]", arquivosPerdidosStream.size(), arquivosPerdidosStream.stream().map(MainAux::getStrArquivoSimplificado).collect(Collectors.joining(", "))));
         }
 
-        final List<FileWrapper> arquivosNovosStream = MainAux.arquivosParaEnviar.stream().filter(a -> a.getFindedAt().isAfter(MainAux.ultimaBuscaArquivosInstant) || a.getFindedAt().equals(MainAux.ultimaBuscaArquivosInstant)).toList();
+        final List<FileWrapper> arquivosNovosStream = arquivosNovos.stream().filter(FileWrapper::isCredenciado).toList();
 
         // Verifica se não foram encontrados arquivos
         if (arquivosNovosStream.isEmpty()) {
@@ -161,9 +173,52 @@ public class ArquivosFtpVerifierRunnable implements Runnable {
             logger.info(String.format("%d novos arquivos foram encontrados: [%s]", arquivosNovosStream.size(), arquivosNovosStream.stream().map(MainAux::getStrArquivoSimplificado).collect(Collectors.joining(", "))));
         }
 
-        onFinish.run();
-
         logger.debug("Procura por novos arquivos finalizada");
     }
 
+    /**
+     * Incorpora ao catálogo uma página de entradas de um diretório do FTP
+     * É chamado concorrentemente para diretórios diferentes, portanto um arquivo nunca é incorporado por duas threads
+     * @param diretorio nome do diretório, abaixo de {@link Caminhos#CAMINHO_BASE_FTP}
+     * @param entradas entradas da página
+     * @param arquivosNovos recebe os arquivos que ainda não estavam no catálogo
+     */
+    private static void incorporar(String diretorio, List<FTPFile> entradas, Queue<FileWrapper> arquivosNovos) {
+
+        final String caminhoDiretorio = Caminhos.CAMINHO_BASE_FTP + "/" + diretorio;
+
+        for (FTPFile file : entradas) {
+
+            final MetadadosArquivoFtp metadados = MetadadosArquivoFtp.de(file);
+            Optional<FileWrapper> fileBaseOpt = MainAux.arquivosParaEnviar.buscar(caminhoDiretorio, metadados.nome());
+
+            if (fileBaseOpt.isPresent()) {
+
+                // Um arquivo deletado permanece assim até o reset dos dados, mesmo que o cliente envie outro arquivo com o mesmo nome
+                if (TransicoesArquivo.terminal(fileBaseOpt.get().getStatusFtp())) {
+                    logger.debug(String.format("Arquivo %s encontrado no FTP, mas está como %s no catálogo", fileBaseOpt.get().getFtpCaminhoCompleto(), fileBaseOpt.get().getStatusFtp()));
+                    continue;
+                }
+
+                if (fileBaseOpt.get().isAlteradoNoFtp(metadados)) { // Se o tamanho, a data ou o identificador mudaram, provavelmente está em transferência
+                    fileBaseOpt.get().setStatusFtp(FileStatusRemoto.EM_TRANSFERENCIA);
+                } else { // Se nada mudou desde a listagem anterior, então o arquivo foi transferido
+                    fileBaseOpt.get().setStatusFtp(FileStatusRemoto.TRANSFERIDO);
+                }
+
+                fileBaseOpt.get().setMetadadosFtp(metadados);
+                continue;
+            }
+
+            FileWrapper fileBase = new FileWrapper(metadados);
+            fileBase.setParent(diretorio);
+            fileBase.setFtpCaminhoBase(caminhoDiretorio);
+            fileBase.setStatusFtp(FileStatusRemoto.NECESSARIO_VERIFICACAO);
+            fileBase.setStatusLocal(FileStatusLocal.INDISPONIVEL);
+            fileBase.setIsCredenciado(FiltrarArquivo.validarCredenciado(fileBase.getNomeArquivo(), fileBase.getParent()));
+            MainAux.arquivosParaEnviar.add(fileBase);
+            arquivosNovos.add(fileBase);
+        }
+    }
+
 }
@@ -10,6 +10,7 @@ import com.hemelo.connect.dao.TransitoDao;
 import com.hemelo.connect.dto.FileWrapper;
 import com.hemelo.connect.enums.*;
 import com.hemelo.connect.infra.FTPClient;
+import com.hemelo.connect.infra.FTPSession;
 import com.hemelo.connect.infra.Mailer;
 import com.hemelo.connect.utils.DateUtils;
 import com.hemelo.connect.utils.FileUtils;
@@ -85,17 +86,8 @@ public class ArquivosSenderRunnable implements Runnable {
             }
         }
 
-        // Aguarda a finalizacao do processo de baixar arquivos do FTP
-        synchronized (MainAux.isDownloadingFilesFtp) {
-            while (MainAux.isDownloadingFilesFtp.get()) {
-                try {
-                    logger.debug("Aguardando a finalizacao do processo de baixar arquivos do FTP...");
-                    MainAux.isDownloadingFilesFtp.wait();
-                } catch (InterruptedException e) {
-                    logger.error("Erro ao aguardar a finalizacao do processo de baixar arquivos do FTP", e);
-                }
-            }
-        }
+        // O envio não aguarda o processo de baixar arquivos do FTP
+        // Somente arquivos já disponíveis são enviados, e cada arquivo é reservado antes do envio
 
         // Atualiza o status
         synchronized (MainAux.status) {
@@ -124,9 +116,10 @@ public class ArquivosSenderRunnable implements Runnable {
         final StringBuilder arquivosErroExclusao = new StringBuilder();
         final StringBuilder arquivosErroExclusaoDetalhado = new StringBuilder();
 
-        for (FileWrapper fileBase : MainAux.arquivosParaEnviar) {
+        for (FileWrapper fileBase : MainAux.arquivosParaEnviar.comStatus(FileStatusLocal.DISPONIVEL)) {
 
-            if (fileBase.getStatusLocal() != FileStatusLocal.DISPONIVEL || !fileBase.isCredenciado() || fileBase.getStatusEnvio() == FileStatusEnvio.ENVIADO) {
+            // A reserva falha se o arquivo já foi enviado ou está sendo enviado
+            if (!fileBase.isCredenciado() || !fileBase.reservarParaEnvio()) {
                 continue;
             }
 
@@ -183,8 +176,8 @@ public class ArquivosSenderRunnable implements Runnable {
                     tentativasDelete = 0;
 
                     while (tentativasDelete++ <= Retries.MAX_RETRY_DELETE_FILE) {
-                        try {
-                            FTPClient.getInstance().deleteFile(fileBase.getFtpCaminhoCompleto());
+                        try (FTPSession sessao = FTPClient.getSession()) {
+                            sessao.getClient().deleteFile(fileBase.getFtpCaminhoCompleto());
                             resultadoExclusao = true;
                             break;
                         } catch (Exception e) {
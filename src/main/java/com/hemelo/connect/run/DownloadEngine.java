@@ -0,0 +1,91 @@
+package com.hemelo.connect.run;
+
+import com.hemelo.connect.dto.ResultadoDownload;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Motor de downloads paralelos do FTP
+ * Executa várias {@link ArquivoDownloadTask} ao mesmo tempo, cada uma com sua própria sessão do pool de conexões
+ * <p>
+ * A fila de trabalho é limitada, portanto quem submete as tarefas é bloqueado enquanto a fila estiver cheia
+ */
+public final class DownloadEngine implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadEngine.class);
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore vagas;
+    private final int concorrencia;
+
+    /**
+     * Construtor do motor
+     * @param concorrencia quantidade de downloads simultâneos
+     * @param capacidadeFila quantidade de tarefas que podem aguardar na fila além das que estão em execução
+     */
+    public DownloadEngine(int concorrencia, int capacidadeFila) {
+
+        if (concorrencia < 1 || capacidadeFila < 0) {
+            throw new IllegalArgumentException(String.format("Configuração inválida para o motor de downloads (concorrência %d, fila %d)", concorrencia, capacidadeFila));
+        }
+
+        final AtomicInteger idThread = new AtomicInteger(0);
+
+        this.concorrencia = concorrencia;
+        this.vagas = new Semaphore(concorrencia + capacidadeFila);
+        this.executor = new ThreadPoolExecutor(concorrencia, concorrencia, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r);
+            thread.setName(String.format("Thread - Arquivos Downloader %02d", idThread.incrementAndGet()));
+            return thread;
+        });
+    }
+
+    /**
+     * Submete uma tarefa de download, aguardando uma vaga caso a fila esteja cheia
+     * @param tarefa tarefa de download
+     * @return future com o resultado do download
+     * @throws InterruptedException se a thread for interrompida enquanto aguarda uma vaga
+     */
+    public Future<ResultadoDownload> submeter(ArquivoDownloadTask tarefa) throws InterruptedException {
+
+        vagas.acquire();
+
+        try {
+            return executor.submit(() -> {
+                try {
+                    return tarefa.call();
+                } finally {
+                    vagas.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            vagas.release();
+            throw e;
+        }
+    }
+
+    public int getConcorrencia() {
+        return concorrencia;
+    }
+
+    /**
+     * Aguarda a finalização das tarefas submetidas e encerra as threads do motor
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+
+        try {
+            while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.debug(String.format("Aguardando a finalização de %d downloads do FTP", executor.getActiveCount()));
+            }
+        } catch (InterruptedException e) {
+            logger.error("Interrompido ao aguardar a finalização dos downloads do FTP", e);
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,256 @@
+package com.hemelo.connect.run;
+
+import com.hemelo.connect.constants.Retries;
+import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.infra.FTPConnectionPool;
+import com.hemelo.connect.infra.FTPSession;
+import com.hemelo.connect.infra.VigilanteTransferencias;
+import org.apache.commons.net.ftp.FTPReply;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Download de um único arquivo grande do FTP dividido em segmentos de bytes
+ * Cada segmento é baixado em paralelo pela sua própria sessão do pool, utilizando REST para posicionar o início da transferência,
+ * e gravado diretamente na posição correspondente de um arquivo local pré-alocado
+ * <p>
+ * A posição alcançada por cada segmento é mantida entre as chamadas a {@link #baixar}, portanto uma nova tentativa
+ * baixa somente o que faltou em cada segmento, desde que o arquivo local não tenha sido excluído entre as tentativas
+ * <p>
+ * A validação de tamanho e hash do arquivo completo continua sendo feita por quem chamou
+ */
+public class DownloadSegmentado {
+
+    private static final Logger logger = LoggerFactory.getLogger(DownloadSegmentado.class);
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+
+    private final FileWrapper fileBase;
+    private final int segmentos;
+    private final FTPConnectionPool pool;
+    private final long tamanhoSegmento;
+
+    // Próximo byte a ser baixado de cada segmento
+    private final AtomicLongArray posicoes;
+
+    // Se o servidor recusou o REST de algum segmento, os demais segmentos também não conseguiriam se posicionar
+    private volatile boolean retomadaRecusada = false;
+
+    /**
+     * Construtor do download segmentado
+     * @param fileBase arquivo a ser baixado
+     * @param segmentos quantidade de segmentos
+     * @param pool pool de onde cada segmento empresta a sua sessão
+     */
+    public DownloadSegmentado(FileWrapper fileBase, int segmentos, FTPConnectionPool pool) {
+        this.fileBase = fileBase;
+        this.segmentos = segmentos;
+        this.pool = pool;
+        this.tamanhoSegmento = (fileBase.getTamanho() + segmentos - 1) / segmentos;
+        this.posicoes = new AtomicLongArray(segmentos);
+
+        for (int i = 0; i < segmentos; i++) {
+            posicoes.set(i, getInicio(i));
+        }
+    }
+
+    /**
+     * Baixa os bytes que faltam de cada segmento do arquivo
+     * @param transferencia transferência da tentativa, que recebe os bytes de todos os segmentos
+     * @return true se todos os segmentos foram baixados
+     * @throws IOException se não for possível criar ou pré-alocar o arquivo local
+     */
+    public boolean baixar(VigilanteTransferencias.Transferencia transferencia) throws IOException {
+
+        final long tamanho = fileBase.getTamanho();
+        final AtomicInteger idThread = new AtomicInteger(0);
+
+        if (getBytesRestantes() < tamanho) {
+            logger.info(String.format("Retomando o download segmentado do arquivo %s, faltam %d de %d bytes", fileBase.getFtpCaminhoCompleto(), getBytesRestantes(), tamanho));
+        } else {
+            logger.info(String.format("Baixando o arquivo %s (%d bytes) em %d segmentos de até %d bytes", fileBase.getFtpCaminhoCompleto(), tamanho, segmentos, tamanhoSegmento));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(segmentos, r -> {
+            Thread thread = new Thread(r);
+            thread.setName(String.format("Thread - Arquivos Downloader Segmento %02d", idThread.incrementAndGet()));
+            return thread;
+        });
+
+        try (RandomAccessFile arquivo = new RandomAccessFile(fileBase.getLocalCaminhoCompleto(), "rw")) {
+
+            // Pré-aloca o arquivo com o tamanho final para que cada segmento escreva na sua posição
+            // Se o arquivo já possui o tamanho final, os bytes baixados nas tentativas anteriores são mantidos
+            if (arquivo.length() != tamanho) {
+                arquivo.setLength(tamanho);
+            }
+
+            final FileChannel canal = arquivo.getChannel();
+            final List<Future<Boolean>> resultados = new ArrayList<>();
+
+            for (int i = 0; i < segmentos; i++) {
+
+                final int indice = i;
+
+                // Segmentos concluídos em tentativas anteriores não são baixados novamente
+                if (posicoes.get(i) >= getFim(i)) continue;
+
+                resultados.add(executor.submit(() -> baixarSegmento(canal, transferencia, indice)));
+            }
+
+            boolean resultado = true;
+
+            for (Future<Boolean> future : resultados) {
+                try {
+                    resultado &= future.get();
+                } catch (ExecutionException e) {
+                    logger.error(String.format("Erro inesperado ao baixar segmento do arquivo %s", fileBase.getFtpCaminhoCompleto()), e.getCause());
+                    resultado = false;
+                }
+            }
+
+            canal.force(false);
+            return resultado;
+
+        } catch (InterruptedException e) {
+            logger.error(String.format("Interrompido ao aguardar os segmentos do arquivo %s", fileBase.getFtpCaminhoCompleto()), e);
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Quantidade de bytes que ainda faltam ser baixados, somando todos os segmentos
+     */
+    public long getBytesRestantes() {
+        long restantes = 0;
+
+        for (int i = 0; i < segmentos; i++) {
+            restantes += Math.max(0, getFim(i) - posicoes.get(i));
+        }
+
+        return restantes;
+    }
+
+    /**
+     * Baixa um segmento do arquivo, retomando a partir do último byte gravado em caso de falha
+     * @param canal canal do arquivo local
+     * @param transferencia transferência da tentativa
+     * @param indice índice do segmento, a partir de 0
+     * @return true se o segmento foi baixado por completo
+     */
+    private boolean baixarSegmento(FileChannel canal, VigilanteTransferencias.Transferencia transferencia, int indice) {
+
+        final ByteBuffer buffer = ByteBuffer.allocate(TAMANHO_BUFFER);
+        final int segmento = indice + 1;
+        final long inicio = getInicio(indice);
+        final long fim = getFim(indice);
+
+        long posicao = posicoes.get(indice);
+        int tentativas = 0;
+
+        // Se a transferência foi abortada pelo vigilante ou o servidor recusou o REST, os segmentos não tentam novamente
+        while (tentativas++ <= Retries.MAX_RETRY_DOWNLOAD_FILE && posicao < fim && !transferencia.isAbortada() && !retomadaRecusada) {
+
+            try (FTPSession sessao = pool.borrow()) {
+
+                sessao.getClient().setRestartOffset(posicao);
+
+                InputStream inputStream = sessao.getClient().retrieveFileStream(fileBase.getFtpCaminhoCompleto());
+
+                // Uma recusa permanente com o REST enviado indica que o servidor não suporta a retomada
+                // Nesse caso as próximas tentativas falhariam da mesma forma, portanto o arquivo deve ser baixado sem segmentos
+                if (inputStream == null && posicao > 0 && FTPReply.isNegativePermanent(sessao.getClient().getReplyCode())) {
+                    logger.warn(String.format("O FTP recusou a retomada do segmento %d do arquivo %s a partir do byte %d: %s", segmento, fileBase.getFtpCaminhoCompleto(), posicao, sessao.getClient().getReplyString()));
+                    retomadaRecusada = true;
+                    break;
+                }
+
+                if (inputStream == null) {
+                    logger.error(String.format("Tentativa %d. O FTP recusou o download do segmento %d do arquivo %s: %s", tentativas, segmento, fileBase.getFtpCaminhoCompleto(), sessao.getClient().getReplyString()));
+                    continue;
+                }
+
+                inputStream = transferencia.monitorar(inputStream);
+
+                try {
+                    // Lê somente os bytes do segmento, mesmo que o servidor continue enviando o restante do arquivo
+                    while (posicao < fim) {
+
+                        int lidos = inputStream.read(buffer.array(), 0, (int) Math.min(buffer.capacity(), fim - posicao));
+
+                        if (lidos < 0) break;
+
+                        buffer.position(0).limit(lidos);
+
+                        while (buffer.hasRemaining()) {
+                            posicao += canal.write(buffer, posicao);
+                        }
+
+                        posicoes.set(indice, posicao);
+                    }
+                } catch (IOException e) {
+                    logger.error(String.format("Tentativa %d. Erro ao baixar o segmento %d do arquivo %s no byte %d", tentativas, segmento, fileBase.getFtpCaminhoCompleto(), posicao), e);
+                    sessao.invalidar();
+                } finally {
+                    // Fechar o stream antes do fim do arquivo aborta a transferência e o servidor responde com erro
+                    // Como alguns servidores enviam mais de uma resposta nesse caso, a sessão é descartada para não ficar dessincronizada
+                    try {
+                        inputStream.close();
+                        sessao.getClient().completePendingCommand();
+
+                        if (fim < fileBase.getTamanho()) {
+                            sessao.invalidar();
+                        }
+                    } catch (IOException e) {
+                        logger.trace(String.format("Sessão descartada após o segmento %d do arquivo %s", segmento, fileBase.getFtpCaminhoCompleto()), e);
+                        sessao.invalidar();
+                    }
+                }
+
+            } catch (InterruptedException e) {
+                logger.error(String.format("Interrompido ao baixar o segmento %d do arquivo %s", segmento, fileBase.getFtpCaminhoCompleto()), e);
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                logger.error(String.format("Tentativa %d. Erro ao baixar o segmento %d do arquivo %s", tentativas, segmento, fileBase.getFtpCaminhoCompleto()), e);
+            }
+        }
+
+        if (posicao < fim) {
+            logger.error(String.format("Segmento %d do arquivo %s não foi baixado por completo (%d de %d bytes)", segmento, fileBase.getFtpCaminhoCompleto(), posicao - inicio, fim - inicio));
+            return false;
+        }
+
+        logger.debug(String.format("Segmento %d do arquivo %s baixado (bytes %d a %d)", segmento, fileBase.getFtpCaminhoCompleto(), inicio, fim - 1));
+        return true;
+    }
+
+    private long getInicio(int indice) {
+        return Math.min(indice * tamanhoSegmento, fileBase.getTamanho());
+    }
+
+    private long getFim(int indice) {
+        return Math.min((indice + 1) * tamanhoSegmento, fileBase.getTamanho());
+    }
+
+    /**
+     * Se o servidor recusou o REST de algum segmento, indicando que o arquivo deve ser baixado sem segmentos
+     */
+    public boolean isRetomadaRecusada() {
+        return retomadaRecusada;
+    }
+}
@@ -17,6 +17,8 @@ import java.nio.file.Files;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 public class HourRunnable implements Runnable {
 
@@ -85,11 +87,11 @@ public class HourRunnable implements Runnable {
             MainAux.isSendingRelatorios.notifyAll();
         }
 
-        Thread mailThread = Mailer.getInstance().sendMail(TopicEmail.RELATORIO, sb.toString(), List.of(new File(arquivoZip)));
+        Future<?> envioEmail = Mailer.getInstance().sendMail(TopicEmail.RELATORIO, sb.toString(), List.of(new File(arquivoZip)));
 
         try {
-            mailThread.join();
-        } catch (InterruptedException e) {
+            envioEmail.get();
+        } catch (InterruptedException | ExecutionException e) {
             logger.error("Erro ao aguardar o envio do email", e);
         }
 
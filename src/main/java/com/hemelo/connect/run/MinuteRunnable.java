@@ -1,9 +1,13 @@
 package com.hemelo.connect.run;
 
 import com.hemelo.connect.MainAux;
+import com.hemelo.connect.catalogo.JournalCatalogo;
 import com.hemelo.connect.constants.Retries;
 import com.hemelo.connect.enums.FileStatusEnvio;
 import com.hemelo.connect.enums.FileStatusRemoto;
+import com.hemelo.connect.enums.TipoTarefa;
+import com.hemelo.connect.infra.FTPClient;
+import com.hemelo.connect.infra.HashCache;
 import com.hemelo.connect.utils.DateUtils;
 import com.hemelo.connect.utils.ProcessaUtils;
 import org.apache.commons.lang3.StringUtils;
@@ -25,6 +29,9 @@ import java.util.Objects;
 public class MinuteRunnable implements Runnable {
 
     private static final Logger logger = LoggerFactory.getLogger(MinuteRunnable.class);
+
+    // Quantidade de registros no journal do catálogo a partir da qual um novo snapshot é gravado
+    private static final long LIMITE_REGISTROS_JOURNAL = 10_000;
     
     @Override
     public void run() {
@@ -32,6 +39,9 @@ public class MinuteRunnable implements Runnable {
         logger.debug("Executando cronjob de 1 minuto");
 
         this.limparLogs();
+        this.manterSessoesFtp();
+        this.salvarCacheHashes();
+        this.compactarCatalogo(false);
 
         // Verifica se está virando o dia e locka o inicio de novas operações da aplicação
         if (DateUtils.isSwitchingDay()) {
@@ -54,7 +64,7 @@ public class MinuteRunnable implements Runnable {
 
             logger.debug("É meia noite. Executando thread para reset dos dados...");
 
-            ProcessaUtils.createThread("Reset Dados", () -> {
+            ProcessaUtils.submeterTarefa(TipoTarefa.MANUTENCAO, "Reset Dados", () -> {
                 synchronized (MainAux.isResettingData) {
                     if (MainAux.isResettingData.get()) {
                         logger.debug("Já está resetando os dados");
@@ -103,6 +113,8 @@ public class MinuteRunnable implements Runnable {
                                 a.getStatusEnvio() == FileStatusEnvio.ENVIADO ||
                                 (a.getStatusFtp() == FileStatusRemoto.REFERENCIA_PERDIDA && a.getFindedAt().isBefore(Instant.now().minus(1, ChronoUnit.DAYS))));
 
+                // Os arquivos removidos deixam de ocupar espaço no snapshot do catálogo
+                compactarCatalogo(true);
 
                 synchronized (MainAux.status) {
                     MainAux.status.set("");
@@ -117,8 +129,43 @@ public class MinuteRunnable implements Runnable {
         }
     }
 
+    /**
+     * Valida as sessões ociosas do pool do FTP e repõe as que estiverem quebradas
+     */
+    private void manterSessoesFtp() {
+        try {
+            FTPClient.getPool().manter();
+        } catch (Exception e) {
+            logger.error("Erro ao validar as sessões do pool do FTP", e);
+        }
+    }
+
+    /**
+     * Grava o cache de hashes em disco, caso tenha sido alterado
+     */
+    private void salvarCacheHashes() {
+        try {
+            HashCache.getInstance().salvar();
+        } catch (Exception e) {
+            logger.error("Erro ao gravar o cache de hashes", e);
+        }
+    }
+
+    /**
+     * Grava um novo snapshot do catálogo quando o journal acumulou muitos registros
+     * @param forcar grava o snapshot independente da quantidade de registros
+     */
+    private void compactarCatalogo(boolean forcar) {
+
+        JournalCatalogo journal = MainAux.arquivosParaEnviar.getJournal();
+
+        if (journal != null && (forcar || journal.getRegistrosDesdeCompactacao() >= LIMITE_REGISTROS_JOURNAL)) {
+            journal.compactar();
+        }
+    }
+
     private void limparLogs() {
-        ProcessaUtils.createThread("Limpa Logs Vazios", () -> {
+        ProcessaUtils.submeterTarefa(TipoTarefa.MANUTENCAO, "Limpa Logs Vazios", () -> {
 
             if (MainAux.isCleaningLogs.get()) return;
 
@@ -3,7 +3,11 @@ package com.hemelo.connect.run;
 import com.hemelo.connect.MainAux;
 import com.hemelo.connect.constants.Timings;
 import com.hemelo.connect.enums.TopicEmail;
+import com.hemelo.connect.infra.AgendadorJobs;
+import com.hemelo.connect.utils.ProcessaUtils;
 import com.hemelo.connect.infra.Mailer;
+import com.hemelo.connect.infra.ListadorFtp;
+import com.hemelo.connect.infra.VigilanteTransferencias;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -184,6 +188,22 @@ public class SocketRunnable implements Runnable {
                                 sb.append("❌ Erro ao gerar relatório. Tempo limite excedido. Tente novamente e/ou erifique se o programa está funcionando de fato.\r\n");
                             }
 
+                            break;
+                        case "ESTATISTICAS":
+                            sb.append("📊 Total Arquivos Lista Global:").append(MainAux.arquivosParaEnviar.size()).append(System.lineSeparator());
+                            sb.append(MainAux.getEstatisticasArquivos());
+                            break;
+                        case "JOBS":
+                            sb.append(AgendadorJobs.getInstance().descrever());
+                            break;
+                        case "TAREFAS":
+                            sb.append(ProcessaUtils.getRelatorioTarefas());
+                            break;
+                        case "TRANSFERENCIAS":
+                            sb.append(VigilanteTransferencias.getInstance().descrever());
+                            break;
+                        case "LISTAGEM":
+                            sb.append(ListadorFtp.getInstance().descrever());
                             break;
                         default:
                             sb.append(inputLine).append(System.lineSeparator());
@@ -0,0 +1,57 @@
+package com.hemelo.connect.utils;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Stream de entrada que informa a quantidade de bytes lidos a cada leitura
+ * Utilizado para acompanhar o progresso das transferências sem alterar o conteúdo lido
+ */
+public class ContadorBytesInputStream extends FilterInputStream {
+
+    private final LongConsumer bytesLidos;
+
+    /**
+     * @param in stream de entrada original
+     * @param bytesLidos recebe a quantidade de bytes de cada leitura
+     */
+    public ContadorBytesInputStream(InputStream in, LongConsumer bytesLidos) {
+        super(in);
+        this.bytesLidos = bytesLidos;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int lido = super.read();
+
+        if (lido >= 0) bytesLidos.accept(1);
+
+        return lido;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int lidos = super.read(b, off, len);
+
+        if (lidos > 0) bytesLidos.accept(lidos);
+
+        return lidos;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long pulados = super.skip(n);
+
+        if (pulados > 0) bytesLidos.accept(pulados);
+
+        return pulados;
+    }
+
+    // Marcar e voltar contaria os mesmos bytes duas vezes
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+}
@@ -1,5 +1,6 @@
 package com.hemelo.connect.utils;
 
+import com.hemelo.connect.enums.AlgoritmoHash;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,7 +11,6 @@ import java.io.IOException;
 import java.nio.charset.Charset;
 import java.nio.file.*;
 import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -51,24 +51,34 @@ public class FileUtils {
      */
     public static String calculateFileHash(String filePath, String algorithm) {
         try {
-            byte[] input = getFileContent(filePath, Charset.defaultCharset()).getBytes();
-            MessageDigest md = MessageDigest.getInstance(algorithm);
-            md.update(input, 0, input.length);
-            byte[] hashBytes = md.digest();
-
-            StringBuilder sb = new StringBuilder();
-
-            for (byte b : hashBytes) {
-                sb.append(String.format("%02x", b));
-            }
-
-            return sb.toString();
-        } catch (NoSuchAlgorithmException e) {
+            return HashUtils.calcular(Path.of(filePath), AlgoritmoHash.fromNome(algorithm));
+        } catch (IllegalArgumentException | IOException e) {
             logger.debug("Erro ao calcular o hash do arquivo " + Paths.get(filePath).getFileName(), e);
             return null;
         }
     }
 
+    /**
+     * Atualiza os digests com todo o conteúdo de um arquivo, lendo-o uma única vez
+     *
+     * @param path    Caminho do arquivo
+     * @param digests Digests a serem atualizados
+     * @throws IOException Em caso de erro ao ler o arquivo
+     */
+    public static void updateDigests(Path path, MessageDigest... digests) throws IOException {
+        HashUtils.atualizar(path, digests);
+    }
+
+    /**
+     * Converte um hash em texto hexadecimal
+     *
+     * @param bytes Hash
+     * @return Texto hexadecimal em minúsculo
+     */
+    public static String toHex(byte[] bytes) {
+        return HashUtils.toHex(bytes);
+    }
+
     /**
      * Retorna o conteúdo de um arquivo
      *
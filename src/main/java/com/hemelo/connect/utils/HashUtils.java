@@ -0,0 +1,225 @@
+package com.hemelo.connect.utils;
+
+import com.hemelo.connect.constants.Sizes;
+import com.hemelo.connect.enums.AlgoritmoHash;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.zip.CRC32C;
+
+/**
+ * Cálculo de hashes de arquivos com memória limitada
+ * O arquivo é lido uma única vez, atualizando todos os algoritmos solicitados ao mesmo tempo
+ * <p>
+ * Arquivos comuns são lidos em blocos para um buffer reaproveitado por thread
+ * Arquivos muito grandes são mapeados em memória em janelas, sem copiar os bytes para o heap
+ */
+public class HashUtils {
+
+    private static final int TAMANHO_BUFFER = 256 * 1024;
+
+    // A partir deste tamanho o arquivo é mapeado em memória, em janelas de TAMANHO_JANELA_MMAP bytes
+    private static final long LIMIAR_MMAP = Sizes.UM_GIGABYTE;
+    private static final long TAMANHO_JANELA_MMAP = 64 * Sizes.UM_MEGABYTE;
+
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private static final ThreadLocal<ByteBuffer> buffer = ThreadLocal.withInitial(() -> ByteBuffer.allocate(TAMANHO_BUFFER));
+
+    /**
+     * Calcula o hash de um arquivo
+     * @param caminho caminho do arquivo
+     * @param algoritmo algoritmo de hash
+     * @return hash em hexadecimal minúsculo
+     * @throws IOException em caso de erro ao ler o arquivo
+     */
+    public static String calcular(Path caminho, AlgoritmoHash algoritmo) throws IOException {
+        return calcular(caminho, new AlgoritmoHash[] { algoritmo }).get(algoritmo);
+    }
+
+    /**
+     * Calcula vários hashes de um arquivo em uma única leitura
+     * @param caminho caminho do arquivo
+     * @param algoritmos algoritmos de hash
+     * @return hash em hexadecimal minúsculo de cada algoritmo
+     * @throws IOException em caso de erro ao ler o arquivo
+     */
+    public static Map<AlgoritmoHash, String> calcular(Path caminho, AlgoritmoHash... algoritmos) throws IOException {
+        return calcular(caminho, LIMIAR_MMAP, TAMANHO_JANELA_MMAP, algoritmos);
+    }
+
+    /**
+     * Atualiza os digests com todo o conteúdo de um arquivo, lendo-o uma única vez
+     * @param caminho caminho do arquivo
+     * @param digests digests a serem atualizados
+     * @throws IOException em caso de erro ao ler o arquivo
+     */
+    public static void atualizar(Path caminho, MessageDigest... digests) throws IOException {
+
+        Acumulador[] acumuladores = new Acumulador[digests.length];
+
+        for (int i = 0; i < digests.length; i++) {
+            acumuladores[i] = new AcumuladorDigest(digests[i]);
+        }
+
+        ler(caminho, LIMIAR_MMAP, TAMANHO_JANELA_MMAP, acumuladores);
+    }
+
+    /**
+     * Converte bytes em texto hexadecimal
+     * @param bytes bytes
+     * @return texto hexadecimal em minúsculo
+     */
+    public static String toHex(byte[] bytes) {
+
+        char[] chars = new char[bytes.length * 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+            chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+        }
+
+        return new String(chars);
+    }
+
+    /**
+     * Converte texto hexadecimal em bytes
+     * @param hex texto hexadecimal, em maiúsculo ou minúsculo
+     * @return bytes
+     * @throws IllegalArgumentException se o texto não for hexadecimal
+     */
+    public static byte[] fromHex(String hex) {
+
+        if (hex.length() % 2 != 0) {
+            throw new IllegalArgumentException("Texto hexadecimal com tamanho ímpar: " + hex);
+        }
+
+        byte[] bytes = new byte[hex.length() / 2];
+
+        for (int i = 0; i < bytes.length; i++) {
+            int alto = Character.digit(hex.charAt(i * 2), 16);
+            int baixo = Character.digit(hex.charAt(i * 2 + 1), 16);
+
+            if (alto < 0 || baixo < 0) {
+                throw new IllegalArgumentException("Texto hexadecimal inválido: " + hex);
+            }
+
+            bytes[i] = (byte) (alto << 4 | baixo);
+        }
+
+        return bytes;
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    static Map<AlgoritmoHash, String> calcular(Path caminho, long limiarMmap, long tamanhoJanelaMmap, AlgoritmoHash... algoritmos) throws IOException {
+
+        Acumulador[] acumuladores = new Acumulador[algoritmos.length];
+
+        for (int i = 0; i < algoritmos.length; i++) {
+            acumuladores[i] = criar(algoritmos[i]);
+        }
+
+        ler(caminho, limiarMmap, tamanhoJanelaMmap, acumuladores);
+
+        Map<AlgoritmoHash, String> hashes = new EnumMap<>(AlgoritmoHash.class);
+
+        for (int i = 0; i < algoritmos.length; i++) {
+            hashes.put(algoritmos[i], toHex(acumuladores[i].finalizar()));
+        }
+
+        return hashes;
+    }
+
+    private static void ler(Path caminho, long limiarMmap, long tamanhoJanelaMmap, Acumulador[] acumuladores) throws IOException {
+
+        try (FileChannel canal = FileChannel.open(caminho, StandardOpenOption.READ)) {
+
+            long tamanho = canal.size();
+
+            if (tamanho >= limiarMmap) {
+
+                for (long posicao = 0; posicao < tamanho; posicao += tamanhoJanelaMmap) {
+
+                    MappedByteBuffer janela = canal.map(FileChannel.MapMode.READ_ONLY, posicao, Math.min(tamanhoJanelaMmap, tamanho - posicao));
+
+                    for (Acumulador acumulador : acumuladores) {
+                        acumulador.atualizar(janela.duplicate());
+                    }
+                }
+
+                return;
+            }
+
+            ByteBuffer bloco = buffer.get();
+
+            bloco.clear();
+
+            while (canal.read(bloco) >= 0) {
+
+                bloco.flip();
+
+                for (Acumulador acumulador : acumuladores) {
+                    acumulador.atualizar(bloco.duplicate());
+                }
+
+                bloco.clear();
+            }
+        }
+    }
+
+    private static Acumulador criar(AlgoritmoHash algoritmo) {
+
+        if (algoritmo == AlgoritmoHash.CRC32C) {
+            return new AcumuladorCrc32c();
+        }
+
+        try {
+            return new AcumuladorDigest(MessageDigest.getInstance(algoritmo.getNome()));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Algoritmo de hash não suportado: " + algoritmo, e);
+        }
+    }
+
+    private interface Acumulador {
+        void atualizar(ByteBuffer bytes);
+        byte[] finalizar();
+    }
+
+    private record AcumuladorDigest(MessageDigest digest) implements Acumulador {
+
+        @Override
+        public void atualizar(ByteBuffer bytes) {
+            digest.update(bytes);
+        }
+
+        @Override
+        public byte[] finalizar() {
+            return digest.digest();
+        }
+    }
+
+    private static final class AcumuladorCrc32c implements Acumulador {
+
+        private final CRC32C crc = new CRC32C();
+
+        @Override
+        public void atualizar(ByteBuffer bytes) {
+            crc.update(bytes);
+        }
+
+        @Override
+        public byte[] finalizar() {
+            long valor = crc.getValue();
+            return new byte[] { (byte) (valor >>> 24), (byte) (valor >>> 16), (byte) (valor >>> 8), (byte) valor };
+        }
+    }
+}
@@ -1,37 +1,64 @@
 package com.hemelo.connect.utils;
 
+import com.hemelo.connect.dto.MetricasTarefas;
+import com.hemelo.connect.enums.TipoTarefa;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Duration;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class ProcessaUtils {
 
     private static final Logger logger = LoggerFactory.getLogger(ProcessaUtils.class);
 
+    // Tempo que uma thread ociosa de um pool de tarefas é mantida antes de ser encerrada
+    private static final long TEMPO_OCIOSO_THREAD_SEGUNDOS = 60;
+
+    private static final Map<TipoTarefa, PoolTarefas> pools = new EnumMap<>(TipoTarefa.class);
+
+    static {
+        for (TipoTarefa tipo : TipoTarefa.values()) pools.put(tipo, new PoolTarefas(tipo));
+    }
+
     /**
-     * Cria um timer que executa um runnable a cada duration
-     * @param name
-     * @param runnable
-     * @param duration
-     * @return
+     * Executa uma tarefa assíncrona no pool do seu tipo
+     * As threads de cada tipo são limitadas, as tarefas excedentes aguardam na fila e, com a fila cheia, são rejeitadas
+     * @param tipo tipo da tarefa
+     * @param nome nome da tarefa, utilizado no nome da thread durante a execução
+     * @param runnable tarefa
+     * @return Future da tarefa. Se a tarefa foi rejeitada, o Future já está concluído com a exceção
      */
-    public static Timer createTimer(String name, Duration duration, Runnable runnable) {
+    public static Future<?> submeterTarefa(TipoTarefa tipo, String nome, Runnable runnable) {
+        return pools.get(tipo).submeter(nome, runnable);
+    }
 
-        name = "Timer - " + name;
+    public static MetricasTarefas getMetricasTarefas(TipoTarefa tipo) {
+        return pools.get(tipo).getMetricas();
+    }
 
-        logger.info("Criando timer \"" + name + "\" com duração de " + duration.toMillis() + "ms");
+    /**
+     * Descrição das métricas de todos os tipos de tarefas, para monitoramento
+     */
+    public static StringBuilder getRelatorioTarefas() {
+        StringBuilder sb = new StringBuilder();
 
-        Timer timer = new Timer(name);
-        timer.schedule(new TimerTask() {
-            @Override
-            public void run() {
-                runnable.run();
-            }
-        }, 1000, duration.toMillis());
-        return timer;
+        for (TipoTarefa tipo : TipoTarefa.values()) {
+            MetricasTarefas metricas = getMetricasTarefas(tipo);
+
+            sb.append("🧵 ").append(tipo).append(": ")
+                    .append(metricas.emExecucao()).append(" em execução (pico ").append(metricas.picoEmExecucao()).append("/").append(tipo.getLimiteThreads()).append("), ")
+                    .append(metricas.naFila()).append(" na fila, ")
+                    .append(metricas.concluidas()).append(" concluídas, ")
+                    .append(metricas.falhas()).append(" com falha, ")
+                    .append(metricas.rejeitadas()).append(" rejeitadas")
+                    .append(System.lineSeparator());
+        }
+
+        return sb;
     }
 
     /**
@@ -69,4 +96,68 @@ public class ProcessaUtils {
         thread.join();
         return thread;
     }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    /**
+     * Pool de threads de um tipo de tarefa e seus contadores
+     */
+    private static final class PoolTarefas {
+
+        private final TipoTarefa tipo;
+        private final ThreadPoolExecutor executor;
+
+        private final AtomicInteger emExecucao = new AtomicInteger();
+        private final AtomicInteger picoEmExecucao = new AtomicInteger();
+        private final AtomicLong concluidas = new AtomicLong();
+        private final AtomicLong falhas = new AtomicLong();
+        private final AtomicLong rejeitadas = new AtomicLong();
+
+        private PoolTarefas(TipoTarefa tipo) {
+            this.tipo = tipo;
+
+            AtomicInteger contador = new AtomicInteger();
+
+            this.executor = new ThreadPoolExecutor(tipo.getLimiteThreads(), tipo.getLimiteThreads(), TEMPO_OCIOSO_THREAD_SEGUNDOS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<>(tipo.getCapacidadeFila()), r -> new Thread(r, "Tarefa " + tipo + " - " + contador.incrementAndGet()));
+
+            // As threads são criadas sob demanda e encerradas quando ociosas
+            this.executor.allowCoreThreadTimeOut(true);
+        }
+
+        private Future<?> submeter(String nome, Runnable runnable) {
+            try {
+                return executor.submit(() -> executar(nome, runnable));
+            } catch (RejectedExecutionException e) {
+                rejeitadas.incrementAndGet();
+                logger.error(String.format("Tarefa \"%s\" do tipo %s rejeitada, %d tarefas já aguardam na fila", nome, tipo, executor.getQueue().size()));
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+
+        private void executar(String nome, Runnable runnable) {
+
+            Thread thread = Thread.currentThread();
+            String nomeThread = thread.getName();
+            thread.setName("Thread - " + nome);
+
+            picoEmExecucao.accumulateAndGet(emExecucao.incrementAndGet(), Math::max);
+
+            try {
+                runnable.run();
+            } catch (RuntimeException e) {
+                falhas.incrementAndGet();
+                logger.error(String.format("Erro inesperado na tarefa \"%s\"", nome), e);
+                throw e;
+            } finally {
+                emExecucao.decrementAndGet();
+                concluidas.incrementAndGet();
+                thread.setName(nomeThread);
+            }
+        }
+
+        private MetricasTarefas getMetricas() {
+            return new MetricasTarefas(tipo, emExecucao.get(), picoEmExecucao.get(), executor.getQueue().size(), concluidas.get(), falhas.get(), rejeitadas.get());
+        }
+    }
 }
@@ -0,0 +1,122 @@
+package com.hemelo.connect.benchmark;
+
+import com.hemelo.connect.catalogo.CatalogoArquivos;
+import com.hemelo.connect.catalogo.EstadoArquivo;
+import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.dto.RegistroArquivo;
+import com.hemelo.connect.enums.FileStatusEnvio;
+import com.hemelo.connect.enums.FileStatusLocal;
+import com.hemelo.connect.enums.FileStatusRemoto;
+import com.hemelo.connect.utils.HashUtils;
+import org.apache.commons.net.ftp.FTPFile;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Mede a memória ocupada pelo catálogo com 1 milhão de arquivos
+ * Compara o {@link FileWrapper} atual com a representação antiga, que mantinha o FTPFile inteiro, sete Instants e os hashes em texto
+ * <p>
+ * Execução: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.hemelo.connect.benchmark.CatalogoMemoriaBenchmark
+ */
+public class CatalogoMemoriaBenchmark {
+
+    private static final int QUANTIDADE = 1_000_000;
+    private static final int DIRETORIOS = 200;
+
+    public static void main(String[] args) {
+
+        Random random = new Random(42);
+
+        long antes = memoriaUtilizada();
+        List<ArquivoLegado> legados = new ArrayList<>(QUANTIDADE);
+
+        for (int i = 0; i < QUANTIDADE; i++) {
+            legados.add(new ArquivoLegado(criarFtpFile(i), "DIR" + (i % DIRETORIOS), hash(random, 20), hash(random, 20)));
+        }
+
+        long legado = memoriaUtilizada() - antes;
+        System.out.printf("Representação antiga: %,d bytes (%d bytes por arquivo)%n", legado, legado / QUANTIDADE);
+
+        legados = null;
+
+        antes = memoriaUtilizada();
+        CatalogoArquivos catalogo = new CatalogoArquivos();
+
+        int estado = EstadoArquivo.compactar(FileStatusRemoto.TRANSFERIDO, FileStatusLocal.DISPONIVEL, FileStatusEnvio.NAO_ENVIADO, false);
+
+        // O arquivo é criado a partir de um registro do journal, como na inicialização da aplicação, sem o log de cada transição
+        for (int i = 0; i < QUANTIDADE; i++) {
+            String diretorio = "DIR" + (i % DIRETORIOS);
+            long agora = System.currentTimeMillis();
+
+            catalogo.add(FileWrapper.fromRegistro(new RegistroArquivo(i, false, "/TI/Connect/" + diretorio, String.format("ARQ%07d.txt", i), diretorio, 1024L + i, agora,
+                    "C:\\connect\\arquivos\\" + diretorio, null, estado, null, true, hash(random, 20), null, hash(random, 20), agora, agora, -1)));
+        }
+
+        long atual = memoriaUtilizada() - antes;
+        System.out.printf("Catálogo atual, incluindo índices: %,d bytes (%d bytes por arquivo) para %d arquivos%n", atual, atual / QUANTIDADE, catalogo.size());
+    }
+
+    private static FTPFile criarFtpFile(int i) {
+        FTPFile ftpFile = new FTPFile();
+        String nome = String.format("ARQ%07d.txt", i);
+        ftpFile.setName(nome);
+        ftpFile.setSize(1024L + i);
+        ftpFile.setUser(new String("connect"));
+        ftpFile.setGroup(new String("connect"));
+        ftpFile.setTimestamp(Calendar.getInstance());
+        ftpFile.setRawListing("-rw-r--r--   1 connect  connect      " + (1024 + i) + " Jan 01 00:00 " + nome);
+        return ftpFile;
+    }
+
+    private static String hash(Random random, int bytes) {
+        byte[] valor = new byte[bytes];
+        random.nextBytes(valor);
+        return HashUtils.toHex(valor).toUpperCase();
+    }
+
+    private static long memoriaUtilizada() {
+        Runtime runtime = Runtime.getRuntime();
+
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    /**
+     * Campos da representação antiga do FileWrapper
+     */
+    private static final class ArquivoLegado {
+
+        private final FTPFile ftpFile;
+        private final String parent;
+        private final String hash, hashDatabase;
+        private final Instant ftpLatestUpdate, dbLatestUpdate, downloadLatestUpdate, envioLatestUpdate, enviadoAt, downloadedAt, findedAt;
+
+        private ArquivoLegado(FTPFile ftpFile, String parent, String hash, String hashDatabase) {
+            this.ftpFile = ftpFile;
+            this.parent = parent;
+            this.hash = hash;
+            this.hashDatabase = hashDatabase;
+            this.ftpLatestUpdate = Instant.now();
+            this.dbLatestUpdate = Instant.now();
+            this.downloadLatestUpdate = Instant.now();
+            this.envioLatestUpdate = Instant.now();
+            this.enviadoAt = null;
+            this.downloadedAt = Instant.now();
+            this.findedAt = Instant.now();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.hemelo.connect.benchmark;
+
+import com.hemelo.connect.enums.AlgoritmoHash;
+import com.hemelo.connect.utils.HashUtils;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara o cálculo de hash do {@link HashUtils} com a implementação antiga do FileUtils, que lia o arquivo inteiro para uma String
+ * <p>
+ * Execução: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.hemelo.connect.benchmark.HashBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx2g" })
+public class HashBenchmark {
+
+    @Param({ "4096", "1048576", "67108864" })
+    private int tamanho;
+
+    private Path arquivo;
+
+    @Setup(Level.Trial)
+    public void criarArquivo() throws IOException {
+        byte[] conteudo = new byte[tamanho];
+        new Random(42).nextBytes(conteudo);
+
+        arquivo = Files.createTempFile("hash-benchmark", ".bin");
+        Files.write(arquivo, conteudo);
+    }
+
+    @TearDown(Level.Trial)
+    public void excluirArquivo() throws IOException {
+        Files.deleteIfExists(arquivo);
+    }
+
+    @Benchmark
+    public String legadoSha1() throws Exception {
+        return calculateFileHashLegado(arquivo.toString(), "SHA-1");
+    }
+
+    @Benchmark
+    public String hashUtilsSha1() throws IOException {
+        return HashUtils.calcular(arquivo, AlgoritmoHash.SHA1);
+    }
+
+    @Benchmark
+    public Map<AlgoritmoHash, String> hashUtilsSha1Sha256Crc32c() throws IOException {
+        return HashUtils.calcular(arquivo, AlgoritmoHash.SHA1, AlgoritmoHash.SHA256, AlgoritmoHash.CRC32C);
+    }
+
+    /**
+     * Cópia da implementação antiga do FileUtils.calculateFileHash, mantida somente para comparação
+     */
+    private static String calculateFileHashLegado(String filePath, String algorithm) throws Exception {
+        File file = new File(filePath);
+        byte[] data = new byte[(int) file.length()];
+
+        try (FileInputStream fis = new FileInputStream(file)) {
+            fis.read(data);
+        }
+
+        byte[] input = new String(data, Charset.defaultCharset()).getBytes();
+        MessageDigest md = MessageDigest.getInstance(algorithm);
+        md.update(input, 0, input.length);
+
+        StringBuilder sb = new StringBuilder();
+
+        for (byte b : md.digest()) {
+            sb.append(String.format("%02x", b));
+        }
+
+        return sb.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(HashBenchmark.class.getSimpleName()).build()).run();
+    }
+}
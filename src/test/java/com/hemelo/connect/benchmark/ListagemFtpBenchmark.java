@@ -0,0 +1,106 @@
+package com.hemelo.connect.benchmark;
+
+import com.hemelo.connect.enums.EstrategiaListagem;
+import com.hemelo.connect.infra.FTPConnectionPool;
+import com.hemelo.connect.infra.FTPSession;
+import com.hemelo.connect.infra.ListadorFtp;
+import com.hemelo.connect.infra.ServidorFtpLocal;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.core.config.Configurator;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compara as estratégias de listagem da árvore do FTP contra um servidor local com centenas de diretórios
+ * Cada resposta do servidor é atrasada em {@link #LATENCIA}, simulando um FTP distante
+ * <p>
+ * A referência "legado" reproduz a varredura antiga: LIST dos diretórios e, para cada um, PWD, CWD, PWD, LIST e CDUP
+ * As estratégias por diretório também são medidas com {@link #SESSOES} sessões listando em paralelo
+ * <p>
+ * Execução: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.hemelo.connect.benchmark.ListagemFtpBenchmark
+ */
+public class ListagemFtpBenchmark {
+
+    private static final String BASE = "/TI/Connect";
+    private static final int DIRETORIOS = 300;
+    private static final int ARQUIVOS_POR_DIRETORIO = 10;
+    private static final Duration LATENCIA = Duration.ofMillis(5);
+    private static final int EXECUCOES = 3;
+    private static final int SESSOES = 4;
+
+    public static void main(String[] args) throws Exception {
+
+        Configurator.setRootLevel(Level.WARN);
+
+        System.out.printf("%d diretórios com %d arquivos, latência de %d ms por resposta%n", DIRETORIOS, ARQUIVOS_POR_DIRETORIO, LATENCIA.toMillis());
+
+        medir("legado", false, false, null, 1);
+        medir(EstrategiaListagem.LIST_POR_DIRETORIO.toString(), false, false, EstrategiaListagem.LIST_POR_DIRETORIO, 1);
+        medir(EstrategiaListagem.LIST_POR_DIRETORIO + " x" + SESSOES, false, false, EstrategiaListagem.LIST_POR_DIRETORIO, SESSOES);
+        medir(EstrategiaListagem.MLSD.toString(), false, true, EstrategiaListagem.MLSD, 1);
+        medir(EstrategiaListagem.MLSD + " x" + SESSOES, false, true, EstrategiaListagem.MLSD, SESSOES);
+        medir(EstrategiaListagem.LIST_RECURSIVO.toString(), true, false, EstrategiaListagem.LIST_RECURSIVO, 1);
+    }
+
+    private static void medir(String nome, boolean listRecursivo, boolean mlsd, EstrategiaListagem estrategia, int sessoes) throws Exception {
+
+        try (ServidorFtpLocal servidor = new ServidorFtpLocal(LATENCIA, listRecursivo, mlsd)) {
+
+            for (int d = 0; d < DIRETORIOS; d++) {
+                for (int a = 0; a < ARQUIVOS_POR_DIRETORIO; a++) {
+                    servidor.criarArquivo(String.format("%s/ESCOLA%03d", BASE, d), String.format("ARQ%03d_%02d.txt", d, a), 1024L * (a + 1));
+                }
+            }
+
+            FTPConnectionPool pool = new FTPConnectionPool(servidor::conectar, sessoes, sessoes, Duration.ofMinutes(1), Duration.ofSeconds(5));
+            pool.manter();
+
+            try (FTPSession sessao = pool.borrow()) {
+
+                long total = 0;
+                int arquivos = 0;
+                int comandosAntes = servidor.getComandos().size();
+
+                for (int i = 0; i < EXECUCOES; i++) {
+                    long inicio = System.nanoTime();
+                    arquivos = estrategia == null ? listarLegado(sessao) : listar(new ListadorFtp(estrategia), sessao, pool, sessoes);
+                    total += System.nanoTime() - inicio;
+                }
+
+                int comandos = (servidor.getComandos().size() - comandosAntes) / EXECUCOES;
+
+                System.out.printf("%-20s %6d ms por varredura, %5d comandos, %d arquivos%n", nome, TimeUnit.NANOSECONDS.toMillis(total / EXECUCOES), comandos, arquivos);
+            } finally {
+                pool.fechar();
+            }
+        }
+    }
+
+    private static int listar(ListadorFtp listador, FTPSession sessao, FTPConnectionPool pool, int sessoes) throws Exception {
+        AtomicInteger arquivos = new AtomicInteger();
+        listador.listar(sessao, pool, sessoes, BASE, null, (diretorio, entradas) -> arquivos.addAndGet(entradas.size()));
+        return arquivos.get();
+    }
+
+    private static int listarLegado(FTPSession sessao) throws Exception {
+
+        org.apache.commons.net.ftp.FTPClient client = sessao.getClient();
+        int arquivos = 0;
+
+        client.printWorkingDirectory();
+        client.changeWorkingDirectory(BASE);
+
+        for (FTPFile diretorio : client.listDirectories()) {
+            client.printWorkingDirectory();
+            client.changeWorkingDirectory(diretorio.getName());
+            client.printWorkingDirectory();
+            arquivos += client.listFiles().length;
+            client.changeToParentDirectory();
+        }
+
+        return arquivos;
+    }
+}
@@ -0,0 +1,87 @@
+package com.hemelo.connect.benchmark;
+
+import com.hemelo.connect.constants.Dates;
+import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.enums.FileStatusRemoto;
+import org.apache.commons.net.ftp.FTPFile;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mede a alocação de uma mudança de status do {@link FileWrapper} com o log de debug desligado
+ * Compara com o log antigo, que concatenava as mensagens e formatava as datas antes de chamar o logger
+ * <p>
+ * Execução: mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.hemelo.connect.benchmark.TransicaoStatusBenchmark
+ * O resultado relevante é gc.alloc.rate.norm, em bytes por operação
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = { "-Xmx1g" })
+public class TransicaoStatusBenchmark {
+
+    private static final Logger logger = LoggerFactory.getLogger(TransicaoStatusBenchmark.class);
+
+    private FileWrapper arquivo;
+    private boolean alternar;
+
+    private FileStatusRemoto statusLegado = FileStatusRemoto.TRANSFERIDO;
+    private long ftpLatestUpdateLegado = System.currentTimeMillis();
+
+    @Setup(Level.Trial)
+    public void configurar() {
+
+        // Como em produção com o nível INFO, o debug e os eventos de transição ficam desligados
+        Configurator.setRootLevel(org.apache.logging.log4j.Level.INFO);
+
+        FTPFile ftpFile = new FTPFile();
+        ftpFile.setName("ARQ0000001.txt");
+        ftpFile.setSize(1024);
+
+        arquivo = new FileWrapper(ftpFile);
+        arquivo.setFtpCaminhoBase("/TI/Connect/DIR");
+    }
+
+    @Benchmark
+    public boolean setStatusFtp() {
+        alternar = !alternar;
+        return arquivo.setStatusFtp(alternar ? FileStatusRemoto.EM_TRANSFERENCIA : FileStatusRemoto.TRANSFERIDO);
+    }
+
+    @Benchmark
+    public FileStatusRemoto setStatusFtpLegado() {
+        alternar = !alternar;
+        FileStatusRemoto statusFtp = alternar ? FileStatusRemoto.EM_TRANSFERENCIA : FileStatusRemoto.TRANSFERIDO;
+
+        // Cópia do log antigo do setter
+        if (statusLegado != statusFtp)
+            logger.debug("Status FTP do arquivo " + arquivo.getNomeArquivo() + " alterado de \"" + statusLegado + "\" para \"" + statusFtp + "\"");
+
+        statusLegado = statusFtp;
+
+        logger.debug("Atualizando data de última verificação do arquivo " + arquivo.getNomeArquivo() + " no FTP de " + formatar(ftpLatestUpdateLegado) + " para " + formatar(System.currentTimeMillis()));
+        ftpLatestUpdateLegado = System.currentTimeMillis();
+
+        return statusLegado;
+    }
+
+    private static String formatar(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), Dates.ZONE_ID).format(Dates.BRAZILIAN_DATE_TIME_FORMATTER);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TransicaoStatusBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build()).run();
+    }
+}
@@ -0,0 +1,136 @@
+package com.hemelo.connect.catalogo;
+
+import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.enums.FileStatusEnvio;
+import com.hemelo.connect.enums.FileStatusLocal;
+import com.hemelo.connect.enums.FileStatusRemoto;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogoArquivosTest {
+
+    private static FileWrapper criarArquivo(String caminhoBase, String nome) {
+        FTPFile ftpFile = new FTPFile();
+        ftpFile.setName(nome);
+
+        FileWrapper arquivo = new FileWrapper(ftpFile);
+        arquivo.setFtpCaminhoBase(caminhoBase);
+        return arquivo;
+    }
+
+    @Test
+    void testBuscaPorDiretorioENome() {
+        CatalogoArquivos catalogo = new CatalogoArquivos();
+        FileWrapper arquivo = criarArquivo("/TI/A", "x.txt");
+
+        assertTrue(catalogo.add(arquivo));
+        assertFalse(catalogo.add(criarArquivo("/TI/A", "x.txt")));
+        assertTrue(catalogo.add(criarArquivo("/TI/B", "x.txt")));
+
+        assertSame(arquivo, catalogo.buscar("/TI/A", "x.txt").orElseThrow());
+        assertTrue(catalogo.buscar("/TI/C", "x.txt").isEmpty());
+        assertEquals(2, catalogo.size());
+    }
+
+    @Test
+    void testIndicesAcompanhamTransicoes() {
+        CatalogoArquivos catalogo = new CatalogoArquivos();
+        FileWrapper arquivo = criarArquivo("/TI/A", "x.txt");
+        catalogo.add(arquivo);
+
+        assertTrue(catalogo.comStatus(FileStatusRemoto.NECESSARIO_VERIFICACAO).contains(arquivo));
+        assertTrue(catalogo.comStatus(FileStatusLocal.INDISPONIVEL).contains(arquivo));
+
+        arquivo.setStatusFtp(FileStatusRemoto.TRANSFERIDO);
+        arquivo.setStatusLocalSilent(FileStatusLocal.DISPONIVEL);
+        arquivo.setStatusEnvioSilent(FileStatusEnvio.ENVIADO);
+
+        assertFalse(catalogo.existe(FileStatusRemoto.NECESSARIO_VERIFICACAO));
+        assertTrue(catalogo.comStatus(FileStatusRemoto.TRANSFERIDO).contains(arquivo));
+        assertTrue(catalogo.comStatus(FileStatusLocal.INDISPONIVEL).isEmpty());
+        assertTrue(catalogo.comStatus(FileStatusEnvio.ENVIADO).contains(arquivo));
+
+        catalogo.removeIf(a -> a.getStatusEnvio() == FileStatusEnvio.ENVIADO);
+
+        assertTrue(catalogo.isEmpty());
+        assertTrue(catalogo.comStatus(FileStatusRemoto.TRANSFERIDO).isEmpty());
+    }
+
+    @Test
+    void testTotaisPorCategoria() {
+        CatalogoArquivos catalogo = new CatalogoArquivos();
+        FileWrapper arquivo = criarArquivo("/TI/A", "x.txt");
+        catalogo.add(arquivo);
+        catalogo.add(criarArquivo("/TI/A", "y.txt"));
+
+        assertEquals(2, catalogo.contar(CategoriaArquivo.EM_VERIFICACAO));
+
+        arquivo.setStatusFtp(FileStatusRemoto.TRANSFERIDO);
+        assertEquals(1, catalogo.contar(CategoriaArquivo.EM_VERIFICACAO));
+        assertEquals(1, catalogo.contar(CategoriaArquivo.AGUARDANDO_DOWNLOAD));
+
+        arquivo.setStatusLocalSilent(FileStatusLocal.DISPONIVEL);
+        assertEquals(0, catalogo.contar(CategoriaArquivo.AGUARDANDO_DOWNLOAD));
+        assertEquals(1, catalogo.contar(CategoriaArquivo.AGUARDANDO_ENVIO));
+        assertEquals(1, catalogo.contar(CategoriaArquivo.HASH_INVALIDO));
+
+        catalogo.remover(arquivo);
+        assertEquals(0, catalogo.contar(CategoriaArquivo.AGUARDANDO_ENVIO));
+        assertEquals(0, catalogo.contar(CategoriaArquivo.HASH_INVALIDO));
+    }
+
+    @Test
+    void testReservaAtomicaETransicoesInvalidas() throws Exception {
+        CatalogoArquivos catalogo = new CatalogoArquivos();
+        FileWrapper arquivo = criarArquivo("/TI/A", "x.txt");
+        catalogo.add(arquivo);
+        arquivo.setStatusFtp(FileStatusRemoto.TRANSFERIDO);
+
+        // Somente uma das threads consegue reservar o arquivo para download
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Boolean>> reservas = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            reservas.add(executor.submit(arquivo::reservarParaDownload));
+        }
+
+        int reservados = 0;
+
+        for (Future<Boolean> reserva : reservas) {
+            if (reserva.get()) reservados++;
+        }
+
+        executor.shutdown();
+
+        assertEquals(1, reservados);
+        assertTrue(catalogo.comStatus(FileStatusLocal.BAIXANDO).contains(arquivo));
+        assertEquals(0, catalogo.contar(CategoriaArquivo.AGUARDANDO_DOWNLOAD));
+
+        int versao = arquivo.getVersao();
+
+        assertTrue(arquivo.setStatusLocal(FileStatusLocal.DISPONIVEL));
+        assertEquals(versao + 1, arquivo.getVersao());
+
+        // O arquivo fica disponível uma única vez
+        assertFalse(arquivo.setStatusLocal(FileStatusLocal.INDISPONIVEL));
+        assertFalse(arquivo.reservarParaDownload());
+
+        assertTrue(arquivo.reservarParaEnvio());
+        assertFalse(arquivo.reservarParaEnvio());
+        assertTrue(arquivo.setStatusEnvio(FileStatusEnvio.ENVIADO));
+
+        // Um arquivo enviado não volta a ser enviado
+        assertFalse(arquivo.setStatusEnvio(FileStatusEnvio.NAO_ENVIADO));
+        assertFalse(arquivo.reservarParaEnvio());
+        assertTrue(catalogo.comStatus(FileStatusEnvio.ENVIADO).contains(arquivo));
+        assertTrue(catalogo.comStatus(FileStatusEnvio.ENVIANDO).isEmpty());
+    }
+}
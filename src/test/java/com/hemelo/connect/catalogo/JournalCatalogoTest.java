@@ -0,0 +1,72 @@
+package com.hemelo.connect.catalogo;
+
+import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.enums.FileStatusEnvio;
+import com.hemelo.connect.enums.FileStatusLocal;
+import com.hemelo.connect.enums.FileStatusRemoto;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalCatalogoTest {
+
+    @TempDir
+    Path diretorio;
+
+    private static FileWrapper criarArquivo(String nome) {
+        FTPFile ftpFile = new FTPFile();
+        ftpFile.setName(nome);
+        ftpFile.setSize(10);
+
+        FileWrapper arquivo = new FileWrapper(ftpFile);
+        arquivo.setFtpCaminhoBase("/TI/Connect/A");
+        return arquivo;
+    }
+
+    @Test
+    void testReconstroiCatalogoAposReinicio() throws Exception {
+
+        CatalogoArquivos catalogo = new CatalogoArquivos();
+        JournalCatalogo journal = new JournalCatalogo(diretorio);
+        journal.carregar(catalogo);
+
+        FileWrapper enviado = criarArquivo("enviado.txt");
+        catalogo.add(enviado);
+        catalogo.add(criarArquivo("removido.txt"));
+
+        enviado.setStatusFtp(FileStatusRemoto.TRANSFERIDO);
+        enviado.setStatusLocalSilent(FileStatusLocal.DISPONIVEL);
+        enviado.setStatusEnvioSilent(FileStatusEnvio.ENVIADO);
+        catalogo.removeIf(a -> a.getNomeArquivo().equals("removido.txt"));
+
+        journal.close();
+
+        // Simula uma queda durante a gravação de uma linha
+        Files.writeString(diretorio.resolve("catalogo.journal"), "{\"sequencia\":", StandardOpenOption.APPEND);
+
+        CatalogoArquivos recarregado = new CatalogoArquivos();
+        JournalCatalogo novoJournal = new JournalCatalogo(diretorio);
+
+        assertEquals(1, novoJournal.carregar(recarregado));
+
+        FileWrapper restaurado = recarregado.buscar("/TI/Connect/A", "enviado.txt").orElseThrow();
+        assertEquals(FileStatusLocal.DISPONIVEL, restaurado.getStatusLocal());
+        assertEquals(FileStatusEnvio.ENVIADO, restaurado.getStatusEnvio());
+        assertEquals(10, restaurado.getTamanho());
+        assertEquals(1, recarregado.contar(CategoriaArquivo.ENVIADOS));
+
+        novoJournal.close();
+
+        // Após a compactação o journal é esvaziado e o snapshot contém o catálogo inteiro
+        assertEquals(0, Files.size(diretorio.resolve("catalogo.journal")));
+        try (JournalCatalogo compactado = new JournalCatalogo(diretorio)) {
+            assertEquals(1, compactado.carregar(new CatalogoArquivos()));
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.hemelo.connect.infra;
+
+import com.hemelo.connect.enums.PoliticaAtraso;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgendadorJobsTest {
+
+    @Test
+    void testExecucoesAtrasadasNaoSeSobrepoem() throws InterruptedException {
+        AgendadorJobs agendador = new AgendadorJobs(2);
+        AtomicInteger emExecucao = new AtomicInteger();
+        AtomicInteger sobreposicoes = new AtomicInteger();
+
+        // Cada execução demora mais que o intervalo do job
+        AgendadorJobs.Job job = agendador.agendar("Lento", Duration.ofMillis(50), PoliticaAtraso.PULAR, () -> {
+            if (emExecucao.incrementAndGet() > 1) sobreposicoes.incrementAndGet();
+
+            try {
+                Thread.sleep(120);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            emExecucao.decrementAndGet();
+        });
+
+        Thread.sleep(1_700);
+        agendador.finalizar();
+
+        assertEquals(0, sobreposicoes.get());
+        assertTrue(job.getExecucoes() >= 2);
+        assertTrue(job.getExecucoesPuladas() >= job.getExecucoes() - 1);
+        assertEquals(job.getExecucoes(), Arrays.stream(job.getHistogramaDuracao()).sum());
+        assertEquals(job.getExecucoes(), job.getHistogramaDuracao()[2]);
+        assertEquals(AgendadorJobs.EstadoJob.CANCELADO, job.getEstado());
+    }
+}
@@ -0,0 +1,98 @@
+package com.hemelo.connect.infra;
+
+import com.hemelo.connect.exception.ConexaoException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class FTPConnectionPoolTest {
+
+    private final AtomicInteger criados = new AtomicInteger(0);
+
+    private org.apache.commons.net.ftp.FTPClient criarClienteConectado() {
+        criados.incrementAndGet();
+        org.apache.commons.net.ftp.FTPClient client = mock(org.apache.commons.net.ftp.FTPClient.class);
+        when(client.isConnected()).thenReturn(true);
+        return client;
+    }
+
+    @Test
+    void testReutilizaSessaoDevolvida() throws Exception {
+        FTPConnectionPool pool = new FTPConnectionPool(this::criarClienteConectado, 0, 2, Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+        FTPSession primeira = pool.borrow();
+        primeira.close();
+
+        FTPSession segunda = pool.borrow();
+        assertSame(primeira, segunda);
+        assertEquals(1, criados.get());
+        assertEquals(1, pool.getSessoesEmUso());
+
+        segunda.close();
+        assertEquals(0, pool.getSessoesEmUso());
+    }
+
+    @Test
+    void testSubstituiSessaoInvalidada() throws Exception {
+        FTPConnectionPool pool = new FTPConnectionPool(this::criarClienteConectado, 0, 2, Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+        FTPSession primeira = pool.borrow();
+        primeira.invalidar();
+        primeira.close();
+
+        FTPSession segunda = pool.borrow();
+        assertNotSame(primeira, segunda);
+        assertEquals(2, criados.get());
+        assertEquals(1, pool.getSessoesAbertas());
+
+        segunda.close();
+    }
+
+    @Test
+    void testRespeitaTamanhoMaximo() throws Exception {
+        FTPConnectionPool pool = new FTPConnectionPool(this::criarClienteConectado, 0, 1, Duration.ofMinutes(1), Duration.ofMillis(50));
+
+        try (FTPSession ignored = pool.borrow()) {
+            assertThrows(ConexaoException.class, pool::borrow);
+        }
+
+        pool.borrow().close();
+        assertEquals(1, criados.get());
+    }
+
+    @Test
+    void testBorrowOciosaNaoAbreSessoes() throws Exception {
+        FTPConnectionPool pool = new FTPConnectionPool(this::criarClienteConectado, 0, 2, Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+        assertTrue(pool.borrowOciosa().isEmpty());
+        assertEquals(0, criados.get());
+        assertEquals(0, pool.getSessoesEmUso());
+
+        FTPSession primeira = pool.borrow();
+        primeira.close();
+
+        try (FTPSession ociosa = pool.borrowOciosa().orElseThrow()) {
+            assertSame(primeira, ociosa);
+            assertTrue(pool.borrowOciosa().isEmpty());
+            assertEquals(1, pool.getSessoesEmUso());
+        }
+
+        assertEquals(1, criados.get());
+    }
+
+    @Test
+    void testManterCompletaTamanhoMinimo() {
+        FTPConnectionPool pool = new FTPConnectionPool(this::criarClienteConectado, 2, 3, Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+        pool.manter();
+
+        assertEquals(2, pool.getSessoesAbertas());
+        assertEquals(2, pool.getSessoesOciosas());
+        assertEquals(0, pool.getSessoesEmUso());
+    }
+}
@@ -0,0 +1,38 @@
+package com.hemelo.connect.infra;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class FTPSessionTest {
+
+    @Test
+    void testAcompanhaDiretorioSemPwd() throws Exception {
+        org.apache.commons.net.ftp.FTPClient client = mock(org.apache.commons.net.ftp.FTPClient.class);
+        when(client.isConnected()).thenReturn(true);
+        when(client.changeWorkingDirectory(anyString())).thenReturn(true);
+
+        FTPConnectionPool pool = new FTPConnectionPool(() -> client, 0, 1, Duration.ofMinutes(1), Duration.ofSeconds(1));
+
+        try (FTPSession sessao = pool.borrow()) {
+            assertTrue(sessao.changeWorkingDirectory("/TI/Connect"));
+            assertTrue(sessao.changeWorkingDirectory("/TI/Connect/"));
+            assertTrue(sessao.changeWorkingDirectory("PASTA"));
+            assertTrue(sessao.changeWorkingDirectory("/TI/Connect/PASTA"));
+            assertTrue(sessao.changeToParentDirectory());
+
+            assertEquals("/TI/Connect", sessao.getDiretorioAtual());
+        }
+
+        // Somente as mudanças efetivas chegam ao servidor, e o diretório nunca é consultado via PWD
+        verify(client, times(1)).changeWorkingDirectory("/TI/Connect");
+        verify(client, times(1)).changeWorkingDirectory("PASTA");
+        verify(client, times(1)).changeWorkingDirectory("..");
+        verify(client, never()).changeWorkingDirectory("/TI/Connect/");
+        verify(client, never()).printWorkingDirectory();
+    }
+}
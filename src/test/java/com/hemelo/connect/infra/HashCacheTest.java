@@ -0,0 +1,58 @@
+package com.hemelo.connect.infra;
+
+import com.hemelo.connect.enums.AlgoritmoHash;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HashCacheTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void testRecalculaSomenteQuandoArquivoMuda() throws Exception {
+        HashCache cache = new HashCache(diretorio.resolve("cache.tsv"), 10);
+        Path arquivo = Files.writeString(diretorio.resolve("a.txt"), "abc");
+        FileTime modificadoEm = Files.getLastModifiedTime(arquivo);
+
+        cache.registrar(arquivo, AlgoritmoHash.SHA1, "HASH-REGISTRADO");
+        assertEquals("hash-registrado", cache.calcular(arquivo, AlgoritmoHash.SHA1));
+
+        Files.writeString(arquivo, "abcd");
+        Files.setLastModifiedTime(arquivo, FileTime.fromMillis(modificadoEm.toMillis() + 1000));
+        assertEquals("81fe8bfe87576c3ecb22426f8e57847382917acf", cache.calcular(arquivo, AlgoritmoHash.SHA1));
+    }
+
+    @Test
+    void testPersisteEntreInstancias() throws Exception {
+        Path arquivoCache = diretorio.resolve("cache.tsv");
+        Path arquivo = Files.writeString(diretorio.resolve("a.txt"), "abc");
+
+        HashCache cache = new HashCache(arquivoCache, 10);
+        cache.registrar(arquivo, AlgoritmoHash.SHA1, "persistido");
+        cache.salvar();
+
+        HashCache recarregado = new HashCache(arquivoCache, 10);
+        recarregado.carregar();
+
+        assertEquals(1, recarregado.getTamanho());
+        assertEquals("persistido", recarregado.calcular(arquivo, AlgoritmoHash.SHA1));
+    }
+
+    @Test
+    void testDescartaMenosUtilizado() throws Exception {
+        HashCache cache = new HashCache(diretorio.resolve("cache.tsv"), 2);
+
+        for (int i = 0; i < 3; i++) {
+            cache.registrar(Files.writeString(diretorio.resolve(i + ".txt"), "x"), AlgoritmoHash.SHA1, "hash" + i);
+        }
+
+        assertEquals(2, cache.getTamanho());
+    }
+}
@@ -0,0 +1,220 @@
+package com.hemelo.connect.infra;
+
+import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.dto.MetadadosArquivoFtp;
+import com.hemelo.connect.enums.EstrategiaListagem;
+import org.apache.commons.net.ftp.FTPFile;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListadorFtpTest {
+
+    private static final String BASE = "/TI/Connect";
+
+    @Test
+    void testListagemRecursivaUtilizaUmUnicoList() throws Exception {
+        try (ServidorFtpLocal servidor = criarServidor(true, false)) {
+            ListadorFtp listador = new ListadorFtp(EstrategiaListagem.LIST_RECURSIVO);
+
+            Map<String, List<String>> resultado = listar(servidor, listador);
+
+            assertEquals(esperado(), resultado);
+            assertEquals(EstrategiaListagem.LIST_RECURSIVO, listador.getEstrategia());
+            assertEquals(1, servidor.getComandos().stream().filter(c -> c.startsWith("LIST")).count());
+        }
+    }
+
+    @Test
+    void testRecorreAsEstrategiasNaoSuportadas() throws Exception {
+        try (ServidorFtpLocal mlsd = criarServidor(false, true); ServidorFtpLocal list = criarServidor(false, false)) {
+
+            ListadorFtp listadorMlsd = new ListadorFtp(EstrategiaListagem.LIST_RECURSIVO);
+            assertEquals(esperado(), listar(mlsd, listadorMlsd));
+            assertEquals(EstrategiaListagem.MLSD, listadorMlsd.getEstrategia());
+
+            ListadorFtp listadorList = new ListadorFtp(EstrategiaListagem.LIST_RECURSIVO);
+            assertEquals(esperado(), listar(list, listadorList));
+            assertEquals(EstrategiaListagem.LIST_POR_DIRETORIO, listadorList.getEstrategia());
+
+            // Nenhuma estratégia muda de diretório
+            assertTrue(list.getComandos().stream().noneMatch(c -> c.startsWith("CWD") || c.startsWith("PWD")));
+        }
+    }
+
+    @Test
+    void testVarreduraIncrementalPulaDiretoriosSemAlteracao() throws Exception {
+        try (ServidorFtpLocal servidor = criarServidor(false, true)) {
+            ListadorFtp listador = new ListadorFtp(EstrategiaListagem.MLSD, Duration.ofHours(1), Duration.ZERO);
+
+            // A primeira varredura é completa e a segunda confirma as datas, portanto ambas listam todos os diretórios
+            assertEquals(esperado(), listar(servidor, listador, Set.of()));
+            assertEquals(esperado(), listar(servidor, listador, Set.of()));
+            assertEquals(6, contarMlsd(servidor));
+
+            // Somente o diretório base é listado
+            assertEquals(Map.of(), listar(servidor, listador, Set.of()));
+            assertEquals(7, contarMlsd(servidor));
+
+            // O novo arquivo altera a data do diretório
+            servidor.criarArquivo(BASE + "/ESCOLA B", "NOVO.txt", 50);
+            assertEquals(Map.of("ESCOLA B", List.of("NOVO.txt:50")), listar(servidor, listador, Set.of()));
+            assertEquals(9, contarMlsd(servidor));
+
+            // Os diretórios informados são listados mesmo sem alteração
+            long antes = servidor.getComandos().stream().filter(c -> c.equals("MLSD " + BASE + "/ESCOLA A")).count();
+            listar(servidor, listador, Set.of("ESCOLA A"));
+            assertEquals(antes + 1, servidor.getComandos().stream().filter(c -> c.equals("MLSD " + BASE + "/ESCOLA A")).count());
+        }
+    }
+
+    @Test
+    void testListagemParalelaUtilizaSessoesOciosas() throws Exception {
+        try (ServidorFtpLocal servidor = new ServidorFtpLocal(Duration.ofMillis(20), false, true)) {
+
+            for (int d = 0; d < 12; d++) {
+                servidor.criarArquivo(String.format("%s/ESCOLA %02d", BASE, d), "ARQ.txt", d);
+            }
+
+            FTPConnectionPool pool = new FTPConnectionPool(servidor::conectar, 3, 3, Duration.ofMinutes(1), Duration.ofSeconds(5));
+            Map<String, List<FTPFile>> resultado = new ConcurrentHashMap<>();
+
+            // Somente as sessões ociosas são utilizadas, portanto o pool é completado antes da varredura
+            pool.manter();
+
+            try (FTPSession sessao = pool.borrow()) {
+                int diretorios = new ListadorFtp(EstrategiaListagem.MLSD).listar(sessao, pool, 3, BASE, null, resultado::put);
+
+                assertEquals(12, diretorios);
+            } finally {
+                pool.fechar();
+            }
+
+            assertEquals(12, resultado.size());
+            resultado.forEach((diretorio, entradas) -> assertEquals(1, entradas.size(), diretorio));
+
+            // Cada diretório é listado uma única vez, distribuído entre as sessões
+            assertEquals(13, contarMlsd(servidor));
+            // As sessões adicionais são as ociosas do pool, sem conexões novas
+            assertEquals(3, servidor.getConexoes());
+        }
+    }
+
+    @Test
+    void testDiretoriosGrandesSaoEntreguesEmPaginas() throws Exception {
+        for (EstrategiaListagem estrategia : EstrategiaListagem.values()) {
+            try (ServidorFtpLocal servidor = criarServidor(true, estrategia == EstrategiaListagem.MLSD)) {
+
+                for (int a = 0; a < 1_200; a++) {
+                    servidor.criarArquivo(BASE + "/ESCOLA C", String.format("ARQ%04d.txt", a), a);
+                }
+
+                FTPConnectionPool pool = new FTPConnectionPool(servidor::conectar, 0, 1, Duration.ofMinutes(1), Duration.ofSeconds(5));
+                Map<String, List<Integer>> paginas = new TreeMap<>();
+
+                try (FTPSession sessao = pool.borrow()) {
+                    new ListadorFtp(estrategia).listar(sessao, null, 1, BASE, null, (diretorio, pagina) -> paginas.computeIfAbsent(diretorio, k -> new ArrayList<>()).add(pagina.size()));
+                } finally {
+                    pool.fechar();
+                }
+
+                assertEquals(Map.of("ESCOLA A", List.of(3), "ESCOLA B", List.of(0), "ESCOLA C", List.of(500, 500, 200)), paginas, estrategia.toString());
+            }
+        }
+    }
+
+    @Test
+    void testMlsdAnunciadoNoFeatEPreferidoAoListRecursivo() throws Exception {
+        try (ServidorFtpLocal servidor = criarServidor(true, true)) {
+            ListadorFtp listador = new ListadorFtp(EstrategiaListagem.LIST_RECURSIVO);
+
+            MetadadosArquivoFtp original = buscar(servidor, listador, "ESCOLA A", "ARQ2.txt");
+
+            assertEquals(EstrategiaListagem.MLSD, listador.getEstrategia());
+            assertTrue(servidor.getComandos().stream().noneMatch(c -> c.startsWith("LIST")));
+            assertTrue(original.precisaoSegundos());
+            assertNotNull(original.idUnico());
+            assertEquals("adfrw", original.permissoes());
+
+            FileWrapper arquivo = new FileWrapper(original);
+            assertFalse(arquivo.isAlteradoNoFtp(buscar(servidor, listador, "ESCOLA A", "ARQ2.txt")));
+
+            // Substituído por outro arquivo com o mesmo tamanho
+            Thread.sleep(5);
+            servidor.criarArquivo(BASE + "/ESCOLA A", "ARQ2.txt", 20);
+            assertTrue(arquivo.isAlteradoNoFtp(buscar(servidor, listador, "ESCOLA A", "ARQ2.txt")));
+
+            // O FEAT é enviado uma única vez para o servidor
+            assertEquals(1, servidor.getComandos().stream().filter(c -> c.equals("FEAT")).count());
+        }
+    }
+
+    private static MetadadosArquivoFtp buscar(ServidorFtpLocal servidor, ListadorFtp listador, String diretorio, String nome) throws Exception {
+        FTPConnectionPool pool = new FTPConnectionPool(servidor::conectar, 0, 1, Duration.ofMinutes(1), Duration.ofSeconds(5));
+
+        try (FTPSession sessao = pool.borrow()) {
+            return listador.listar(sessao, BASE).get(diretorio).stream()
+                    .filter(f -> f.getName().equals(nome))
+                    .map(MetadadosArquivoFtp::de)
+                    .findFirst().orElseThrow();
+        } finally {
+            pool.fechar();
+        }
+    }
+
+    private static long contarMlsd(ServidorFtpLocal servidor) {
+        return servidor.getComandos().stream().filter(c -> c.startsWith("MLSD")).count();
+    }
+
+    private static ServidorFtpLocal criarServidor(boolean listRecursivo, boolean mlsd) throws Exception {
+        ServidorFtpLocal servidor = new ServidorFtpLocal(Duration.ZERO, listRecursivo, mlsd);
+
+        servidor.criarArquivo(BASE + "/ESCOLA A", "ARQ 1.txt", 10);
+        servidor.criarArquivo(BASE + "/ESCOLA A", "ARQ2.txt", 20);
+        servidor.criarArquivo(BASE + "/ESCOLA A/ANTIGOS", "ARQ3.txt", 30);
+        servidor.criarDiretorio(BASE + "/ESCOLA B");
+        servidor.criarArquivo(BASE, "SOLTO.txt", 40);
+
+        return servidor;
+    }
+
+    private static Map<String, List<String>> esperado() {
+        return new TreeMap<>(Map.of(
+                "ESCOLA A", List.of("ARQ 1.txt:10", "ARQ2.txt:20", "ANTIGOS:d"),
+                "ESCOLA B", List.of()));
+    }
+
+    private static Map<String, List<String>> listar(ServidorFtpLocal servidor, ListadorFtp listador) throws Exception {
+        return listar(servidor, listador, null);
+    }
+
+    private static Map<String, List<String>> listar(ServidorFtpLocal servidor, ListadorFtp listador, Set<String> relistar) throws Exception {
+        FTPConnectionPool pool = new FTPConnectionPool(servidor::conectar, 0, 1, Duration.ofMinutes(1), Duration.ofSeconds(5));
+
+        try (FTPSession sessao = pool.borrow()) {
+            Map<String, List<String>> resultado = new TreeMap<>();
+
+            listador.listar(sessao, BASE, relistar).forEach((diretorio, entradas) -> resultado.put(diretorio, entradas.stream()
+                    .sorted((a, b) -> Boolean.compare(a.isDirectory(), b.isDirectory()))
+                    .map(ListadorFtpTest::descrever)
+                    .collect(Collectors.toList())));
+
+            return resultado;
+        } finally {
+            pool.fechar();
+        }
+    }
+
+    private static String descrever(FTPFile file) {
+        return file.getName() + ":" + (file.isDirectory() ? "d" : String.valueOf(file.getSize()));
+    }
+}
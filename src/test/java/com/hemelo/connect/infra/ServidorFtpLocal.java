@@ -0,0 +1,377 @@
+package com.hemelo.connect.infra;
+
+import java.io.*;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servidor FTP mínimo em memória, utilizado nos testes e benchmarks de listagem e download
+ * <p>
+ * Suporta somente o necessário para listagens e downloads em modo passivo: USER, PASS, SYST, FEAT, TYPE, PASV, LIST (com ou sem -R), MLSD,
+ * RETR, REST (se habilitado), SIZE, CWD, PWD, NOOP e QUIT
+ * Cada resposta do canal de controle é atrasada pela latência configurada, simulando um servidor distante
+ */
+public class ServidorFtpLocal implements Closeable {
+
+    private static final String DATA_LISTAGEM = "Jan 01 00:00";
+
+    private final ServerSocket servidor;
+    private final Duration latencia;
+    private final boolean suportaListRecursivo;
+    private final boolean suportaMlsd;
+
+    // Entradas de cada diretório, pelo caminho absoluto do diretório
+    private final Map<String, List<Entrada>> diretorios = new ConcurrentHashMap<>();
+    private final List<String> comandos = new CopyOnWriteArrayList<>();
+    private final AtomicInteger conexoes = new AtomicInteger();
+
+    // Conteúdo dos arquivos criados com conteúdo, pelo caminho absoluto do arquivo
+    private final Map<String, byte[]> conteudos = new ConcurrentHashMap<>();
+
+    private volatile boolean suportaRest = true;
+    private final AtomicInteger retrInterrompidos = new AtomicInteger();
+    private volatile long bytesAntesDaInterrupcao;
+
+    private volatile boolean executando = true;
+
+    public ServidorFtpLocal(Duration latencia, boolean suportaListRecursivo, boolean suportaMlsd) throws IOException {
+        this.servidor = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        this.latencia = latencia;
+        this.suportaListRecursivo = suportaListRecursivo;
+        this.suportaMlsd = suportaMlsd;
+
+        diretorios.put("/", new CopyOnWriteArrayList<>());
+
+        Thread thread = new Thread(this::aceitar, "Servidor FTP local");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public int getPorta() {
+        return servidor.getLocalPort();
+    }
+
+    /**
+     * Cria um cliente conectado e autenticado no servidor, em modo passivo
+     */
+    public org.apache.commons.net.ftp.FTPClient conectar() throws IOException {
+        org.apache.commons.net.ftp.FTPClient client = new org.apache.commons.net.ftp.FTPClient();
+        client.connect(InetAddress.getLoopbackAddress(), getPorta());
+        client.login("teste", "teste");
+        client.enterLocalPassiveMode();
+        return client;
+    }
+
+    /**
+     * Cria os diretórios do caminho, se não existirem
+     */
+    public void criarDiretorio(String caminho) {
+
+        String atual = "/";
+
+        for (String parte : caminho.split("/")) {
+            if (parte.isEmpty()) continue;
+
+            String filho = filho(atual, parte);
+
+            if (!diretorios.containsKey(filho)) {
+                diretorios.put(filho, new CopyOnWriteArrayList<>());
+                diretorios.get(atual).add(new Entrada(parte, true, 0, System.currentTimeMillis()));
+            }
+
+            atual = filho;
+        }
+    }
+
+    /**
+     * Cria ou substitui um arquivo, criando o diretório se necessário
+     */
+    public void criarArquivo(String diretorio, String nome, long tamanho) {
+        criarDiretorio(diretorio);
+
+        String caminho = normalizar(diretorio);
+        List<Entrada> entradas = diretorios.get(caminho);
+        entradas.removeIf(e -> e.nome.equals(nome));
+        entradas.add(new Entrada(nome, false, tamanho, System.currentTimeMillis()));
+
+        // Atualiza a data de modificação do diretório, sempre avançando ao menos um segundo, a precisão do MLSD
+        if (!caminho.equals("/")) {
+            String pai = caminho.substring(0, caminho.lastIndexOf('/'));
+            String nomeDiretorio = caminho.substring(caminho.lastIndexOf('/') + 1);
+            List<Entrada> irmaos = diretorios.get(pai.isEmpty() ? "/" : pai);
+
+            irmaos.stream().filter(e -> e.nome.equals(nomeDiretorio)).findFirst().ifPresent(anterior -> {
+                irmaos.remove(anterior);
+                irmaos.add(new Entrada(nomeDiretorio, true, 0, Math.max(System.currentTimeMillis(), anterior.modificacao + 1000)));
+            });
+        }
+    }
+
+    /**
+     * Cria ou substitui um arquivo com conteúdo, que pode ser baixado via RETR
+     */
+    public void criarArquivo(String diretorio, String nome, byte[] conteudo) {
+        criarArquivo(diretorio, nome, conteudo.length);
+        conteudos.put(filho(normalizar(diretorio), nome), conteudo);
+    }
+
+    /**
+     * Define se o servidor aceita o REST. Se não aceitar, o REST é respondido com 502
+     */
+    public void setSuportaRest(boolean suportaRest) {
+        this.suportaRest = suportaRest;
+    }
+
+    /**
+     * Faz com que os próximos RETR encerrem a conexão de dados após enviar a quantidade de bytes informada, respondendo 426
+     * @param quantidade quantidade de RETR interrompidos
+     * @param bytes bytes enviados antes da interrupção
+     */
+    public void interromperRetr(int quantidade, long bytes) {
+        this.bytesAntesDaInterrupcao = bytes;
+        this.retrInterrompidos.set(quantidade);
+    }
+
+    /**
+     * Comandos recebidos pelo servidor, em todas as conexões
+     */
+    public List<String> getComandos() {
+        return comandos;
+    }
+
+    public int getConexoes() {
+        return conexoes.get();
+    }
+
+    @Override
+    public void close() throws IOException {
+        executando = false;
+        servidor.close();
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private void aceitar() {
+        while (executando) {
+            try {
+                Socket socket = servidor.accept();
+                conexoes.incrementAndGet();
+
+                Thread thread = new Thread(() -> atender(socket), "Servidor FTP local - conexão");
+                thread.setDaemon(true);
+                thread.start();
+            } catch (IOException e) {
+                if (executando) e.printStackTrace();
+            }
+        }
+    }
+
+    private void atender(Socket socket) {
+
+        ServerSocket passivo = null;
+        String diretorioAtual = "/";
+        long reinicio = 0;
+
+        try (socket;
+             BufferedReader entrada = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer saida = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8)) {
+
+            responder(saida, "220 Servidor FTP local");
+
+            String linha;
+
+            while ((linha = entrada.readLine()) != null) {
+
+                comandos.add(linha);
+
+                int espaco = linha.indexOf(' ');
+                String comando = (espaco < 0 ? linha : linha.substring(0, espaco)).toUpperCase();
+                String argumento = espaco < 0 ? "" : linha.substring(espaco + 1).trim();
+
+                switch (comando) {
+                    case "USER" -> responder(saida, "331 Informe a senha");
+                    case "PASS" -> responder(saida, "230 Autenticado");
+                    case "SYST" -> responder(saida, "215 UNIX Type: L8");
+                    case "FEAT" -> responder(saida, suportaMlsd ? "211-Recursos:\r\n MLST type*;size*;modify*;unique*;perm*;\r\n SIZE\r\n211 Fim" : "211 Nenhum recurso");
+                    case "TYPE", "OPTS" -> responder(saida, "200 OK");
+                    case "NOOP" -> responder(saida, "200 NOOP");
+                    case "PWD" -> responder(saida, "257 \"" + diretorioAtual + "\"");
+                    case "CWD" -> {
+                        String destino = resolver(diretorioAtual, argumento);
+
+                        if (diretorios.containsKey(destino)) {
+                            diretorioAtual = destino;
+                            responder(saida, "250 OK");
+                        } else {
+                            responder(saida, "550 Diretorio inexistente");
+                        }
+                    }
+                    case "PASV" -> {
+                        if (passivo != null) passivo.close();
+
+                        passivo = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+                        int porta = passivo.getLocalPort();
+                        responder(saida, String.format("227 Entering Passive Mode (127,0,0,1,%d,%d)", porta / 256, porta % 256));
+                    }
+                    case "LIST", "MLSD" -> {
+                        if ("MLSD".equals(comando) && !suportaMlsd) {
+                            responder(saida, "500 Comando nao reconhecido");
+                            continue;
+                        }
+
+                        boolean recursivo = argumento.startsWith("-R");
+                        String caminho = resolver(diretorioAtual, recursivo ? argumento.substring(2).trim() : argumento);
+
+                        if (passivo == null || !diretorios.containsKey(caminho)) {
+                            responder(saida, "550 Diretorio inexistente");
+                            continue;
+                        }
+
+                        responder(saida, "150 Abrindo conexao de dados");
+
+                        try (Socket dados = passivo.accept(); Writer escritor = new OutputStreamWriter(dados.getOutputStream(), StandardCharsets.UTF_8)) {
+                            if ("MLSD".equals(comando)) {
+                                listarMlsd(escritor, caminho);
+                            } else if (recursivo && suportaListRecursivo) {
+                                listarRecursivo(escritor, caminho);
+                            } else {
+                                listar(escritor, caminho);
+                            }
+                        }
+
+                        passivo.close();
+                        passivo = null;
+                        responder(saida, "226 Transferencia concluida");
+                    }
+                    case "REST" -> {
+                        if (!suportaRest) {
+                            responder(saida, "502 Comando nao implementado");
+                            continue;
+                        }
+
+                        reinicio = Long.parseLong(argumento);
+                        responder(saida, "350 Reiniciando em " + reinicio);
+                    }
+                    case "SIZE" -> {
+                        byte[] conteudo = conteudos.get(resolver(diretorioAtual, argumento));
+                        responder(saida, conteudo == null ? "550 Arquivo inexistente" : "213 " + conteudo.length);
+                    }
+                    case "RETR" -> {
+                        byte[] conteudo = conteudos.get(resolver(diretorioAtual, argumento));
+                        long inicio = reinicio;
+                        reinicio = 0;
+
+                        if (passivo == null || conteudo == null) {
+                            responder(saida, "550 Arquivo inexistente");
+                            continue;
+                        }
+
+                        responder(saida, "150 Abrindo conexao de dados");
+
+                        boolean interromper = retrInterrompidos.getAndUpdate(n -> Math.max(0, n - 1)) > 0;
+                        long fim = interromper ? Math.min(conteudo.length, inicio + bytesAntesDaInterrupcao) : conteudo.length;
+                        boolean completo = !interromper;
+
+                        try (Socket dados = passivo.accept(); OutputStream escritor = dados.getOutputStream()) {
+                            escritor.write(conteudo, (int) Math.min(inicio, conteudo.length), (int) Math.max(0, fim - inicio));
+                        } catch (IOException e) {
+                            // O cliente encerrou a conexão de dados antes do fim, como nos downloads segmentados
+                            completo = false;
+                        }
+
+                        passivo.close();
+                        passivo = null;
+                        responder(saida, completo ? "226 Transferencia concluida" : "426 Conexao de dados encerrada");
+                    }
+                    case "QUIT" -> {
+                        responder(saida, "221 Ate logo");
+                        return;
+                    }
+                    default -> responder(saida, "502 Comando nao implementado");
+                }
+            }
+        } catch (IOException e) {
+            // Conexão encerrada pelo cliente
+        } finally {
+            try {
+                if (passivo != null) passivo.close();
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private void responder(Writer saida, String resposta) throws IOException {
+        if (!latencia.isZero()) {
+            try {
+                Thread.sleep(latencia.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        saida.write(resposta + "\r\n");
+        saida.flush();
+    }
+
+    private void listar(Writer escritor, String caminho) throws IOException {
+        for (Entrada entrada : diretorios.getOrDefault(caminho, List.of())) {
+            escritor.write(entrada.linhaUnix() + "\r\n");
+        }
+    }
+
+    private void listarRecursivo(Writer escritor, String caminho) throws IOException {
+        escritor.write(caminho + ":\r\n");
+        listar(escritor, caminho);
+
+        for (Entrada entrada : diretorios.getOrDefault(caminho, List.of())) {
+            if (entrada.diretorio) {
+                escritor.write("\r\n");
+                listarRecursivo(escritor, filho(caminho, entrada.nome));
+            }
+        }
+    }
+
+    private void listarMlsd(Writer escritor, String caminho) throws IOException {
+        for (Entrada entrada : diretorios.getOrDefault(caminho, List.of())) {
+            escritor.write(entrada.linhaMlsd() + "\r\n");
+        }
+    }
+
+    private static String resolver(String atual, String caminho) {
+        if (caminho.isEmpty()) return atual;
+        if (caminho.equals("..")) return atual.equals("/") ? "/" : normalizar(atual.substring(0, atual.lastIndexOf('/')));
+        return caminho.startsWith("/") ? normalizar(caminho) : filho(atual, caminho);
+    }
+
+    private static String filho(String diretorio, String nome) {
+        return normalizar(diretorio + "/" + nome);
+    }
+
+    private static String normalizar(String caminho) {
+        String normalizado = caminho.replaceAll("/{2,}", "/");
+        return normalizado.length() > 1 && normalizado.endsWith("/") ? normalizado.substring(0, normalizado.length() - 1) : (normalizado.isEmpty() ? "/" : normalizado);
+    }
+
+    private record Entrada(String nome, boolean diretorio, long tamanho, long modificacao) {
+
+        String linhaUnix() {
+            return String.format("%s 1 ftp ftp %12d %s %s", diretorio ? "drwxr-xr-x" : "-rw-r--r--", tamanho, DATA_LISTAGEM, nome);
+        }
+
+        String linhaMlsd() {
+            return String.format("type=%s;size=%d;modify=%s;unique=%x;perm=%s; %s", diretorio ? "dir" : "file", tamanho,
+                    DateTimeFormatter.ofPattern("yyyyMMddHHmmss").withZone(ZoneOffset.UTC).format(Instant.ofEpochMilli(modificacao)),
+                    Objects.hash(nome, modificacao), diretorio ? "elc" : "adfrw", nome);
+        }
+    }
+}
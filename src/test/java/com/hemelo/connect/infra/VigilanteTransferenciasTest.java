@@ -0,0 +1,119 @@
+package com.hemelo.connect.infra;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VigilanteTransferenciasTest {
+
+    @Test
+    void testTransferenciaSemProgressoEAbortada() {
+        VigilanteTransferencias vigilante = new VigilanteTransferencias(Duration.ofMillis(10), Duration.ofMillis(200), Duration.ofSeconds(30));
+
+        VigilanteTransferencias.Transferencia transferencia = vigilante.registrar("travada", 100);
+        InputStream inputStream = transferencia.monitorar(new StreamTravado());
+
+        // A leitura fica bloqueada até o vigilante fechar o stream
+        assertThrows(IOException.class, inputStream::read);
+        assertTrue(transferencia.isAbortada());
+        assertTrue(vigilante.getTransferencias().isEmpty());
+    }
+
+    @Test
+    void testBytesRecebidosSaoContados() throws IOException {
+        VigilanteTransferencias vigilante = new VigilanteTransferencias(Duration.ofMillis(10), Duration.ofSeconds(30), Duration.ofMillis(10));
+
+        try (VigilanteTransferencias.Transferencia transferencia = vigilante.registrar("completa", 1000)) {
+            transferencia.monitorar(new ByteArrayInputStream(new byte[1000])).transferTo(OutputStream.nullOutputStream());
+
+            assertEquals(1000, transferencia.getBytes());
+            assertFalse(transferencia.isAbortada());
+            assertEquals(1, vigilante.getTransferencias().size());
+        }
+
+        assertTrue(vigilante.getTransferencias().isEmpty());
+    }
+
+    @Test
+    void testTransferenciaLentaComProgressoNaoEAbortada() throws IOException {
+        VigilanteTransferencias vigilante = new VigilanteTransferencias(Duration.ofMillis(10), Duration.ofMillis(200), Duration.ofSeconds(30));
+
+        try (VigilanteTransferencias.Transferencia transferencia = vigilante.registrar("lenta", 20)) {
+            // Leva bem mais que o limite sem progresso, mas recebe um byte a cada 50 ms
+            transferencia.monitorar(new StreamLento(20, 50)).transferTo(OutputStream.nullOutputStream());
+
+            assertEquals(20, transferencia.getBytes());
+            assertFalse(transferencia.isAbortada());
+        }
+    }
+
+    /**
+     * Stream que entrega um byte por vez, aguardando entre as leituras
+     */
+    private static final class StreamLento extends InputStream {
+
+        private int restantes;
+        private final long intervaloMs;
+
+        private StreamLento(int bytes, long intervaloMs) {
+            this.restantes = bytes;
+            this.intervaloMs = intervaloMs;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (restantes == 0) return -1;
+
+            try {
+                Thread.sleep(intervaloMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrompido", e);
+            }
+
+            restantes--;
+            return 0;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int lido = read();
+
+            if (lido < 0) return -1;
+
+            b[off] = (byte) lido;
+            return 1;
+        }
+    }
+
+    /**
+     * Stream que nunca recebe bytes, como uma conexão de dados travada
+     */
+    private static final class StreamTravado extends InputStream {
+
+        private final CountDownLatch fechado = new CountDownLatch(1);
+
+        @Override
+        public int read() throws IOException {
+            try {
+                fechado.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            throw new IOException("Stream fechado");
+        }
+
+        @Override
+        public void close() {
+            fechado.countDown();
+        }
+    }
+}
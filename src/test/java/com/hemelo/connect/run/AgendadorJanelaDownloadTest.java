@@ -0,0 +1,73 @@
+package com.hemelo.connect.run;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AgendadorJanelaDownloadTest {
+
+    private static final ZoneId ZONA = ZoneId.of("America/Sao_Paulo");
+    private static final List<LocalTime> HORARIOS = List.of(LocalTime.of(10, 0), LocalTime.of(10, 1), LocalTime.of(10, 2, 30), LocalTime.of(12, 0));
+
+    @Test
+    void testCalculaProximoHorario() {
+        AgendadorJanelaDownload agendador = new AgendadorJanelaDownload(HORARIOS, () -> {});
+
+        ZonedDateTime referencia = ZonedDateTime.of(2024, 3, 10, 10, 1, 0, 0, ZONA);
+
+        // Os horários são truncados para minutos, e o horário igual à referência não é o próximo
+        assertEquals(referencia.withMinute(2), agendador.calcularProxima(referencia));
+        assertEquals(referencia.withHour(12).withMinute(0), agendador.calcularProxima(referencia.withMinute(2)));
+        assertEquals(ZonedDateTime.of(2024, 3, 11, 10, 0, 0, 0, ZONA), agendador.calcularProxima(referencia.withHour(12).withMinute(0)));
+    }
+
+    @Test
+    void testHorariosPerdidosSaoAgrupadosEmUmaExecucao() {
+        RelogioAjustavel relogio = new RelogioAjustavel(ZonedDateTime.of(2024, 3, 10, 10, 0, 30, 0, ZONA).toInstant());
+        AtomicInteger execucoes = new AtomicInteger();
+        AgendadorJanelaDownload[] agendador = new AgendadorJanelaDownload[1];
+
+        agendador[0] = new AgendadorJanelaDownload(HORARIOS, () -> {
+            if (execucoes.incrementAndGet() == 1) {
+                // A primeira execução demora até depois dos horários de 10:01 e 10:02
+                relogio.instante = relogio.instante.plus(Duration.ofMinutes(2));
+            } else {
+                agendador[0].parar();
+            }
+        }, relogio);
+
+        // Iniciado dentro do minuto de 10:00, executa imediatamente e depois uma única vez para os horários perdidos
+        agendador[0].run();
+
+        assertEquals(2, execucoes.get());
+        assertNull(agendador[0].getProximaExecucao());
+    }
+
+    private static final class RelogioAjustavel extends Clock {
+
+        private volatile Instant instante;
+
+        private RelogioAjustavel(Instant instante) {
+            this.instante = instante;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZONA;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instante;
+        }
+    }
+}
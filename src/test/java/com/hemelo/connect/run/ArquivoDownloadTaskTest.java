@@ -0,0 +1,147 @@
+package com.hemelo.connect.run;
+
+import com.hemelo.connect.dto.FileWrapper;
+import com.hemelo.connect.dto.MetadadosArquivoFtp;
+import com.hemelo.connect.dto.ResultadoDownload;
+import com.hemelo.connect.infra.FTPConnectionPool;
+import com.hemelo.connect.infra.ServidorFtpLocal;
+import com.hemelo.connect.utils.HashUtils;
+import org.apache.commons.net.ftp.FTP;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ArquivoDownloadTaskTest {
+
+    private static final String DIRETORIO = "ESCOLA A";
+    private static final String CAMINHO_DIRETORIO = "/TI/Connect/" + DIRETORIO;
+    private static final String NOME = "ARQ.txt";
+
+    @TempDir
+    Path diretorioLocal;
+
+    @Test
+    void testDownloadRetomadoIgualAoCompleto() throws Exception {
+        byte[] conteudo = gerarConteudo(100_000);
+
+        try (ServidorFtpLocal servidor = criarServidor(conteudo)) {
+            // A primeira tentativa recebe somente parte do arquivo
+            servidor.interromperRetr(1, 30_000);
+
+            FileWrapper fileBase = baixar(servidor, conteudo.length, 1);
+
+            assertConteudo(conteudo, fileBase);
+            assertTrue(servidor.getComandos().contains("REST 30000"));
+        }
+    }
+
+    @Test
+    void testRestRecusadoRecomecaDoInicio() throws Exception {
+        byte[] conteudo = gerarConteudo(100_000);
+
+        try (ServidorFtpLocal servidor = criarServidor(conteudo)) {
+            servidor.setSuportaRest(false);
+            servidor.interromperRetr(1, 30_000);
+
+            FileWrapper fileBase = baixar(servidor, conteudo.length, 1);
+
+            assertConteudo(conteudo, fileBase);
+
+            // A tentativa de retomada foi recusada, e a seguinte baixou o arquivo inteiro sem REST
+            assertEquals(List.of("RETR", "REST 30000", "RETR"), getTransferencias(servidor));
+        }
+    }
+
+    @Test
+    void testSegmentosDeTamanhoNaoDivisivel() throws Exception {
+        byte[] conteudo = gerarConteudo(100_003);
+
+        try (ServidorFtpLocal servidor = criarServidor(conteudo)) {
+            FileWrapper fileBase = baixar(servidor, conteudo.length, 4);
+
+            assertConteudo(conteudo, fileBase);
+
+            // Segmentos de 25001 bytes, o último com 25000
+            List<String> restarts = getTransferencias(servidor).stream().filter(c -> c.startsWith("REST")).sorted().toList();
+            assertEquals(List.of("REST 25001", "REST 50002", "REST 75003"), restarts);
+        }
+    }
+
+    @Test
+    void testRestRecusadoNoSegmentoBaixaSemSegmentos() throws Exception {
+        byte[] conteudo = gerarConteudo(100_003);
+
+        try (ServidorFtpLocal servidor = criarServidor(conteudo)) {
+            servidor.setSuportaRest(false);
+
+            FileWrapper fileBase = baixar(servidor, conteudo.length, 4);
+
+            assertConteudo(conteudo, fileBase);
+
+            // Cada segmento com REST desiste na primeira recusa, e a tentativa seguinte baixa o arquivo em um único RETR
+            List<String> transferencias = getTransferencias(servidor);
+            assertTrue(transferencias.stream().filter(c -> c.startsWith("REST")).count() <= 3);
+            assertEquals(List.of("RETR", "RETR"), transferencias.stream().filter(c -> c.startsWith("RETR")).toList());
+        }
+    }
+
+    //------------------------------------------------------------------------------------------------------------------
+
+    private ServidorFtpLocal criarServidor(byte[] conteudo) throws Exception {
+        ServidorFtpLocal servidor = new ServidorFtpLocal(Duration.ZERO, false, true);
+        servidor.criarArquivo(CAMINHO_DIRETORIO, NOME, conteudo);
+        return servidor;
+    }
+
+    private FileWrapper baixar(ServidorFtpLocal servidor, long tamanho, int segmentos) {
+
+        FTPConnectionPool pool = new FTPConnectionPool(() -> {
+            org.apache.commons.net.ftp.FTPClient client = servidor.conectar();
+            client.setFileType(FTP.BINARY_FILE_TYPE);
+            return client;
+        }, 0, 4, Duration.ofMinutes(1), Duration.ofSeconds(5));
+
+        FileWrapper fileBase = new FileWrapper(new MetadadosArquivoFtp(NOME, false, tamanho,
+                MetadadosArquivoFtp.SEM_DATA, false, null, null, null));
+        fileBase.setParent(DIRETORIO);
+        fileBase.setFtpCaminhoBase(CAMINHO_DIRETORIO);
+
+        try {
+            ResultadoDownload resultado = new ArquivoDownloadTask(fileBase, null, Instant.now(), false, () -> pool, diretorioLocal.toString(), segmentos).call();
+            assertEquals(ResultadoDownload.Situacao.BAIXADO, resultado.situacao());
+        } finally {
+            pool.fechar();
+        }
+
+        return fileBase;
+    }
+
+    /**
+     * Comandos REST e RETR recebidos pelo servidor, sem o caminho do arquivo
+     */
+    private static List<String> getTransferencias(ServidorFtpLocal servidor) {
+        return servidor.getComandos().stream().filter(c -> c.startsWith("REST") || c.startsWith("RETR")).map(c -> c.startsWith("RETR") ? "RETR" : c).toList();
+    }
+
+    private static void assertConteudo(byte[] conteudo, FileWrapper fileBase) throws Exception {
+        assertArrayEquals(conteudo, Files.readAllBytes(Path.of(fileBase.getLocalCaminhoCompleto())));
+
+        // O hash calculado durante o download é o mesmo do conteúdo completo
+        assertEquals(HashUtils.toHex(MessageDigest.getInstance("SHA-1").digest(conteudo)), fileBase.getHash());
+    }
+
+    private static byte[] gerarConteudo(int tamanho) {
+        byte[] conteudo = new byte[tamanho];
+        new Random(tamanho).nextBytes(conteudo);
+        return conteudo;
+    }
+}
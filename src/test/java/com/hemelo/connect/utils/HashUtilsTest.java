@@ -0,0 +1,43 @@
+package com.hemelo.connect.utils;
+
+import com.hemelo.connect.enums.AlgoritmoHash;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class HashUtilsTest {
+
+    @TempDir
+    Path diretorio;
+
+    @Test
+    void testCalculaVariosAlgoritmosEmUmaLeitura() throws Exception {
+        Path arquivo = Files.writeString(diretorio.resolve("abc.txt"), "abc", StandardCharsets.US_ASCII);
+
+        Map<AlgoritmoHash, String> hashes = HashUtils.calcular(arquivo, AlgoritmoHash.SHA1, AlgoritmoHash.SHA256, AlgoritmoHash.CRC32C);
+
+        assertEquals("a9993e364706816aba3e25717850c26c9cd0d89d", hashes.get(AlgoritmoHash.SHA1));
+        assertEquals("ba7816bf8f01cfea414140de5dae2223b00361a396177a9cb410ff61f20015ad", hashes.get(AlgoritmoHash.SHA256));
+        assertEquals("364b3fb7", hashes.get(AlgoritmoHash.CRC32C));
+    }
+
+    @Test
+    void testMapeamentoEmMemoriaGeraMesmoHash() throws Exception {
+        byte[] conteudo = new byte[1_000_003];
+        new Random(7).nextBytes(conteudo);
+
+        Path arquivo = Files.write(diretorio.resolve("binario.bin"), conteudo);
+
+        Map<AlgoritmoHash, String> lido = HashUtils.calcular(arquivo, Long.MAX_VALUE, 4096, AlgoritmoHash.SHA1, AlgoritmoHash.CRC32C);
+        Map<AlgoritmoHash, String> mapeado = HashUtils.calcular(arquivo, 0, 4096, AlgoritmoHash.SHA1, AlgoritmoHash.CRC32C);
+
+        assertEquals(lido, mapeado);
+    }
+}
@@ -0,0 +1,59 @@
+package com.hemelo.connect.utils;
+
+import com.hemelo.connect.dto.MetricasTarefas;
+import com.hemelo.connect.enums.TipoTarefa;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProcessaUtilsTest {
+
+    @Test
+    void testRajadaDeTarefasRespeitaLimiteDoTipo() throws Exception {
+        TipoTarefa tipo = TipoTarefa.MANUTENCAO;
+        AtomicInteger emExecucao = new AtomicInteger();
+        AtomicInteger pico = new AtomicInteger();
+        CountDownLatch iniciadas = new CountDownLatch(tipo.getLimiteThreads());
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<Future<?>> tarefas = new ArrayList<>();
+
+        for (int i = 0; i < tipo.getCapacidadeFila() + tipo.getLimiteThreads(); i++) {
+            tarefas.add(ProcessaUtils.submeterTarefa(tipo, "Teste " + i, () -> {
+                pico.accumulateAndGet(emExecucao.incrementAndGet(), Math::max);
+                iniciadas.countDown();
+
+                try {
+                    liberar.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+
+                emExecucao.decrementAndGet();
+            }));
+        }
+
+        // Com as threads ocupadas e a fila cheia, a próxima tarefa é rejeitada
+        Future<?> rejeitada = ProcessaUtils.submeterTarefa(tipo, "Teste rejeitada", () -> {});
+        ExecutionException erro = assertThrows(ExecutionException.class, rejeitada::get);
+        assertInstanceOf(RejectedExecutionException.class, erro.getCause());
+
+        assertTrue(iniciadas.await(10, TimeUnit.SECONDS));
+        liberar.countDown();
+
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(10, TimeUnit.SECONDS);
+        }
+
+        MetricasTarefas metricas = ProcessaUtils.getMetricasTarefas(tipo);
+
+        assertEquals(tipo.getLimiteThreads(), pico.get());
+        assertTrue(metricas.picoEmExecucao() <= tipo.getLimiteThreads());
+        assertEquals(1, metricas.rejeitadas());
+        assertEquals(tarefas.size(), metricas.concluidas());
+    }
+}